@@ -0,0 +1,85 @@
+package ru.kropotov;
+
+import org.openjdk.jmh.annotations.*;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.random.SpinRandom;
+
+import java.util.concurrent.TimeUnit;
+
+import static ru.kropotov.Main.DEFAULT_BONUS_PERCENTAGE;
+
+/**
+ * Batches of spins generated lane by lane and evaluated by the vector and scalar kernels, against the
+ * same spins generated and evaluated one at a time. Scores are per batch; divide by the batch size for
+ * the time per spin.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchBenchmark {
+    @Param({"3", "5", "10"})
+    public int gridSize;
+
+    @Param({"11", "128"})
+    public int winCombinations;
+
+    @Param({"256"})
+    public int batchSize;
+
+    private SpinRandom random;
+    private MatrixGenerator matrixGenerator;
+    private RewardEvaluator evaluator;
+    private Evaluation evaluation;
+    private BatchRewardEvaluator vectorEvaluator;
+    private BatchRewardEvaluator scalarEvaluator;
+    private SpinBatch batch;
+    private int[] matrix;
+    private long spin;
+
+    @Setup
+    public void setUp() {
+        CompiledGame game = CompiledGame.compile(BenchmarkConfigs.create(gridSize, winCombinations));
+        random = new SpinRandom(1L);
+        matrixGenerator = new MatrixGenerator(game, DEFAULT_BONUS_PERCENTAGE, random);
+        evaluator = RewardEvaluator.forGame(game);
+        evaluation = evaluator.newEvaluation();
+        vectorEvaluator = new BatchRewardEvaluator(game, BatchRewardEvaluator.isVectorAvailable());
+        scalarEvaluator = new BatchRewardEvaluator(game, false);
+        batch = vectorEvaluator.newBatch(batchSize);
+        matrix = new int[game.getCellCount()];
+        matrixGenerator.generateCells(batch, 0, batchSize);
+    }
+
+    @Benchmark
+    public double spinOneByOne() {
+        double total = 0;
+        for (int i = 0; i < batchSize; i++) {
+            random.startSpin(spin++);
+            matrixGenerator.generateCells(matrix);
+            total += evaluator.evaluate(matrix, 100, evaluation);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public SpinBatch generateBatch() {
+        matrixGenerator.generateCells(batch, spin, batchSize);
+        spin += batchSize;
+        return batch;
+    }
+
+    @Benchmark
+    public SpinBatch evaluateVector() {
+        vectorEvaluator.evaluate(batch, 100);
+        return batch;
+    }
+
+    @Benchmark
+    public SpinBatch evaluateScalar() {
+        scalarEvaluator.evaluate(batch, 100);
+        return batch;
+    }
+}
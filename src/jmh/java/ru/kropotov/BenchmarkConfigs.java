@@ -0,0 +1,141 @@
+package ru.kropotov;
+
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.model.BonusSymbols;
+import ru.kropotov.model.Probabilities;
+import ru.kropotov.model.RequestConfig;
+import ru.kropotov.model.StandardSymbol;
+import ru.kropotov.model.Symbol;
+import ru.kropotov.model.WinCombination;
+import ru.kropotov.model.enums.Impact;
+import ru.kropotov.model.enums.Type;
+import ru.kropotov.model.enums.When;
+import ru.kropotov.random.SpinRandom;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Predicate;
+
+/**
+ * Synthetic square configs shaped like the shipped one: the same symbols, seven same_symbols tiers that
+ * start at a quarter of the grid, and zigzag paylines for the remaining win combinations.
+ */
+public final class BenchmarkConfigs {
+    private static final double[] TIER_MULTIPLIERS = {1, 1.5, 2, 3, 5, 10, 20};
+
+    public enum Scenario {
+        WINNING, LOSING, BONUS_HEAVY
+    }
+
+    private BenchmarkConfigs() {
+    }
+
+    static RequestConfig create(int gridSize, int winCombinations) {
+        Map<String, Symbol> symbols = new LinkedHashMap<>();
+        symbols.put("A", standard(5));
+        symbols.put("B", standard(3));
+        symbols.put("C", standard(2.5));
+        symbols.put("D", standard(2));
+        symbols.put("E", standard(1.2));
+        symbols.put("F", standard(1));
+        symbols.put("10x", bonus(Impact.MULTIPLY_REWARD, 10.0, null));
+        symbols.put("5x", bonus(Impact.MULTIPLY_REWARD, 5.0, null));
+        symbols.put("+1000", bonus(Impact.EXTRA_BONUS, null, 1000));
+        symbols.put("+500", bonus(Impact.EXTRA_BONUS, null, 500));
+        symbols.put("MISS", bonus(Impact.MISS, null, null));
+
+        Map<String, Integer> standardWeights = new LinkedHashMap<>();
+        String[] standardNames = {"A", "B", "C", "D", "E", "F"};
+        for (int i = 0; i < standardNames.length; i++) {
+            standardWeights.put(standardNames[i], i + 1);
+        }
+        Map<String, Integer> bonusWeights = new LinkedHashMap<>();
+        String[] bonusNames = {"10x", "5x", "+1000", "+500", "MISS"};
+        for (int i = 0; i < bonusNames.length; i++) {
+            bonusWeights.put(bonusNames[i], i + 1);
+        }
+        Probabilities probabilities = Probabilities.builder()
+                .standardSymbols(List.of(StandardSymbol.builder().row(0).column(0).symbols(standardWeights).build()))
+                .bonusSymbols(BonusSymbols.builder().symbols(bonusWeights).build())
+                .build();
+
+        return RequestConfig.builder()
+                .rows(gridSize)
+                .columns(gridSize)
+                .symbols(symbols)
+                .probabilities(probabilities)
+                .winCombinations(winCombinations(gridSize, winCombinations))
+                .build();
+    }
+
+    private static Map<String, WinCombination> winCombinations(int gridSize, int count) {
+        Map<String, WinCombination> combinations = new LinkedHashMap<>();
+        int cells = gridSize * gridSize;
+        int firstTier = Math.max(3, cells / 4);
+        for (int tier = 0; tier < TIER_MULTIPLIERS.length && firstTier + tier <= cells && combinations.size() < count;
+             tier++) {
+            combinations.put("same_symbol_" + (firstTier + tier) + "_times", WinCombination.builder()
+                    .rewardMultiplier(TIER_MULTIPLIERS[tier])
+                    .when(When.SAME_SYMBOLS)
+                    .count(firstTier + tier)
+                    .group("same_symbols")
+                    .build());
+        }
+
+        Random random = new Random(gridSize * 31L + count);
+        for (int line = 0; combinations.size() < count; line++) {
+            List<String> area = new ArrayList<>();
+            int row = random.nextInt(gridSize);
+            for (int col = 0; col < gridSize; col++) {
+                area.add(row + ":" + col);
+                row = Math.max(0, Math.min(gridSize - 1, row + random.nextInt(3) - 1));
+            }
+            combinations.put("payline_" + line, WinCombination.builder()
+                    .rewardMultiplier(2.0)
+                    .when(When.LINEAR_SYMBOLS)
+                    .group("payline_" + line)
+                    .coveredAreas(List.of(area))
+                    .build());
+        }
+        return combinations;
+    }
+
+    static int[] findMatrix(CompiledGame game, Scenario scenario) {
+        double bonusPercentage = scenario == Scenario.BONUS_HEAVY ? 0.4 : 0.05;
+        Predicate<RewardCalculator> predicate;
+        switch (scenario) {
+            case WINNING:
+                predicate = calculator -> calculator.calculateReward() > 0;
+                break;
+            case LOSING:
+                predicate = calculator -> calculator.calculateReward() == 0;
+                break;
+            default:
+                predicate = calculator -> calculator.calculateReward() > 0
+                        && calculator.getAppliedBonusSymbolCount() >= 2;
+        }
+
+        SpinRandom random = new SpinRandom(scenario.ordinal());
+        MatrixGenerator matrixGenerator = new MatrixGenerator(game, bonusPercentage, random);
+        for (long spin = 0; spin < 10_000_000; spin++) {
+            random.startSpin(spin);
+            int[] matrix = matrixGenerator.generateCells();
+            if (predicate.test(new RewardCalculator(matrix, game, 100))) {
+                return matrix;
+            }
+        }
+        throw new IllegalStateException("No " + scenario + " matrix found for a "
+                + game.getRows() + "x" + game.getColumns() + " grid");
+    }
+
+    private static Symbol standard(double rewardMultiplier) {
+        return Symbol.builder().rewardMultiplier(rewardMultiplier).type(Type.STANDARD).build();
+    }
+
+    private static Symbol bonus(Impact impact, Double rewardMultiplier, Integer extra) {
+        return Symbol.builder().rewardMultiplier(rewardMultiplier).extra(extra).type(Type.BONUS).impact(impact).build();
+    }
+}
@@ -0,0 +1,71 @@
+package ru.kropotov;
+
+import org.openjdk.jmh.annotations.*;
+import ru.kropotov.game.CompiledGame;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static ru.kropotov.Main.DEFAULT_BONUS_PERCENTAGE;
+
+/**
+ * Spins on large grids with the parallel evaluator running on pools of 1 to 8 threads, against the plain
+ * single-threaded evaluator. Time per spin should fall close to linearly with the pool size as long as
+ * the machine has that many cores.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LargeGridBenchmark {
+    @Param({"50", "100", "200"})
+    public int gridSize;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private ForkJoinPool pool;
+    private MatrixGenerator matrixGenerator;
+    private RewardEvaluator plainEvaluator;
+    private Evaluation plainEvaluation;
+    private LargeGridRewardEvaluator largeGridEvaluator;
+    private Evaluation largeGridEvaluation;
+    private int[] matrix;
+
+    @Setup
+    public void setUp() {
+        CompiledGame game = CompiledGame.compile(BenchmarkConfigs.create(gridSize, 128));
+        pool = new ForkJoinPool(parallelism);
+        matrixGenerator = new MatrixGenerator(game, DEFAULT_BONUS_PERCENTAGE);
+        plainEvaluator = new RewardEvaluator(game);
+        plainEvaluation = plainEvaluator.newEvaluation();
+        largeGridEvaluator = new LargeGridRewardEvaluator(game);
+        largeGridEvaluation = largeGridEvaluator.newEvaluation();
+        matrix = new int[game.getCellCount()];
+        matrixGenerator.generateCells(matrix);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public int[] generateCells() {
+        matrixGenerator.generateCells(matrix);
+        return matrix;
+    }
+
+    @Benchmark
+    public double evaluatePlain() {
+        return plainEvaluator.evaluate(matrix, 100, plainEvaluation);
+    }
+
+    @Benchmark
+    public double evaluateLargeGrid() {
+        // Parallel streams started from a pool task run on that pool, so the pool size bounds the parallelism
+        return pool.submit(() -> largeGridEvaluator.evaluate(matrix, 100, largeGridEvaluation)).join();
+    }
+}
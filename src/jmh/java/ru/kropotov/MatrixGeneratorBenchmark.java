@@ -0,0 +1,40 @@
+package ru.kropotov;
+
+import org.openjdk.jmh.annotations.*;
+import ru.kropotov.game.CompiledGame;
+
+import java.util.concurrent.TimeUnit;
+
+import static ru.kropotov.Main.DEFAULT_BONUS_PERCENTAGE;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatrixGeneratorBenchmark {
+    @Param({"3", "5", "10"})
+    public int gridSize;
+
+    private MatrixGenerator matrixGenerator;
+    private int[] cells;
+
+    @Setup
+    public void setUp() {
+        CompiledGame game = CompiledGame.compile(BenchmarkConfigs.create(gridSize, 11));
+        matrixGenerator = new MatrixGenerator(game, DEFAULT_BONUS_PERCENTAGE);
+        cells = new int[game.getCellCount()];
+    }
+
+    @Benchmark
+    public String[][] generateMatrix() {
+        return matrixGenerator.generateMatrix();
+    }
+
+    @Benchmark
+    public int[] generateCells() {
+        matrixGenerator.generateCells(cells);
+        return cells;
+    }
+}
@@ -0,0 +1,68 @@
+package ru.kropotov;
+
+import org.openjdk.jmh.annotations.*;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.metrics.SpinMetrics;
+
+import java.util.concurrent.TimeUnit;
+
+import static ru.kropotov.Main.DEFAULT_BONUS_PERCENTAGE;
+
+/**
+ * Cost of instrumenting the bulk spin loop: {@code spin} against {@code spinWithMetrics} timing every
+ * spin or every 64th, on the smallest grid where the clock reads weigh the most.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+    @Param({"3", "10"})
+    public int gridSize;
+
+    @Param({"1", "64"})
+    public int sampleInterval;
+
+    private MatrixGenerator matrixGenerator;
+    private RewardEvaluator evaluator;
+    private Evaluation evaluation;
+    private SpinMetrics metrics;
+    private int[] matrix;
+    private long spin;
+
+    @Setup
+    public void setUp() {
+        CompiledGame game = CompiledGame.compile(BenchmarkConfigs.create(gridSize, 11));
+        matrixGenerator = new MatrixGenerator(game, DEFAULT_BONUS_PERCENTAGE);
+        evaluator = RewardEvaluator.forGame(game);
+        evaluation = evaluator.newEvaluation();
+        metrics = new SpinMetrics(sampleInterval);
+        matrix = new int[game.getCellCount()];
+    }
+
+    @Benchmark
+    public double spin() {
+        matrixGenerator.generateCells(matrix);
+        return evaluator.evaluate(matrix, 100, evaluation);
+    }
+
+    @Benchmark
+    public double spinWithMetrics() {
+        double reward;
+        if (metrics.isTimed(spin++)) {
+            long start = System.nanoTime();
+            matrixGenerator.generateCells(matrix);
+            long generated = System.nanoTime();
+            reward = evaluator.evaluate(matrix, 100, evaluation);
+            metrics.record(SpinMetrics.Phase.GENERATE, generated - start);
+            metrics.record(SpinMetrics.Phase.EVALUATE, System.nanoTime() - generated);
+        } else {
+            matrixGenerator.generateCells(matrix);
+            reward = evaluator.evaluate(matrix, 100, evaluation);
+        }
+        metrics.recordSpin(reward);
+        return reward;
+    }
+}
@@ -0,0 +1,80 @@
+package ru.kropotov;
+
+import org.openjdk.jmh.annotations.*;
+import ru.kropotov.game.CompiledGame;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RewardCalculatorBenchmark {
+    private static final int[] BET_LADDER = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000};
+
+    @Param({"3", "5", "10"})
+    public int gridSize;
+
+    @Param({"11", "32", "128"})
+    public int winCombinations;
+
+    @Param({"WINNING", "LOSING", "BONUS_HEAVY"})
+    public BenchmarkConfigs.Scenario scenario;
+
+    private CompiledGame game;
+    private int[] matrix;
+    private RewardEvaluator evaluator;
+    private Evaluation evaluation;
+    private RewardEvaluator bitboardEvaluator;
+    private Evaluation bitboardEvaluation;
+    private SpinOutcome outcome;
+    private double[] ladderRewards;
+
+    @Setup
+    public void setUp() {
+        game = CompiledGame.compile(BenchmarkConfigs.create(gridSize, winCombinations));
+        matrix = BenchmarkConfigs.findMatrix(game, scenario);
+        evaluator = new RewardEvaluator(game);
+        evaluation = evaluator.newEvaluation();
+        if (BitboardRewardEvaluator.supports(game)) {
+            bitboardEvaluator = new BitboardRewardEvaluator(game);
+            bitboardEvaluation = bitboardEvaluator.newEvaluation();
+        }
+        outcome = new SpinOutcome(game);
+        ladderRewards = new double[BET_LADDER.length];
+    }
+
+    @Benchmark
+    public double calculateReward() {
+        return new RewardCalculator(matrix, game, 100).calculateReward();
+    }
+
+    @Benchmark
+    public double evaluateReused() {
+        return evaluator.evaluate(matrix, 100, evaluation);
+    }
+
+    // The 10x10 grid has more cells than a bitboard holds and reports NaN
+    @Benchmark
+    public double evaluateBitboard() {
+        return bitboardEvaluator == null ? Double.NaN : bitboardEvaluator.evaluate(matrix, 100, bitboardEvaluation);
+    }
+
+    @Benchmark
+    public double[] evaluateBetLadder() {
+        for (int i = 0; i < BET_LADDER.length; i++) {
+            ladderRewards[i] = evaluator.evaluate(matrix, BET_LADDER[i], evaluation);
+        }
+        return ladderRewards;
+    }
+
+    @Benchmark
+    public double[] priceBetLadder() {
+        evaluator.evaluate(matrix, BET_LADDER[0], evaluation);
+        outcome.capture(matrix, evaluation);
+        outcome.price(BET_LADDER, ladderRewards);
+        return ladderRewards;
+    }
+}
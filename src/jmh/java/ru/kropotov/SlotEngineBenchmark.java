@@ -0,0 +1,56 @@
+package ru.kropotov;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spin throughput of one shared {@link SlotEngine} on one thread and on every core. The engine holds no
+ * mutable state, so the all-cores score should be the single-thread score times the number of cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SlotEngineBenchmark {
+    @Param({"3", "5", "10"})
+    public int gridSize;
+
+    private SlotEngine engine;
+
+    @Setup
+    public void setUp() {
+        engine = new SlotEngine(BenchmarkConfigs.create(gridSize, 32));
+    }
+
+    @State(Scope.Thread)
+    public static class Caller {
+        private SpinContext context;
+
+        @Setup
+        public void setUp(SlotEngineBenchmark benchmark) {
+            context = benchmark.engine.newContext();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public double spinOneThread(Caller caller) {
+        return caller.context.spin(100);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public double spinAllCores(Caller caller) {
+        return caller.context.spin(100);
+    }
+
+    // The context of the calling thread, as a service without its own thread state would use it
+    @Benchmark
+    @Threads(Threads.MAX)
+    public double spinThreadContext() {
+        return engine.context().spin(100);
+    }
+}
@@ -0,0 +1,62 @@
+package ru.kropotov;
+
+import org.openjdk.jmh.annotations.*;
+import ru.kropotov.game.CompiledGame;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import static ru.kropotov.Main.DEFAULT_BONUS_PERCENTAGE;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpinBenchmark {
+    @Param({"3", "5", "10"})
+    public int gridSize;
+
+    @Param({"11", "32", "128"})
+    public int winCombinations;
+
+    private CompiledGame game;
+    private MatrixGenerator matrixGenerator;
+    private NdjsonResultWriter resultWriter;
+    private RewardEvaluator evaluator;
+    private Evaluation evaluation;
+    private int[] matrix;
+
+    @Setup
+    public void setUp() throws IOException {
+        game = CompiledGame.compile(BenchmarkConfigs.create(gridSize, winCombinations));
+        matrixGenerator = new MatrixGenerator(game, DEFAULT_BONUS_PERCENTAGE);
+        evaluator = new RewardEvaluator(game);
+        evaluation = evaluator.newEvaluation();
+        matrix = new int[game.getCellCount()];
+        resultWriter = new NdjsonResultWriter(OutputStream.nullOutputStream(), 1024);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        resultWriter.close();
+    }
+
+    @Benchmark
+    public String spin() throws IOException {
+        int[] matrix = matrixGenerator.generateCells();
+        RewardCalculator rewardCalculator = new RewardCalculator(matrix, game, 100);
+        double reward = rewardCalculator.calculateReward();
+        return Main.formatResult(game, matrix, reward, rewardCalculator.getAppliedWinningCombinations(),
+                rewardCalculator.getAppliedBonusSymbols());
+    }
+
+    @Benchmark
+    public void spinToNdjson() throws IOException {
+        matrixGenerator.generateCells(matrix);
+        evaluator.evaluate(matrix, 100, evaluation);
+        resultWriter.write(matrix, evaluation);
+    }
+}
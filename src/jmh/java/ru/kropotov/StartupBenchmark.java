@@ -0,0 +1,68 @@
+package ru.kropotov;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.game.GameSnapshot;
+import ru.kropotov.model.RequestConfig;
+import ru.kropotov.random.SpinRandom;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import static ru.kropotov.Main.DEFAULT_BONUS_PERCENTAGE;
+
+/**
+ * Time to the first spin of a fresh JVM, from the config file and from its snapshot. Every fork measures
+ * a single cold spin, and the snapshot is written by a separate JVM so that the measured one has loaded
+ * none of the config binding classes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class StartupBenchmark {
+    private static final String CONFIG = "src/test/resources/config.json";
+
+    @Param({"config", "snapshot"})
+    public String source;
+
+    private Path snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        if ("snapshot".equals(source)) {
+            snapshot = Files.createTempFile("game", ".snapshot");
+            Process process = new ProcessBuilder(Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-cp", System.getProperty("java.class.path"), Main.class.getName(),
+                    "-c", CONFIG, "--compile-config", snapshot.toString())
+                    .inheritIO().start();
+            if (process.waitFor() != 0) {
+                throw new IllegalStateException("Compiling the snapshot failed");
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (snapshot != null) {
+            Files.delete(snapshot);
+        }
+    }
+
+    @Benchmark
+    public double firstSpin() throws IOException {
+        CompiledGame game = snapshot != null
+                ? GameSnapshot.read(snapshot).getGame()
+                : CompiledGame.compile(new ObjectMapper().readValue(new File(CONFIG), RequestConfig.class));
+        int[] matrix = new MatrixGenerator(game, DEFAULT_BONUS_PERCENTAGE, new SpinRandom(1L)).generateCells();
+        RewardEvaluator evaluator = RewardEvaluator.forGame(game);
+        return evaluator.evaluate(matrix, 100, evaluator.newEvaluation());
+    }
+}
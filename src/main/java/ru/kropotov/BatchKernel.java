@@ -0,0 +1,12 @@
+package ru.kropotov;
+
+/**
+ * Evaluates every spin of a {@link SpinBatch}: fills its rewards and counts how many of its spins
+ * applied each combination and bonus symbol.
+ */
+interface BatchKernel {
+    void evaluate(SpinBatch batch, int bettingAmount);
+
+    // Name shown in logs and benchmarks
+    String name();
+}
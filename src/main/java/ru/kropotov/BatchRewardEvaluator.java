@@ -0,0 +1,103 @@
+package ru.kropotov;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import ru.kropotov.game.CompiledCombination;
+import ru.kropotov.game.CompiledGame;
+
+import static ru.kropotov.model.enums.When.LINEAR_SYMBOLS;
+
+/**
+ * Evaluates a {@link SpinBatch} at a time for bulk simulations. With the {@code jdk.incubator.vector}
+ * module present the batch runs through a Vector API kernel with one lane per spin; otherwise its spins
+ * are evaluated one by one with {@link RewardEvaluator#forGame}. Either way rewards and hit counts equal
+ * those of the plain evaluator.
+ */
+@Slf4j
+public class BatchRewardEvaluator {
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    // Cells a batch holds at most, so that batches of large grids stay small
+    static final int BATCH_CELLS = 1 << 16;
+    static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_KERNEL = "ru.kropotov.VectorBatchKernel";
+
+    @Getter
+    private final CompiledGame game;
+    private final RewardEvaluator evaluator;
+    private final int areaCount;
+    private final BatchKernel kernel;
+    private final boolean vector;
+
+    public BatchRewardEvaluator(CompiledGame game) {
+        this(game, isVectorAvailable());
+    }
+
+    BatchRewardEvaluator(CompiledGame game, boolean vector) {
+        this.game = game;
+        this.evaluator = RewardEvaluator.forGame(game);
+        int areas = 0;
+        for (CompiledCombination combination : game.getCombinations()) {
+            if (LINEAR_SYMBOLS.equals(combination.getWhen())) {
+                areas += combination.getCoveredAreas().length;
+            }
+        }
+        this.areaCount = areas;
+        // Lanes sum symbol rewards in one order, which the game keeps unless it pays for more than 12 symbols
+        this.vector = vector && game.getRewardSumOrders().length == 1;
+        this.kernel = this.vector ? newVectorKernel(game) : new ScalarBatchKernel(evaluator);
+        log.debug("Batch evaluation uses the {} kernel", kernel.name());
+    }
+
+    // The vector kernel is compiled apart from the other classes, which build without the incubator
+    // module, and is loaded only when chosen, as its class cannot link without the module
+    private static BatchKernel newVectorKernel(CompiledGame game) {
+        try {
+            return (BatchKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor(CompiledGame.class)
+                    .newInstance(game);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Vector kernel is not available", e);
+        }
+    }
+
+    // Spins per batch of the game: the default, or fewer down to one when the cells would exceed the budget
+    public static int batchSize(CompiledGame game) {
+        return Math.max(1, Math.min(DEFAULT_BATCH_SIZE, BATCH_CELLS / Math.max(1, game.getCellCount())));
+    }
+
+    // Whether the JVM was started with --add-modules jdk.incubator.vector
+    public static boolean isVectorAvailable() {
+        return ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent();
+    }
+
+    public String getKernelName() {
+        return kernel.name();
+    }
+
+    public SpinBatch newBatch(int capacity) {
+        return new SpinBatch(game, capacity, areaCount, evaluator.newEvaluation(), vector);
+    }
+
+    public Evaluation newEvaluation() {
+        return evaluator.newEvaluation();
+    }
+
+    /**
+     * Evaluates every spin of the batch into its rewards and hit counts.
+     */
+    public void evaluate(SpinBatch batch, int bettingAmount) {
+        if (batch.getGame() != game) {
+            throw new IllegalArgumentException("Batch belongs to another game");
+        }
+        kernel.evaluate(batch, bettingAmount);
+    }
+
+    /**
+     * Evaluates one spin of the batch on its own, with the applied combinations and bonus symbols.
+     */
+    public double evaluate(SpinBatch batch, int spin, int bettingAmount, Evaluation evaluation) {
+        if (spin < 0 || spin >= batch.size()) {
+            throw new IndexOutOfBoundsException("Spin " + spin + " of " + batch.size());
+        }
+        return evaluator.evaluate(batch.readMatrix(spin, batch.matrix), bettingAmount, evaluation);
+    }
+}
@@ -0,0 +1,93 @@
+package ru.kropotov;
+
+import ru.kropotov.game.CompiledCombination;
+import ru.kropotov.game.CompiledGame;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Evaluates grids of up to 64 cells on one position mask per symbol. A covered area is compiled into
+ * a mask, so a line win is a single AND and compare, and a same_symbols count is a bit count. Results,
+ * including the order in which combinations and bonus symbols are applied, equal those of the plain
+ * {@link RewardEvaluator}.
+ */
+public class BitboardRewardEvaluator extends RewardEvaluator {
+    static final int MAX_CELLS = Long.SIZE;
+
+    private final int[] bonusSymbols;
+    // Area masks of the linear combinations, with the first cell of each area to tell its symbol
+    private final long[][] areaMasks;
+    private final int[][] areaFirstCells;
+
+    public BitboardRewardEvaluator(CompiledGame game) {
+        super(game);
+        if (!supports(game)) {
+            throw new IllegalArgumentException("Bitboard evaluation supports up to " + MAX_CELLS + " cells, got "
+                    + game.getCellCount());
+        }
+        this.bonusSymbols = IntStream.range(0, game.symbolCount()).filter(game::isBonus).toArray();
+        this.areaMasks = new long[linearCombinations.length][];
+        this.areaFirstCells = new int[linearCombinations.length][];
+        for (int i = 0; i < linearCombinations.length; i++) {
+            int[][] areas = linearCombinations[i].getCoveredAreas();
+            areaMasks[i] = new long[areas.length];
+            areaFirstCells[i] = new int[areas.length];
+            for (int j = 0; j < areas.length; j++) {
+                for (int cell : areas[j]) {
+                    areaMasks[i][j] |= 1L << cell;
+                }
+                areaFirstCells[i][j] = areas[j].length > 0 ? areas[j][0] : -1;
+            }
+        }
+    }
+
+    public static boolean supports(CompiledGame game) {
+        return game.getCellCount() <= MAX_CELLS;
+    }
+
+    @Override
+    public double evaluate(int[] matrix, int bettingAmount, Evaluation evaluation) {
+        evaluation.reset();
+        long[] masks = evaluation.symbolMasks;
+        Arrays.fill(masks, 0L);
+        for (int cell = 0; cell < matrix.length; cell++) {
+            masks[matrix[cell]] |= 1L << cell;
+        }
+
+        for (int symbol : standardSymbols) {
+            for (CompiledCombination combination : sameSymbolCombinations[Long.bitCount(masks[symbol])]) {
+                addSymbolReward(symbol, combination, bettingAmount, evaluation);
+            }
+        }
+
+        for (int i = 0; i < linearCombinations.length; i++) {
+            long[] combinationAreas = areaMasks[i];
+            for (int j = 0; j < combinationAreas.length; j++) {
+                long area = combinationAreas[j];
+                if (area != 0) {
+                    int symbol = matrix[areaFirstCells[i][j]];
+                    if ((masks[symbol] & area) == area) {
+                        addSymbolReward(symbol, linearCombinations[i], bettingAmount, evaluation);
+                    }
+                }
+            }
+        }
+
+        double totalReward = calculateTotalReward(evaluation);
+        if (totalReward == 0.0) {
+            return finish(totalReward, evaluation);
+        }
+        long bonusCells = 0;
+        for (int symbol : bonusSymbols) {
+            bonusCells |= masks[symbol];
+        }
+        evaluation.bonusMultiplier = 1.0;
+        evaluation.extraBonus = 0.0;
+        // Lowest bits first keeps the row-major order in which bonus symbols are applied
+        for (long cells = bonusCells; cells != 0; cells &= cells - 1) {
+            applyBonusSymbol(matrix[Long.numberOfTrailingZeros(cells)], evaluation);
+        }
+        return finish(totalReward * evaluation.bonusMultiplier + evaluation.extraBonus, evaluation);
+    }
+}
@@ -0,0 +1,33 @@
+package ru.kropotov;
+
+/**
+ * Running sum with the compensation of {@link java.util.stream.DoubleStream#sum()}, which RewardCalculator
+ * summed symbol rewards with, so that adding the same values in the same order gives the same total to
+ * the bit. Reused by resetting it.
+ */
+final class CompensatedSum {
+    private double sum;
+    // Negated low-order bits that adding to sum has lost
+    private double compensation;
+    // Plain sum, giving the sign of an infinite total that the compensated one turns into NaN
+    private double simpleSum;
+
+    void reset() {
+        sum = 0.0;
+        compensation = 0.0;
+        simpleSum = 0.0;
+    }
+
+    void add(double value) {
+        double tmp = value - compensation;
+        double velvel = sum + tmp;
+        compensation = (velvel - sum) - tmp;
+        sum = velvel;
+        simpleSum += value;
+    }
+
+    double total() {
+        double total = sum - compensation;
+        return Double.isNaN(total) && Double.isInfinite(simpleSum) ? simpleSum : total;
+    }
+}
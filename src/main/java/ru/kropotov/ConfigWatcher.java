@@ -0,0 +1,107 @@
+package ru.kropotov;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.model.RequestConfig;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the compiled game of a config file up to date. Changes are parsed and compiled on the watcher
+ * thread and the new game is published with a single reference swap, so a spin that took the current
+ * game keeps using it until it finishes. A config that fails to load leaves the current game in place.
+ */
+@Slf4j
+public class ConfigWatcher implements Supplier<CompiledGame>, AutoCloseable {
+    // Editors often save a file in several steps, so events are collected until they settle
+    private static final long SETTLE_MILLIS = 100;
+
+    private final Path configPath;
+    private final AtomicReference<CompiledGame> game;
+    private final WatchService watchService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Thread thread;
+    private byte[] loadedContent;
+
+    public ConfigWatcher(Path configPath, CompiledGame game) throws IOException {
+        this.configPath = configPath.toAbsolutePath();
+        this.game = new AtomicReference<>(game);
+        this.watchService = this.configPath.getFileSystem().newWatchService();
+        this.configPath.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        this.thread = new Thread(this::watch, "config-watcher");
+        thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+        log.info("Watching config file {}", configPath);
+    }
+
+    @Override
+    public CompiledGame get() {
+        return game.get();
+    }
+
+    @Override
+    public void close() {
+        thread.interrupt();
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            log.warn("Error closing config watcher", e);
+        }
+    }
+
+    boolean reload() {
+        try {
+            byte[] content = Files.readAllBytes(configPath);
+            if (Arrays.equals(content, loadedContent)) {
+                return false;
+            }
+            CompiledGame compiled = CompiledGame.compile(objectMapper.readValue(content, RequestConfig.class));
+            game.set(compiled);
+            loadedContent = content;
+            log.info("Reloaded config file {}", configPath);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.error("Invalid config file {}, keeping the previous one: {}", configPath, e.getMessage());
+            return false;
+        }
+    }
+
+    private void watch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                boolean changed = isConfigChanged(watchService.take());
+                WatchKey key;
+                while ((key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= isConfigChanged(key);
+                }
+                if (changed) {
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            log.debug("Config watcher stopped");
+        }
+    }
+
+    private boolean isConfigChanged(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || configPath.getFileName().equals(event.context())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+}
@@ -0,0 +1,100 @@
+package ru.kropotov;
+
+import ru.kropotov.game.CompiledGame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reusable result of evaluating one matrix. Every array is sized for the worst case of its game when
+ * the evaluation is created, so evaluating into it again allocates nothing.
+ */
+public class Evaluation {
+    private final CompiledGame game;
+    final int[] symbolCounts;
+    final long[] symbolMasks;
+    final double[] symbolRewards;
+    final boolean[] rewardedSymbols;
+    int rewardedCount;
+    final int[] appliedSymbols;
+    final int[] appliedCombinations;
+    int appliedCount;
+    final int[] appliedBonusSymbols;
+    int appliedBonusCount;
+    double bonusMultiplier;
+    double extraBonus;
+    // Sum of the symbol rewards, bonus symbols are applied only when it is not zero
+    double totalReward;
+    final CompensatedSum rewardSum = new CompensatedSum();
+    double reward;
+
+    Evaluation(CompiledGame game, int maxAppliedCombinations) {
+        this.game = game;
+        this.symbolCounts = new int[game.symbolCount()];
+        this.symbolMasks = new long[game.symbolCount()];
+        this.symbolRewards = new double[game.symbolCount()];
+        this.rewardedSymbols = new boolean[game.symbolCount()];
+        this.appliedSymbols = new int[maxAppliedCombinations];
+        this.appliedCombinations = new int[maxAppliedCombinations];
+        this.appliedBonusSymbols = new int[game.getCellCount()];
+    }
+
+    void reset() {
+        Arrays.fill(symbolCounts, 0);
+        Arrays.fill(rewardedSymbols, false);
+        rewardedCount = 0;
+        appliedCount = 0;
+        appliedBonusCount = 0;
+        totalReward = 0;
+        reward = 0;
+    }
+
+    public CompiledGame getGame() {
+        return game;
+    }
+
+    public double getReward() {
+        return reward;
+    }
+
+    public int getAppliedCombinationCount() {
+        return appliedCount;
+    }
+
+    public int getAppliedCombinationId(int index) {
+        return appliedCombinations[index];
+    }
+
+    public int getAppliedSymbolId(int index) {
+        return appliedSymbols[index];
+    }
+
+    public int getAppliedBonusSymbolCount() {
+        return appliedBonusCount;
+    }
+
+    public int getAppliedBonusSymbolId(int index) {
+        return appliedBonusSymbols[index];
+    }
+
+    public Map<String, List<String>> getAppliedWinningCombinations() {
+        Map<String, List<String>> appliedWinningCombinations = new HashMap<>();
+        for (int i = 0; i < appliedCount; i++) {
+            appliedWinningCombinations
+                    .computeIfAbsent(game.symbolName(appliedSymbols[i]), k -> new ArrayList<>())
+                    .add(game.getCombinations()[appliedCombinations[i]].getName());
+        }
+        return appliedWinningCombinations;
+    }
+
+    public List<String> getAppliedBonusSymbols() {
+        List<String> names = new ArrayList<>(appliedBonusCount);
+        for (int i = 0; i < appliedBonusCount; i++) {
+            names.add(game.symbolName(appliedBonusSymbols[i]));
+        }
+        return names;
+    }
+}
@@ -0,0 +1,617 @@
+package ru.kropotov;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.kropotov.game.CompiledCombination;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.game.DoubleDistribution;
+import ru.kropotov.model.enums.Impact;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static ru.kropotov.game.CompiledGame.NO_SYMBOL;
+import static ru.kropotov.model.enums.When.LINEAR_SYMBOLS;
+
+/**
+ * Computes the exact payout distribution of a spin from the per-cell probabilities instead of sampling it.
+ * <p>
+ * Every cell either keeps a standard symbol or is overlaid by a bonus symbol. The standard symbols are
+ * enumerated cell by cell with the overlaid cells left blank. Blank cells only affect the payout through
+ * the product of their multipliers and the sum of their extras, whose distribution depends on nothing but
+ * the number of blank cells, so they are folded in afterwards. Bonus symbols are enumerated cell by cell
+ * only where a covered area lies entirely on blank cells, because such an area can pay on its own.
+ */
+@Slf4j
+public class ExactRtpCalculator {
+    public static final long DEFAULT_MAX_STATES = 100_000_000L;
+    private static final int MAX_CELLS = Long.SIZE - 1;
+    // Enough independent prefixes of the enumeration to keep every core busy
+    private static final int MIN_TASKS = 64;
+
+    private final CompiledGame game;
+    private final double bonusPercentage;
+    private final int bettingAmount;
+    private final long maxStates;
+    private final int cellCount;
+    // Symbols a cell can keep, with probabilities that already include the chance of no bonus overlay
+    private final int[][] standardOutcomes;
+    private final double[][] standardProbabilities;
+    // Symbols of a bonus overlay, with probabilities given that the overlay happens
+    private final int[] bonusOutcomes;
+    private final double[] bonusProbabilities;
+    // Multipliers of the same_symbols combinations for every count, in config order
+    private final double[][] sameMultipliers;
+    // Non-empty covered areas of the linear combinations, in config order
+    private final int[][] areas;
+    private final long[] areaMasks;
+    private final double[] areaMultipliers;
+    // Areas by the last of their cells in row-major order
+    private final int[][] areasEndingAt;
+    private final int[] standardSymbols;
+    private final List<BonusOutcomes> blankOutcomes = new ArrayList<>();
+
+    public ExactRtpCalculator(CompiledGame game, double bonusPercentage, int bettingAmount) {
+        this(game, bonusPercentage, bettingAmount, DEFAULT_MAX_STATES);
+    }
+
+    public ExactRtpCalculator(CompiledGame game, double bonusPercentage, int bettingAmount, long maxStates) {
+        this.game = game;
+        this.bonusPercentage = bonusPercentage;
+        this.bettingAmount = bettingAmount;
+        this.maxStates = maxStates;
+        this.cellCount = game.getCellCount();
+
+        standardOutcomes = new int[cellCount][];
+        standardProbabilities = new double[cellCount][];
+        for (int cell = 0; cell < cellCount; cell++) {
+            int[] symbols = game.getCellSymbols()[cell];
+            int count = 0;
+            int[] outcomes = new int[symbols.length];
+            double[] probabilities = new double[symbols.length];
+            for (int i = 0; i < symbols.length; i++) {
+                double probability = (1 - bonusPercentage) * game.getCellTables()[cell].probability(i);
+                if (probability > 0) {
+                    outcomes[count] = symbols[i];
+                    probabilities[count++] = probability;
+                }
+            }
+            standardOutcomes[cell] = Arrays.copyOf(outcomes, count);
+            standardProbabilities[cell] = Arrays.copyOf(probabilities, count);
+        }
+
+        int[] symbols = game.getBonusTableSymbols();
+        int count = 0;
+        int[] outcomes = new int[symbols.length];
+        double[] probabilities = new double[symbols.length];
+        for (int i = 0; i < symbols.length; i++) {
+            double probability = bonusPercentage > 0 ? game.getBonusTable().probability(i) : 0;
+            if (probability > 0) {
+                outcomes[count] = symbols[i];
+                probabilities[count++] = probability;
+            }
+        }
+        bonusOutcomes = Arrays.copyOf(outcomes, count);
+        bonusProbabilities = Arrays.copyOf(probabilities, count);
+
+        List<int[]> linearAreas = new ArrayList<>();
+        List<Double> linearMultipliers = new ArrayList<>();
+        for (CompiledCombination combination : game.getCombinations()) {
+            if (LINEAR_SYMBOLS.equals(combination.getWhen())) {
+                for (int[] area : combination.getCoveredAreas()) {
+                    if (area.length > 0) {
+                        linearAreas.add(area);
+                        linearMultipliers.add(combination.getRewardMultiplier());
+                    }
+                }
+            }
+        }
+        sameMultipliers = Arrays.stream(game.getSameSymbolCombinations())
+                .map(combinations -> Arrays.stream(combinations)
+                        .mapToDouble(CompiledCombination::getRewardMultiplier).toArray())
+                .toArray(double[][]::new);
+        areas = linearAreas.toArray(new int[0][]);
+        areaMultipliers = linearMultipliers.stream().mapToDouble(Double::doubleValue).toArray();
+        areasEndingAt = new int[cellCount][];
+        for (int cell = 0; cell < cellCount; cell++) {
+            int lastCell = cell;
+            areasEndingAt[cell] = IntStream.range(0, areas.length)
+                    .filter(area -> Arrays.stream(areas[area]).max().getAsInt() == lastCell)
+                    .toArray();
+        }
+        standardSymbols = IntStream.range(0, game.symbolCount()).filter(game::isStandard).toArray();
+        areaMasks = new long[areas.length];
+        if (cellCount <= MAX_CELLS) {
+            for (int i = 0; i < areas.length; i++) {
+                for (int cell : areas[i]) {
+                    areaMasks[i] |= 1L << cell;
+                }
+            }
+        }
+    }
+
+    /**
+     * Upper bound of the number of outcomes the calculation visits, which bounds its running time.
+     */
+    public long countStates() {
+        long states = 1;
+        for (int cell = 0; cell < cellCount; cell++) {
+            states = multiply(states, standardOutcomes[cell].length + (bonusPercentage > 0 ? 1 : 0));
+        }
+        if (bonusPercentage > 0 && areas.length > 0) {
+            long bonusStates = 1;
+            for (int cell = 0; cell < cellCount; cell++) {
+                bonusStates = multiply(bonusStates, bonusOutcomes.length + 1);
+            }
+            states = states > Long.MAX_VALUE - bonusStates ? Long.MAX_VALUE : states + bonusStates;
+        }
+        return states;
+    }
+
+    /**
+     * Returns the exact result, or nothing when the game is too large or has a shape the calculation
+     * does not cover, in which case a simulation has to be used instead.
+     */
+    public Optional<ExactRtpResult> calculate() {
+        String reason = unsupportedReason();
+        if (reason != null) {
+            log.info("Exact RTP is not available: {}", reason);
+            return Optional.empty();
+        }
+        long states = countStates();
+        if (states > maxStates) {
+            log.info("Exact RTP is not available: up to {} states exceed the limit of {}", states, maxStates);
+            return Optional.empty();
+        }
+
+        long start = System.nanoTime();
+        Enumeration standard = enumerateStandardSymbols();
+        DoubleDistribution payouts = new DoubleDistribution();
+        for (int blanks = 0; blanks <= cellCount; blanks++) {
+            addPayouts(payouts, standard.byBlankCount[blanks], blankOutcomes(blanks));
+        }
+        long memoryBytes = standard.memoryBytes();
+        for (Map.Entry<Long, DoubleDistribution> entry : standard.byLineMask.entrySet()) {
+            BonusOutcomes outcomes = lineOutcomes(entry.getKey());
+            addPayouts(payouts, entry.getValue(), outcomes);
+            memoryBytes = Math.max(memoryBytes, standard.memoryBytes() + outcomes.memoryBytes());
+        }
+        memoryBytes += payouts.memoryBytes();
+
+        double[] values = payouts.values();
+        double[] probabilities = payouts.probabilities();
+        double expectedReward = 0;
+        double winProbability = 0;
+        double maxWin = 0;
+        for (int i = 0; i < values.length; i++) {
+            expectedReward += values[i] * probabilities[i];
+            if (values[i] > 0) {
+                winProbability += probabilities[i];
+                maxWin = Math.max(maxWin, values[i]);
+            }
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        log.debug("Calculated exact RTP over {} states in {} ms", states, elapsedMillis);
+        return Optional.of(new ExactRtpResult(bettingAmount, expectedReward, winProbability, maxWin,
+                payouts.toSortedMap(), states, memoryBytes, elapsedMillis));
+    }
+
+    private String unsupportedReason() {
+        if (cellCount > MAX_CELLS) {
+            return "more than " + MAX_CELLS + " cells";
+        }
+        for (int[] outcomes : standardOutcomes) {
+            for (int symbol : outcomes) {
+                if (!game.isStandard(symbol)) {
+                    return "cell probabilities include symbol " + game.symbolName(symbol) + " that is not standard";
+                }
+            }
+        }
+        for (int symbol : bonusOutcomes) {
+            if (!game.isBonus(symbol)) {
+                return "bonus probabilities include symbol " + game.symbolName(symbol) + " that is not a bonus";
+            }
+        }
+        return null;
+    }
+
+    private void addPayouts(DoubleDistribution payouts, DoubleDistribution standardRewards, BonusOutcomes bonus) {
+        if (standardRewards.isEmpty()) {
+            return;
+        }
+        double[] rewards = standardRewards.values();
+        double[] probabilities = standardRewards.probabilities();
+        for (int i = 0; i < rewards.length; i++) {
+            for (int j = 0; j < bonus.size; j++) {
+                // Standard and bonus symbol rewards are summed apart, which equals summing them together
+                // whenever either is zero, as it is unless bonus symbols fill a line beside a standard win
+                double totalReward = rewards[i] + bonus.lineRewards[j];
+                double reward = totalReward == 0.0 ? 0.0 : totalReward * bonus.multipliers[j] + bonus.extras[j];
+                payouts.add(reward, probabilities[i] * bonus.probabilities[j]);
+            }
+        }
+    }
+
+    private Enumeration enumerateStandardSymbols() {
+        // Split the enumeration by the outcomes of the first cells so that prefixes can run in parallel
+        int depth = 0;
+        int tasks = 1;
+        while (depth < cellCount && tasks < MIN_TASKS) {
+            tasks *= branches(depth++);
+        }
+        int prefixDepth = depth;
+        Enumeration[] partials = IntStream.range(0, tasks)
+                .parallel()
+                .mapToObj(prefix -> new Enumeration().enumeratePrefix(prefix, prefixDepth))
+                .toArray(Enumeration[]::new);
+
+        // Merge in prefix order so that the sums do not depend on scheduling
+        Enumeration result = new Enumeration();
+        for (Enumeration partial : partials) {
+            result.merge(partial);
+        }
+        return result;
+    }
+
+    private int branches(int cell) {
+        return standardOutcomes[cell].length + (bonusPercentage > 0 ? 1 : 0);
+    }
+
+    private boolean hasLineEndingAt(int cell, long blankMask) {
+        for (int area : areasEndingAt[cell]) {
+            if ((areaMasks[area] & ~blankMask) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasLineOnBlanks(long blankMask) {
+        for (long areaMask : areaMasks) {
+            if ((areaMask & ~blankMask) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Distribution of the bonus effect of the given number of blank cells that cannot form a line
+    private BonusOutcomes blankOutcomes(int blanks) {
+        if (blankOutcomes.isEmpty()) {
+            BonusOutcomes none = new BonusOutcomes();
+            none.add(0, 1, 0, 1);
+            blankOutcomes.add(none);
+        }
+        while (blankOutcomes.size() <= blanks) {
+            BonusOutcomes previous = blankOutcomes.get(blankOutcomes.size() - 1);
+            BonusOutcomes next = new BonusOutcomes();
+            for (int i = 0; i < previous.size; i++) {
+                for (int j = 0; j < bonusOutcomes.length; j++) {
+                    int symbol = bonusOutcomes[j];
+                    next.add(0, previous.multipliers[i] * multiplier(symbol), previous.extras[i] + extra(symbol),
+                            previous.probabilities[i] * bonusProbabilities[j]);
+                }
+            }
+            blankOutcomes.add(next);
+        }
+        return blankOutcomes.get(blanks);
+    }
+
+    // Distribution of the bonus effect of blank cells with at least one covered area lying on them
+    private BonusOutcomes lineOutcomes(long blankMask) {
+        long lineMask = 0;
+        for (long areaMask : areaMasks) {
+            if ((areaMask & ~blankMask) == 0) {
+                lineMask |= areaMask;
+            }
+        }
+        int[] lineCells = new int[Long.bitCount(lineMask)];
+        for (int i = 0, cell = 0; cell < cellCount; cell++) {
+            if ((lineMask & 1L << cell) != 0) {
+                lineCells[i++] = cell;
+            }
+        }
+
+        BonusOutcomes lines = new BonusOutcomes();
+        SymbolRewards symbolRewards = new SymbolRewards();
+        int[] cells = new int[cellCount];
+        Arrays.fill(cells, NO_SYMBOL);
+        int[] choices = new int[lineCells.length];
+        while (true) {
+            double multiplier = 1.0;
+            double extra = 0;
+            double probability = 1.0;
+            for (int i = 0; i < lineCells.length; i++) {
+                int symbol = bonusOutcomes[choices[i]];
+                cells[lineCells[i]] = symbol;
+                multiplier *= multiplier(symbol);
+                extra += extra(symbol);
+                probability *= bonusProbabilities[choices[i]];
+            }
+            symbolRewards.clear();
+            for (int area = 0; area < areas.length; area++) {
+                if ((areaMasks[area] & ~blankMask) == 0) {
+                    int symbol = linearSymbol(cells, areas[area]);
+                    if (symbol != NO_SYMBOL) {
+                        symbolRewards.add(symbol, areaMultipliers[area]);
+                    }
+                }
+            }
+            lines.add(symbolRewards.total(), multiplier, extra, probability);
+
+            int i = 0;
+            while (i < choices.length && ++choices[i] == bonusOutcomes.length) {
+                choices[i++] = 0;
+            }
+            if (i == choices.length) {
+                break;
+            }
+        }
+
+        // The remaining blank cells are independent of the lines
+        BonusOutcomes rest = blankOutcomes(Long.bitCount(blankMask) - lineCells.length);
+        BonusOutcomes outcomes = new BonusOutcomes();
+        for (int i = 0; i < lines.size; i++) {
+            for (int j = 0; j < rest.size; j++) {
+                outcomes.add(lines.lineRewards[i], lines.multipliers[i] * rest.multipliers[j],
+                        lines.extras[i] + rest.extras[j], lines.probabilities[i] * rest.probabilities[j]);
+            }
+        }
+        return outcomes;
+    }
+
+    private double multiplier(int symbol) {
+        double multiplier = game.rewardMultiplier(symbol);
+        return Impact.MULTIPLY_REWARD.equals(game.getImpacts()[symbol]) && !Double.isNaN(multiplier) ? multiplier : 1.0;
+    }
+
+    private double extra(int symbol) {
+        return Impact.EXTRA_BONUS.equals(game.getImpacts()[symbol]) ? game.getExtras()[symbol] : 0;
+    }
+
+    private static int linearSymbol(int[] cells, int[] area) {
+        int symbol = cells[area[0]];
+        for (int i = 1; i < area.length; i++) {
+            if (cells[area[i]] != symbol) {
+                return NO_SYMBOL;
+            }
+        }
+        return symbol;
+    }
+
+    /**
+     * Distribution of standard rewards of the enumerated matrices, keyed by the blank cells: by their
+     * number when no covered area lies on them, and by the exact cells otherwise.
+     */
+    private final class Enumeration {
+        private final DoubleDistribution[] byBlankCount = new DoubleDistribution[cellCount + 1];
+        private final SortedMap<Long, DoubleDistribution> byLineMask = new TreeMap<>();
+        private final int[] cells = new int[cellCount];
+        private final int[] counts = new int[game.symbolCount()];
+        private final int[] matchedAreas = new int[areas.length];
+        private final int[] sortedAreas = new int[areas.length];
+        private int matchedCount;
+        private final SymbolRewards symbolRewards = new SymbolRewards();
+
+        private Enumeration() {
+            for (int blanks = 0; blanks <= cellCount; blanks++) {
+                byBlankCount[blanks] = new DoubleDistribution();
+            }
+        }
+
+        private Enumeration enumeratePrefix(int prefix, int depth) {
+            long blankMask = 0;
+            double probability = 1.0;
+            for (int cell = 0; cell < depth; cell++) {
+                int branches = branches(cell);
+                int choice = prefix % branches;
+                prefix /= branches;
+                if (choice < standardOutcomes[cell].length) {
+                    cells[cell] = standardOutcomes[cell][choice];
+                    counts[cells[cell]]++;
+                    matchAreasEndingAt(cell);
+                    probability *= standardProbabilities[cell][choice];
+                } else {
+                    cells[cell] = NO_SYMBOL;
+                    blankMask |= 1L << cell;
+                    probability *= bonusPercentage;
+                }
+            }
+            enumerate(depth, blankMask, hasLineOnBlanks(blankMask), probability);
+            return this;
+        }
+
+        private void enumerate(int cell, long blankMask, boolean lineOnBlanks, double probability) {
+            if (cell == cellCount) {
+                double reward = standardReward();
+                if (lineOnBlanks) {
+                    byLineMask.computeIfAbsent(blankMask, k -> new DoubleDistribution()).add(reward, probability);
+                } else {
+                    byBlankCount[Long.bitCount(blankMask)].add(reward, probability);
+                }
+                return;
+            }
+            int[] outcomes = standardOutcomes[cell];
+            double[] probabilities = standardProbabilities[cell];
+            int matched = matchedCount;
+            for (int i = 0; i < outcomes.length; i++) {
+                cells[cell] = outcomes[i];
+                counts[outcomes[i]]++;
+                matchAreasEndingAt(cell);
+                enumerate(cell + 1, blankMask, lineOnBlanks, probability * probabilities[i]);
+                matchedCount = matched;
+                counts[outcomes[i]]--;
+            }
+            if (bonusPercentage > 0) {
+                cells[cell] = NO_SYMBOL;
+                long blanks = blankMask | 1L << cell;
+                enumerate(cell + 1, blanks, lineOnBlanks || hasLineEndingAt(cell, blanks), probability * bonusPercentage);
+            }
+        }
+
+        // Areas are only checked once their last cell is set, so a whole matrix costs one check per area
+        private void matchAreasEndingAt(int cell) {
+            for (int area : areasEndingAt[cell]) {
+                if (linearSymbol(cells, areas[area]) != NO_SYMBOL) {
+                    matchedAreas[matchedCount++] = area;
+                }
+            }
+        }
+
+        // Reward of the standard symbols alone, applied in the same order as RewardCalculator does
+        private double standardReward() {
+            symbolRewards.clear();
+            for (int symbol : standardSymbols) {
+                for (double multiplier : sameMultipliers[counts[symbol]]) {
+                    symbolRewards.add(symbol, multiplier);
+                }
+            }
+            if (matchedCount > 0) {
+                // The stack is ordered by last cell, while combinations have to apply in config order
+                System.arraycopy(matchedAreas, 0, sortedAreas, 0, matchedCount);
+                insertionSort(sortedAreas, matchedCount);
+                for (int i = 0; i < matchedCount; i++) {
+                    int area = sortedAreas[i];
+                    symbolRewards.add(cells[areas[area][0]], areaMultipliers[area]);
+                }
+            }
+            return symbolRewards.total();
+        }
+
+        private void merge(Enumeration other) {
+            for (int blanks = 0; blanks <= cellCount; blanks++) {
+                byBlankCount[blanks].addAll(other.byBlankCount[blanks], 1.0);
+            }
+            other.byLineMask.forEach((mask, rewards) ->
+                    byLineMask.computeIfAbsent(mask, k -> new DoubleDistribution()).addAll(rewards, 1.0));
+        }
+
+        private long memoryBytes() {
+            long bytes = 0;
+            for (DoubleDistribution rewards : byBlankCount) {
+                bytes += rewards.memoryBytes();
+            }
+            for (DoubleDistribution rewards : byLineMask.values()) {
+                bytes += rewards.memoryBytes();
+            }
+            return bytes;
+        }
+    }
+
+    // Per-symbol rewards of one matrix: the first combination sets the reward, later ones multiply it
+    private final class SymbolRewards {
+        private final double[] rewards = new double[game.symbolCount()];
+        private final boolean[] rewarded = new boolean[game.symbolCount()];
+        private final int[] rewardedSymbols = new int[game.symbolCount()];
+        private int rewardedCount;
+        private final CompensatedSum sum = new CompensatedSum();
+
+        private void clear() {
+            for (int i = 0; i < rewardedCount; i++) {
+                rewarded[rewardedSymbols[i]] = false;
+            }
+            rewardedCount = 0;
+        }
+
+        private void add(int symbol, double combinationMultiplier) {
+            double symbolMultiplier = game.rewardMultiplier(symbol);
+            if (Double.isNaN(symbolMultiplier)) {
+                return;
+            }
+            if (rewarded[symbol]) {
+                rewards[symbol] *= combinationMultiplier;
+            } else {
+                rewards[symbol] = bettingAmount * symbolMultiplier * combinationMultiplier;
+                rewarded[symbol] = true;
+                rewardedSymbols[rewardedCount++] = symbol;
+            }
+        }
+
+        // Summed in the order and with the compensation of RewardCalculator
+        private double total() {
+            sum.reset();
+            for (int symbol : game.rewardSumOrder(rewardedCount)) {
+                if (rewarded[symbol]) {
+                    sum.add(rewards[symbol]);
+                }
+            }
+            return sum.total();
+        }
+    }
+
+    // Joint distribution of the line reward, multiplier and extra contributed by bonus symbols
+    private static final class BonusOutcomes {
+        private int[] slots = new int[32];
+        private double[] lineRewards = new double[16];
+        private double[] multipliers = new double[16];
+        private double[] extras = new double[16];
+        private double[] probabilities = new double[16];
+        private int size;
+
+        private void add(double lineReward, double multiplier, double extra, double probability) {
+            int mask = slots.length - 1;
+            int slot = hash(lineReward, multiplier, extra) & mask;
+            // Slots hold outcome index + 1, so that zero marks a free slot
+            while (slots[slot] != 0) {
+                int index = slots[slot] - 1;
+                if (lineRewards[index] == lineReward && multipliers[index] == multiplier && extras[index] == extra) {
+                    probabilities[index] += probability;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (size == probabilities.length) {
+                lineRewards = Arrays.copyOf(lineRewards, size * 2);
+                multipliers = Arrays.copyOf(multipliers, size * 2);
+                extras = Arrays.copyOf(extras, size * 2);
+                probabilities = Arrays.copyOf(probabilities, size * 2);
+            }
+            lineRewards[size] = lineReward;
+            multipliers[size] = multiplier;
+            extras[size] = extra;
+            probabilities[size++] = probability;
+            slots[slot] = size;
+            if (size * 2 > slots.length) {
+                rehash();
+            }
+        }
+
+        private void rehash() {
+            slots = new int[slots.length * 2];
+            int mask = slots.length - 1;
+            for (int index = 0; index < size; index++) {
+                int slot = hash(lineRewards[index], multipliers[index], extras[index]) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = index + 1;
+            }
+        }
+
+        private static int hash(double lineReward, double multiplier, double extra) {
+            long h = Double.hashCode(lineReward + 0.0);
+            h = h * 0x9e3779b97f4a7c15L + Double.hashCode(multiplier + 0.0);
+            h = h * 0x9e3779b97f4a7c15L + Double.hashCode(extra + 0.0);
+            return (int) (h ^ (h >>> 29));
+        }
+
+        private long memoryBytes() {
+            return (long) slots.length * Integer.BYTES + (long) probabilities.length * 4 * Double.BYTES;
+        }
+    }
+
+    // Only a handful of elements is ever sorted, where this beats Arrays.sort by far
+    private static void insertionSort(int[] values, int length) {
+        for (int i = 1; i < length; i++) {
+            int value = values[i];
+            int j = i - 1;
+            while (j >= 0 && values[j] > value) {
+                values[j + 1] = values[j--];
+            }
+            values[j + 1] = value;
+        }
+    }
+
+    private static long multiply(long a, long b) {
+        return b != 0 && a > Long.MAX_VALUE / b ? Long.MAX_VALUE : a * b;
+    }
+}
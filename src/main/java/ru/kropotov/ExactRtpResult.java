@@ -0,0 +1,40 @@
+package ru.kropotov;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+
+@Getter
+@AllArgsConstructor
+public class ExactRtpResult {
+    private final int bettingAmount;
+    private final double expectedReward;
+    private final double winProbability;
+    private final double maxWin;
+    // Probability of every distinct reward of a spin, zero included
+    private final SortedMap<Double, Double> payoutDistribution;
+    private final long states;
+    private final long memoryBytes;
+    private final long elapsedMillis;
+
+    public double getRtp() {
+        return bettingAmount == 0 ? 0 : expectedReward / bettingAmount;
+    }
+
+    public Map<String, Object> toReport() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("rtp", getRtp());
+        report.put("expected_reward", expectedReward);
+        report.put("win_probability", winProbability);
+        report.put("max_win", maxWin);
+        report.put("distinct_payouts", payoutDistribution.size());
+        report.put("states", states);
+        report.put("memory_bytes", memoryBytes);
+        report.put("elapsed_ms", elapsedMillis);
+        report.put("payout_distribution", payoutDistribution);
+        return report;
+    }
+}
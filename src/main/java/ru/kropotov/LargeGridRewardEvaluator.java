@@ -0,0 +1,159 @@
+package ru.kropotov;
+
+import ru.kropotov.game.CompiledCombination;
+import ru.kropotov.game.CompiledGame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static ru.kropotov.game.CompiledGame.NO_SYMBOL;
+
+/**
+ * Evaluates large grids by splitting them into chunks of rows and chunks of covered areas that are
+ * scanned in parallel on the calling fork/join pool. Every row chunk counts its symbols into its own
+ * histogram and remembers its bonus cells, and every area chunk records the winning symbol of each of
+ * its areas. Rewards are then applied in the same order as by the plain {@link RewardEvaluator}, so the
+ * results are identical.
+ */
+public class LargeGridRewardEvaluator extends RewardEvaluator {
+    static final int MIN_CELLS = 2500;
+    private static final int CHUNK_CELLS = 4096;
+    private static final int CHUNK_AREA_CELLS = 4096;
+
+    private final int rowsPerChunk;
+    private final int rowChunks;
+    private final int[][] areas;
+    private final CompiledCombination[] areaCombinations;
+    // Area chunk i covers areas areaChunkStarts[i] until areaChunkStarts[i + 1]
+    private final int[] areaChunkStarts;
+
+    public LargeGridRewardEvaluator(CompiledGame game) {
+        super(game);
+        this.rowsPerChunk = Math.max(1, CHUNK_CELLS / game.getColumns());
+        this.rowChunks = (game.getRows() + rowsPerChunk - 1) / rowsPerChunk;
+
+        List<int[]> areaList = new ArrayList<>();
+        List<CompiledCombination> combinationList = new ArrayList<>();
+        for (CompiledCombination combination : linearCombinations) {
+            for (int[] area : combination.getCoveredAreas()) {
+                areaList.add(area);
+                combinationList.add(combination);
+            }
+        }
+        this.areas = areaList.toArray(new int[0][]);
+        this.areaCombinations = combinationList.toArray(new CompiledCombination[0]);
+
+        List<Integer> starts = new ArrayList<>();
+        int chunkCells = CHUNK_AREA_CELLS;
+        for (int area = 0; area < areas.length; area++) {
+            if (chunkCells >= CHUNK_AREA_CELLS) {
+                starts.add(area);
+                chunkCells = 0;
+            }
+            chunkCells += areas[area].length;
+        }
+        starts.add(areas.length);
+        this.areaChunkStarts = starts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public static boolean supports(CompiledGame game) {
+        return game.getCellCount() >= MIN_CELLS;
+    }
+
+    @Override
+    public Evaluation newEvaluation() {
+        return new LargeGridEvaluation(this);
+    }
+
+    @Override
+    public double evaluate(int[] matrix, int bettingAmount, Evaluation evaluation) {
+        if (!(evaluation instanceof LargeGridEvaluation)) {
+            throw new IllegalArgumentException("Evaluation was not created by this evaluator");
+        }
+        LargeGridEvaluation chunks = (LargeGridEvaluation) evaluation;
+        evaluation.reset();
+
+        int areaChunks = areaChunkStarts.length - 1;
+        IntStream.range(0, rowChunks + areaChunks).parallel().forEach(task -> {
+            if (task < rowChunks) {
+                scanRows(matrix, task, chunks);
+            } else {
+                checkAreas(matrix, task - rowChunks, chunks);
+            }
+        });
+
+        int[] eachSymbolAmount = evaluation.symbolCounts;
+        for (int[] chunkCounts : chunks.chunkCounts) {
+            for (int symbol = 0; symbol < eachSymbolAmount.length; symbol++) {
+                eachSymbolAmount[symbol] += chunkCounts[symbol];
+            }
+        }
+        for (int symbol : standardSymbols) {
+            for (CompiledCombination combination : sameSymbolCombinations[eachSymbolAmount[symbol]]) {
+                addSymbolReward(symbol, combination, bettingAmount, evaluation);
+            }
+        }
+        for (int area = 0; area < areas.length; area++) {
+            int symbol = chunks.areaWinners[area];
+            if (symbol != NO_SYMBOL) {
+                addSymbolReward(symbol, areaCombinations[area], bettingAmount, evaluation);
+            }
+        }
+
+        double totalReward = calculateTotalReward(evaluation);
+        if (totalReward == 0.0) {
+            return finish(totalReward, evaluation);
+        }
+        evaluation.bonusMultiplier = 1.0;
+        evaluation.extraBonus = 0.0;
+        // Row chunks in order and cells in order within each give the row-major order of bonus symbols
+        for (int chunk = 0; chunk < rowChunks; chunk++) {
+            int[] bonusCells = chunks.chunkBonusCells[chunk];
+            for (int i = 0; i < chunks.chunkBonusCounts[chunk]; i++) {
+                applyBonusSymbol(matrix[bonusCells[i]], evaluation);
+            }
+        }
+        return finish(totalReward * evaluation.bonusMultiplier + evaluation.extraBonus, evaluation);
+    }
+
+    private void scanRows(int[] matrix, int chunk, LargeGridEvaluation evaluation) {
+        int[] counts = evaluation.chunkCounts[chunk];
+        int[] bonusCells = evaluation.chunkBonusCells[chunk];
+        Arrays.fill(counts, 0);
+        int bonusCount = 0;
+        int first = chunk * rowsPerChunk * game.getColumns();
+        int last = Math.min(matrix.length, first + rowsPerChunk * game.getColumns());
+        for (int cell = first; cell < last; cell++) {
+            int symbol = matrix[cell];
+            counts[symbol]++;
+            if (game.isBonus(symbol)) {
+                bonusCells[bonusCount++] = cell;
+            }
+        }
+        evaluation.chunkBonusCounts[chunk] = bonusCount;
+    }
+
+    private void checkAreas(int[] matrix, int chunk, LargeGridEvaluation evaluation) {
+        for (int area = areaChunkStarts[chunk]; area < areaChunkStarts[chunk + 1]; area++) {
+            evaluation.areaWinners[area] = checkLinearSymbols(matrix, areas[area]);
+        }
+    }
+
+    private static final class LargeGridEvaluation extends Evaluation {
+        private final int[][] chunkCounts;
+        private final int[][] chunkBonusCells;
+        private final int[] chunkBonusCounts;
+        private final int[] areaWinners;
+
+        private LargeGridEvaluation(LargeGridRewardEvaluator evaluator) {
+            super(evaluator.game, evaluator.maxAppliedCombinations);
+            int columns = evaluator.game.getColumns();
+            this.chunkCounts = new int[evaluator.rowChunks][evaluator.game.symbolCount()];
+            this.chunkBonusCells = new int[evaluator.rowChunks][evaluator.rowsPerChunk * columns];
+            this.chunkBonusCounts = new int[evaluator.rowChunks];
+            this.areaWinners = new int[evaluator.areas.length];
+        }
+    }
+}
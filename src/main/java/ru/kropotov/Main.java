@@ -1,15 +1,41 @@
 package ru.kropotov;
 
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.cli.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.game.GameSnapshot;
+import ru.kropotov.journal.JournalHeader;
+import ru.kropotov.journal.JournalReader;
+import ru.kropotov.journal.JournalWriter;
+import ru.kropotov.metrics.MetricsReporter;
+import ru.kropotov.metrics.SpinMetrics;
 import ru.kropotov.model.RequestConfig;
+import ru.kropotov.model.SweepVariant;
+import ru.kropotov.random.SpinRandom;
+import ru.kropotov.shard.ShardCoordinator;
+import ru.kropotov.shard.ShardJob;
+import ru.kropotov.shard.ShardResult;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.random.RandomGenerator;
 
 public class Main {
     private static final Logger logger = LoggerFactory.getLogger(Main.class);
@@ -17,7 +43,33 @@ public class Main {
     private static final String CONFIG = "config";
     private static final String BETTING_AMOUNT = "betting-amount";
     private static final String BONUS_PERCENTAGE = "bonus-percentage";
+    private static final String SIMULATE = "simulate";
+    private static final String SEED = "seed";
+    private static final String SPIN_INDEX = "spin-index";
+    private static final String EXACT = "exact";
+    private static final String SERVE = "serve";
+    private static final String OUTPUT = "output";
+    private static final String SPINS = "spins";
+    private static final String FLUSH_EVERY = "flush-every";
+    private static final String METRICS = "metrics";
+    private static final String REQUESTS = "requests";
+    private static final String METRICS_INTERVAL = "metrics-interval";
+    private static final String JOURNAL = "journal";
+    private static final String READ_JOURNAL = "read-journal";
+    private static final String RECORD = "record";
+    private static final String COMPILE_CONFIG = "compile-config";
+    private static final String SNAPSHOT = "snapshot";
+    private static final String TARGET_CI = "target-ci";
+    private static final String SWEEP = "sweep";
+    private static final String SHARDS = "shards";
+    private static final String SHARD = "shard";
+    private static final String SHARD_OUTPUT = "shard-output";
+    private static final int DEFAULT_FLUSH_EVERY = 1024;
+    private static final long FALLBACK_SPINS = 1_000_000;
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
     public static final double DEFAULT_BONUS_PERCENTAGE = 0.5;
+    // Streams printed results, so that runs printing them do not need Jackson's data binding
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
 
     public static void main(String[] args) {
         Options options = createOptions();
@@ -27,27 +79,211 @@ public class Main {
             return;
         }
 
+        SpinMetrics metrics = null;
+        if (cmd.hasOption(METRICS)) {
+            // Bulk runs time a sample of their spins to keep the clock reads off most of them
+            metrics = startMetrics(cmd.getOptionValue(METRICS), cmd.getOptionValue(METRICS_INTERVAL),
+                    cmd.hasOption(SIMULATE) || cmd.hasOption(EXACT) || cmd.hasOption(OUTPUT) || cmd.hasOption(REQUESTS)
+                            || cmd.hasOption(JOURNAL) ? SpinMetrics.BULK_SAMPLE_INTERVAL : 1);
+            if (metrics == null) {
+                return;
+            }
+        }
+
+        if (cmd.hasOption(READ_JOURNAL)) {
+            readJournal(cmd.getOptionValue(READ_JOURNAL), cmd.getOptionValue(RECORD));
+            return;
+        }
+
         String configPath = cmd.getOptionValue(CONFIG);
+        if (cmd.hasOption(COMPILE_CONFIG)) {
+            CompiledGame game = isValidConfigFile(configPath) ? loadGame(configPath) : null;
+            if (game != null) {
+                compileConfig(game, configPath, cmd.getOptionValue(COMPILE_CONFIG));
+            }
+            return;
+        }
+
+        GameSnapshot snapshot = null;
+        if (cmd.hasOption(SNAPSHOT)) {
+            snapshot = readSnapshot(cmd.getOptionValue(SNAPSHOT));
+            if (snapshot == null) {
+                return;
+            }
+        }
+
+        if (cmd.hasOption(SERVE)) {
+            int port = getPort(cmd.getOptionValue(SERVE));
+            if (port < 0) {
+                return;
+            }
+            SpinServer.keepIdleConnections();
+            if (snapshot != null) {
+                serve(snapshot.getGame(), port, metrics);
+                return;
+            }
+            CompiledGame game = isValidConfigFile(configPath) ? loadGame(configPath) : null;
+            if (game != null) {
+                serve(configPath, game, port, metrics);
+            }
+            return;
+        }
+
+        if (cmd.hasOption(REQUESTS)) {
+            Long seed = getSeed(cmd.getOptionValue(SEED));
+            int flushEvery = getFlushEvery(cmd.getOptionValue(FLUSH_EVERY));
+            if (cmd.hasOption(SEED) && seed == null || flushEvery < 0) {
+                return;
+            }
+            CompiledGame game = loadGame(configPath, snapshot);
+            if (game != null) {
+                processRequests(game, cmd.getOptionValue(REQUESTS), cmd.getOptionValue(OUTPUT, "-"), seed,
+                        flushEvery, metrics);
+            }
+            return;
+        }
+
         int bettingAmount = getBettingAmount(cmd.getOptionValue(BETTING_AMOUNT));
         double bonusPercentage = getBonusPercentage(cmd.getOptionValue(BONUS_PERCENTAGE));
 
-        if (bettingAmount < 0 || !isValidConfigFile(configPath)) {
+        if (bettingAmount < 0) {
             return;
         }
 
-        RequestConfig config = readConfigFile(configPath);
-        if (config == null) {
+        CompiledGame game = loadGame(configPath, snapshot);
+        if (game == null) {
             return;
         }
 
-        processGame(config, bettingAmount, bonusPercentage);
+        Long seed = getSeed(cmd.getOptionValue(SEED));
+        if (cmd.hasOption(SEED) && seed == null) {
+            return;
+        }
+
+        if (cmd.hasOption(EXACT)) {
+            long spins = cmd.hasOption(SIMULATE) ? getSpins(cmd.getOptionValue(SIMULATE)) : FALLBACK_SPINS;
+            if (spins > 0) {
+                calculateExact(game, bettingAmount, bonusPercentage, spins,
+                        seed != null ? seed : new SplittableRandom().nextLong(), metrics);
+            }
+            return;
+        }
+
+        if (cmd.hasOption(SHARD) || cmd.hasOption(SHARDS)) {
+            long spins = cmd.hasOption(SIMULATE) ? getSpins(cmd.getOptionValue(SIMULATE)) : FALLBACK_SPINS;
+            byte[] configHash = snapshot != null ? snapshot.getConfigHash() : hashConfig(configPath);
+            if (spins <= 0 || configHash == null) {
+                return;
+            }
+            ShardJob job = new ShardJob(seed != null ? seed : new SplittableRandom().nextLong(), bettingAmount,
+                    bonusPercentage, spins);
+            if (cmd.hasOption(SHARD)) {
+                runShard(game, configHash, job, cmd.getOptionValue(SHARD), cmd.getOptionValue(SHARD_OUTPUT));
+            } else {
+                // Workers get the options this run was given, with the seed fixed
+                List<String> workerArguments = new ArrayList<>(snapshot != null
+                        ? List.of("--" + SNAPSHOT, cmd.getOptionValue(SNAPSHOT)) : List.of("--" + CONFIG, configPath));
+                workerArguments.addAll(List.of("--" + BETTING_AMOUNT, cmd.getOptionValue(BETTING_AMOUNT),
+                        "--" + SEED, Long.toString(job.getSeed()), "--" + SIMULATE, Long.toString(spins)));
+                if (cmd.hasOption(BONUS_PERCENTAGE)) {
+                    workerArguments.addAll(List.of("--" + BONUS_PERCENTAGE, cmd.getOptionValue(BONUS_PERCENTAGE)));
+                }
+                simulateSharded(game, configHash, job, cmd.getOptionValue(SHARDS), workerArguments);
+            }
+            return;
+        }
+
+        if (cmd.hasOption(SWEEP)) {
+            long spins = cmd.hasOption(SIMULATE) ? getSpins(cmd.getOptionValue(SIMULATE)) : FALLBACK_SPINS;
+            List<SweepVariant> variants = readSweepVariants(cmd.getOptionValue(SWEEP));
+            if (spins > 0 && variants != null) {
+                sweep(game, variants, bettingAmount, bonusPercentage, spins,
+                        seed != null ? seed : new SplittableRandom().nextLong());
+            }
+            return;
+        }
+
+        if (cmd.hasOption(SIMULATE)) {
+            long spins = getSpins(cmd.getOptionValue(SIMULATE));
+            double targetCi = getTargetCi(cmd.getOptionValue(TARGET_CI));
+            if (spins > 0 && targetCi >= 0) {
+                simulate(game, bettingAmount, bonusPercentage, spins, targetCi,
+                        seed != null ? seed : new SplittableRandom().nextLong(), metrics);
+            }
+            return;
+        }
+
+        long spinIndex = getSpinIndex(cmd.getOptionValue(SPIN_INDEX));
+        if (spinIndex < 0) {
+            return;
+        }
+
+        if (cmd.hasOption(JOURNAL)) {
+            long spins = cmd.hasOption(SPINS) ? getSpins(cmd.getOptionValue(SPINS)) : 1;
+            byte[] configHash = snapshot != null ? snapshot.getConfigHash() : hashConfig(configPath);
+            if (spins > 0 && configHash != null) {
+                writeJournal(game, configHash, bettingAmount, bonusPercentage,
+                        seed != null ? seed : new SplittableRandom().nextLong(), spinIndex, spins,
+                        cmd.getOptionValue(JOURNAL), metrics);
+            }
+            return;
+        }
+
+        if (cmd.hasOption(OUTPUT)) {
+            long spins = cmd.hasOption(SPINS) ? getSpins(cmd.getOptionValue(SPINS)) : 1;
+            int flushEvery = getFlushEvery(cmd.getOptionValue(FLUSH_EVERY));
+            if (spins > 0 && flushEvery >= 0) {
+                writeResults(game, bettingAmount, bonusPercentage,
+                        seed != null ? seed : new SplittableRandom().nextLong(), spinIndex, spins,
+                        cmd.getOptionValue(OUTPUT), flushEvery, metrics);
+            }
+            return;
+        }
+
+        RandomGenerator random = new SplittableRandom();
+        if (seed != null) {
+            SpinRandom spinRandom = new SpinRandom(seed);
+            spinRandom.startSpin(spinIndex);
+            random = spinRandom;
+        }
+        processGame(game, bettingAmount, bonusPercentage, random, metrics);
     }
 
     private static Options createOptions() {
         Options options = new Options();
         options.addOption("c", CONFIG, true, "Path to config file");
+        options.addOption(null, SNAPSHOT, true, "Path to a game snapshot written by --compile-config, used instead of"
+                + " the config file");
+        options.addOption(null, COMPILE_CONFIG, true, "Validate the config file and write its game snapshot to the"
+                + " given file");
         options.addOption("b", BETTING_AMOUNT, true, "Betting amount");
         options.addOption("p", BONUS_PERCENTAGE, true, "Bonus symbol hit percentage");
+        options.addOption(null, SIMULATE, true, "Run the given number of spins and report RTP statistics");
+        options.addOption(null, TARGET_CI, true, "Stop --simulate early once the 95% confidence interval of the RTP"
+                + " is at most this far from it on either side");
+        options.addOption(null, SWEEP, true, "Simulate every variant of the given JSON array of {name,"
+                + " bonus_percentage, symbol_multipliers, combination_multipliers} on the same --simulate spins");
+        options.addOption(null, SHARDS, true, "Run --simulate in the given number of worker processes and merge"
+                + " their results");
+        options.addOption(null, SHARD, true, "Run chunks FIRST:LAST of --simulate as a worker of --shards");
+        options.addOption(null, SHARD_OUTPUT, true, "File the worker of --shard writes its binary result to");
+        options.addOption(null, SEED, true, "Seed of the random streams, makes every spin reproducible");
+        options.addOption(null, SPIN_INDEX, true, "Index of the spin to replay with the given seed (default 0)");
+        options.addOption(null, SERVE, true, "Serve POST /spin on the given port, reloading the config on change");
+        options.addOption(null, REQUESTS, true, "Spin every {bet, bonus_percentage, seed} line of the given JSON lines"
+                + " file and write the results in order to --output (default stdout)");
+        options.addOption(null, OUTPUT, true, "Write results as JSON lines to the given file, or to stdout for -");
+        options.addOption(null, JOURNAL, true, "Append spins to a binary journal in the given directory,"
+                + " continuing a journal of the same config that is already there");
+        options.addOption(null, READ_JOURNAL, true, "Print the totals of the journal in the given directory");
+        options.addOption(null, RECORD, true, "Print the given record of --read-journal instead of the totals");
+        options.addOption(null, SPINS, true, "Number of spins to write with --output or --journal (default 1)");
+        options.addOption(null, FLUSH_EVERY, true, "Flush --output after this many results, 0 when the buffer is full"
+                + " (default " + DEFAULT_FLUSH_EVERY + ")");
+        options.addOption(null, METRICS, true, "Print spin counters and phase latencies as json or prometheus"
+                + " text to stderr at exit");
+        options.addOption(null, METRICS_INTERVAL, true, "Also print --metrics every given number of seconds");
+        options.addOption(null, EXACT, false, "Calculate the exact RTP, falling back to a simulation for large configs");
         return options;
     }
 
@@ -63,7 +299,12 @@ public class Main {
     }
 
     private static boolean validateArguments(CommandLine cmd, Options options) {
-        if (!cmd.hasOption("c") || !cmd.hasOption("b")) {
+        if (cmd.hasOption(READ_JOURNAL)) {
+            return true;
+        }
+        if (!cmd.hasOption("c") && !cmd.hasOption(SNAPSHOT) || cmd.hasOption(COMPILE_CONFIG) && !cmd.hasOption("c")
+                || !cmd.hasOption("b") && !cmd.hasOption(SERVE) && !cmd.hasOption(REQUESTS)
+                && !cmd.hasOption(COMPILE_CONFIG)) {
             logger.error("Missing required options: config file path (-c) and betting amount (-b) are required.");
             printHelp(options);
             return false;
@@ -80,6 +321,113 @@ public class Main {
         }
     }
 
+    private static int getPort(String portStr) {
+        try {
+            int port = Integer.parseInt(portStr);
+            if (port < 0 || port > 65535) {
+                logger.error("Invalid port. It must be a number from 0 to 65535.");
+                return -1;
+            }
+            return port;
+        } catch (NumberFormatException e) {
+            logger.error("Invalid port. It must be a number.");
+            return -1;
+        }
+    }
+
+    private static long getSpins(String spinsStr) {
+        try {
+            long spins = Long.parseLong(spinsStr);
+            if (spins <= 0) {
+                logger.error("Invalid number of spins. It must be a positive number.");
+                return -1;
+            }
+            return spins;
+        } catch (NumberFormatException e) {
+            logger.error("Invalid number of spins. It must be a number.");
+            return -1;
+        }
+    }
+
+    // Returns 0 when no target is given and -1 when it is invalid
+    private static double getTargetCi(String targetCiStr) {
+        if (targetCiStr == null) {
+            return 0;
+        }
+        try {
+            double targetCi = Double.parseDouble(targetCiStr);
+            if (targetCi > 0 && targetCi < Double.POSITIVE_INFINITY) {
+                return targetCi;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        logger.error("Invalid target confidence interval. It must be a positive number.");
+        return -1;
+    }
+
+    private static int getFlushEvery(String flushEveryStr) {
+        if (flushEveryStr == null) {
+            return DEFAULT_FLUSH_EVERY;
+        }
+        try {
+            int flushEvery = Integer.parseInt(flushEveryStr);
+            if (flushEvery < 0) {
+                logger.error("Invalid flush batch size. It must not be negative.");
+            }
+            return flushEvery;
+        } catch (NumberFormatException e) {
+            logger.error("Invalid flush batch size. It must be a number.");
+            return -1;
+        }
+    }
+
+    private static SpinMetrics startMetrics(String formatStr, String intervalStr, int sampleInterval) {
+        MetricsReporter.Format format;
+        long interval = 0;
+        try {
+            format = MetricsReporter.Format.of(formatStr);
+            if (intervalStr != null) {
+                interval = Long.parseLong(intervalStr);
+            }
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid metrics options. The format must be json or prometheus and the interval a number"
+                    + " of seconds.");
+            return null;
+        }
+        SpinMetrics metrics = new SpinMetrics(sampleInterval);
+        new MetricsReporter(metrics, format, System.err).start(interval);
+        return metrics;
+    }
+
+    private static Long getSeed(String seedStr) {
+        if (seedStr == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(seedStr);
+        } catch (NumberFormatException e) {
+            logger.error("Invalid seed. It must be a number.");
+            return null;
+        }
+    }
+
+    private static long getSpinIndex(String spinIndexStr) {
+        if (spinIndexStr == null) {
+            return 0;
+        }
+        try {
+            long spinIndex = Long.parseLong(spinIndexStr);
+            if (spinIndex < 0) {
+                logger.error("Invalid spin index. It must not be negative.");
+            }
+            return spinIndex;
+        } catch (NumberFormatException e) {
+            logger.error("Invalid spin index. It must be a number.");
+            return -1;
+        }
+    }
+
     private static double getBonusPercentage(String bonusPercentageString) {
         if (bonusPercentageString == null) {
             return DEFAULT_BONUS_PERCENTAGE;
@@ -121,38 +469,399 @@ public class Main {
         }
     }
 
-    private static void processGame(RequestConfig config, int bettingAmount, double bonusPercentage) {
-        MatrixGenerator matrixGenerator = new MatrixGenerator(config, bonusPercentage);
-        String[][] matrix = matrixGenerator.generateMatrix();
+    private static CompiledGame loadGame(String configPath, GameSnapshot snapshot) {
+        if (snapshot != null) {
+            return snapshot.getGame();
+        }
+        return isValidConfigFile(configPath) ? loadGame(configPath) : null;
+    }
+
+    private static CompiledGame loadGame(String configPath) {
+        RequestConfig config = readConfigFile(configPath);
+        return config != null ? compileConfig(config) : null;
+    }
+
+    private static CompiledGame compileConfig(RequestConfig config) {
+        try {
+            return CompiledGame.compile(config);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid config file: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static byte[] hashConfig(String configPath) {
+        try {
+            return JournalHeader.hash(Paths.get(configPath));
+        } catch (IOException e) {
+            logger.error("Error reading config file", e);
+            return null;
+        }
+    }
+
+    private static void compileConfig(CompiledGame game, String configPath, String snapshotPath) {
+        byte[] configHash = hashConfig(configPath);
+        if (configHash == null) {
+            return;
+        }
+        try {
+            new GameSnapshot(game, configHash).write(Paths.get(snapshotPath));
+            logger.info("Wrote game snapshot of {} to {}", configPath, snapshotPath);
+        } catch (IOException e) {
+            logger.error("Error writing game snapshot to {}", snapshotPath, e);
+        }
+    }
+
+    private static GameSnapshot readSnapshot(String snapshotPath) {
+        try {
+            return GameSnapshot.read(Paths.get(snapshotPath));
+        } catch (IOException e) {
+            logger.error("Error reading game snapshot {}", snapshotPath, e);
+            return null;
+        }
+    }
 
-        RewardCalculator rewardCalculator = new RewardCalculator(matrix, config, bettingAmount);
+    // Serves a snapshot as it is, as there is no config file to reload
+    private static void serve(CompiledGame game, int port, SpinMetrics metrics) {
+        try {
+            SpinServer server = new SpinServer(() -> game, port, metrics);
+            Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+            server.start();
+        } catch (IOException e) {
+            logger.error("Error starting spin server", e);
+        }
+    }
+
+    private static void serve(String configPath, CompiledGame game, int port, SpinMetrics metrics) {
+        try {
+            ConfigWatcher configWatcher = new ConfigWatcher(Paths.get(configPath), game);
+            SpinServer server = new SpinServer(configWatcher, port, metrics);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.close();
+                configWatcher.close();
+            }));
+            configWatcher.start();
+            server.start();
+        } catch (IOException e) {
+            logger.error("Error starting spin server", e);
+        }
+    }
+
+    private static void processGame(CompiledGame game, int bettingAmount, double bonusPercentage,
+                                    RandomGenerator random, SpinMetrics metrics) {
+        long start = System.nanoTime();
+        MatrixGenerator matrixGenerator = new MatrixGenerator(game, bonusPercentage, random);
+        int[] matrix = matrixGenerator.generateCells();
+        long generated = System.nanoTime();
+
+        RewardCalculator rewardCalculator = new RewardCalculator(matrix, game, bettingAmount);
         double reward = rewardCalculator.calculateReward();
+        if (metrics != null) {
+            metrics.record(SpinMetrics.Phase.GENERATE, generated - start);
+            metrics.record(SpinMetrics.Phase.EVALUATE, System.nanoTime() - generated);
+            metrics.recordSpin(reward);
+        }
         logger.info("Generated matrix and calculated reward: {}", reward);
 
         Map<String, List<String>> appliedWinningCombinations = rewardCalculator.getAppliedWinningCombinations();
         List<String> appliedBonusSymbols = rewardCalculator.getAppliedBonusSymbols();
 
-        printResult(matrix, reward, appliedWinningCombinations, appliedBonusSymbols);
+        printResult(game, matrix, reward, appliedWinningCombinations, appliedBonusSymbols, metrics);
     }
 
-    private static void printResult(String[][] finalMatrix, double reward,
-                                    Map<String, List<String>> appliedWinningCombinations,
-                                    List<String> appliedBonusSymbols) {
+    private static void writeResults(CompiledGame game, int bettingAmount, double bonusPercentage, long seed,
+                                     long firstSpin, long spins, String output, int flushEvery,
+                                     SpinMetrics metrics) {
+        SpinRandom random = new SpinRandom(seed);
+        MatrixGenerator matrixGenerator = new MatrixGenerator(game, bonusPercentage, random);
+        int[] matrix = new int[game.getCellCount()];
+        RewardEvaluator evaluator = RewardEvaluator.forGame(game);
+        Evaluation evaluation = evaluator.newEvaluation();
+        try (NdjsonResultWriter writer = "-".equals(output)
+                ? NdjsonResultWriter.toStdout(flushEvery)
+                : NdjsonResultWriter.toFile(Paths.get(output), flushEvery)) {
+            for (long spin = firstSpin; spin < firstSpin + spins; spin++) {
+                random.startSpin(spin);
+                if (metrics != null && metrics.isTimed(spin)) {
+                    long start = System.nanoTime();
+                    matrixGenerator.generateCells(matrix);
+                    long generated = System.nanoTime();
+                    evaluator.evaluate(matrix, bettingAmount, evaluation);
+                    long evaluated = System.nanoTime();
+                    writer.write(matrix, evaluation);
+                    metrics.record(SpinMetrics.Phase.GENERATE, generated - start);
+                    metrics.record(SpinMetrics.Phase.EVALUATE, evaluated - generated);
+                    metrics.record(SpinMetrics.Phase.SERIALIZE, System.nanoTime() - evaluated);
+                } else {
+                    matrixGenerator.generateCells(matrix);
+                    evaluator.evaluate(matrix, bettingAmount, evaluation);
+                    writer.write(matrix, evaluation);
+                }
+                if (metrics != null) {
+                    metrics.recordSpin(evaluation.getReward());
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Error writing results to {}", output, e);
+        }
+    }
+
+    private static void writeJournal(CompiledGame game, byte[] configHash, int bettingAmount, double bonusPercentage,
+                                     long seed, long firstSpin, long spins, String directory, SpinMetrics metrics) {
+        SpinRandom random = new SpinRandom(seed);
+        MatrixGenerator matrixGenerator = new MatrixGenerator(game, bonusPercentage, random);
+        int[] matrix = new int[game.getCellCount()];
+        RewardEvaluator evaluator = RewardEvaluator.forGame(game);
+        Evaluation evaluation = evaluator.newEvaluation();
+        try (JournalWriter writer = new JournalWriter(Paths.get(directory),
+                JournalHeader.of(game, configHash), JournalWriter.DEFAULT_SEGMENT_BYTES)) {
+            for (long spin = firstSpin; spin < firstSpin + spins; spin++) {
+                random.startSpin(spin);
+                if (metrics != null && metrics.isTimed(spin)) {
+                    long start = System.nanoTime();
+                    matrixGenerator.generateCells(matrix);
+                    long generated = System.nanoTime();
+                    evaluator.evaluate(matrix, bettingAmount, evaluation);
+                    long evaluated = System.nanoTime();
+                    writer.append(seed, spin, bettingAmount, matrix, evaluation);
+                    metrics.record(SpinMetrics.Phase.GENERATE, generated - start);
+                    metrics.record(SpinMetrics.Phase.EVALUATE, evaluated - generated);
+                    metrics.record(SpinMetrics.Phase.SERIALIZE, System.nanoTime() - evaluated);
+                } else {
+                    matrixGenerator.generateCells(matrix);
+                    evaluator.evaluate(matrix, bettingAmount, evaluation);
+                    writer.append(seed, spin, bettingAmount, matrix, evaluation);
+                }
+                if (metrics != null) {
+                    metrics.recordSpin(evaluation.getReward());
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Error writing journal to {}", directory, e);
+        }
+    }
+
+    private static void readJournal(String directory, String recordStr) {
+        try {
+            JournalReader reader = JournalReader.open(Paths.get(directory));
+            if (recordStr != null) {
+                long record = Long.parseLong(recordStr);
+                if (record < 0 || record >= reader.getRecordCount()) {
+                    logger.error("Invalid record. The journal has {} records.", reader.getRecordCount());
+                    return;
+                }
+                logger.info("Final Result: {}", new ObjectMapper().writerWithDefaultPrettyPrinter()
+                        .writeValueAsString(reader.toResult(reader.record(record))));
+                return;
+            }
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("config_hash", HexFormat.of().formatHex(reader.getHeader().getConfigHash()));
+            report.putAll(reader.summarize().toReport());
+            printReport("Journal Summary", report);
+        } catch (NumberFormatException e) {
+            logger.error("Invalid record. It must be a number.");
+        } catch (IOException e) {
+            logger.error("Error reading journal from {}", directory, e);
+        }
+    }
+
+    private static void processRequests(CompiledGame game, String requests, String output, Long seed, int flushEvery,
+                                        SpinMetrics metrics) {
+        RequestBatch batch = new RequestBatch(game, seed, metrics, Runtime.getRuntime().availableProcessors(),
+                RequestBatch.DEFAULT_WINDOW);
+        try (BufferedReader in = Files.newBufferedReader(Paths.get(requests), StandardCharsets.UTF_8)) {
+            long results;
+            if ("-".equals(output)) {
+                // stdout stays open for the logs that follow
+                results = batch.run(in, new BufferedOutputStream(new FileOutputStream(FileDescriptor.out),
+                        OUTPUT_BUFFER_SIZE), flushEvery);
+            } else {
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(Paths.get(output)),
+                        OUTPUT_BUFFER_SIZE)) {
+                    results = batch.run(in, out, flushEvery);
+                }
+            }
+            logger.info("Processed {} requests from {}", results, requests);
+        } catch (IOException e) {
+            logger.error("Error processing requests from {}", requests, e);
+        }
+    }
+
+    // Runs the given number of spins, or stops earlier at a positive target half width of the RTP interval
+    private static void simulate(CompiledGame game, int bettingAmount, double bonusPercentage, long spins,
+                                 double targetCi, long seed, SpinMetrics metrics) {
+        Simulator simulator = new Simulator(game, bonusPercentage, bettingAmount, seed, metrics);
+        SimulationResult result = targetCi > 0 ? simulator.runUntil(targetCi, spins) : simulator.run(spins);
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("seed", seed);
+        report.putAll(result.toReport());
+        printReport("Simulation Result", report);
+    }
+
+    private static List<SweepVariant> readSweepVariants(String sweepPath) {
         ObjectMapper objectMapper = new ObjectMapper();
-        Map<String, Object> result = new LinkedHashMap<>();
-        result.put("matrix", finalMatrix);
-        result.put("reward", reward);
-        result.put("applied_winning_combinations", appliedWinningCombinations);
-        result.put("applied_bonus_symbol", appliedBonusSymbols);
+        try {
+            List<SweepVariant> variants = Arrays.asList(
+                    objectMapper.readValue(new File(sweepPath), SweepVariant[].class));
+            if (variants.isEmpty() || variants.contains(null)) {
+                logger.error("Sweep file must hold a non-empty array of variants: {}", sweepPath);
+                return null;
+            }
+            return variants;
+        } catch (IOException e) {
+            logger.error("Error reading sweep file", e);
+            return null;
+        }
+    }
+
+    private static void sweep(CompiledGame game, List<SweepVariant> variants, int bettingAmount,
+                              double bonusPercentage, long spins, long seed) {
+        SweepSimulator simulator;
+        try {
+            simulator = new SweepSimulator(game, variants, bonusPercentage, bettingAmount, seed);
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid sweep: {}", e.getMessage());
+            return;
+        }
+        List<SimulationResult> results = simulator.run(spins);
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("seed", seed);
+        Map<String, Object> variantReports = new LinkedHashMap<>();
+        for (int i = 0; i < results.size(); i++) {
+            variantReports.put(simulator.name(i), results.get(i).toReport());
+        }
+        report.put("variants", variantReports);
+        printReport("Sweep Result", report);
+    }
+
+    private static void runShard(CompiledGame game, byte[] configHash, ShardJob job, String chunksStr,
+                                 String output) {
+        if (output == null) {
+            logger.error("A shard needs --{} to write its result to", SHARD_OUTPUT);
+            return;
+        }
+        int firstChunk;
+        int lastChunk;
+        try {
+            String[] chunks = chunksStr.split(":", -1);
+            firstChunk = Integer.parseInt(chunks[0]);
+            lastChunk = chunks.length == 2 ? Integer.parseInt(chunks[1]) : -1;
+        } catch (NumberFormatException e) {
+            firstChunk = -1;
+            lastChunk = -1;
+        }
+        if (firstChunk < 0 || lastChunk <= firstChunk || lastChunk > job.getChunkCount()) {
+            logger.error("Invalid shard. It must be FIRST:LAST chunks of the {} of the simulation.",
+                    job.getChunkCount());
+            return;
+        }
+        Simulator simulator = new Simulator(game, job.getBonusPercentage(), job.getBettingAmount(), job.getSeed());
+        SimulationResult[] chunkResults = simulator.runChunks(firstChunk, lastChunk, job.getSpins());
+        try {
+            new ShardResult(job, configHash, firstChunk, chunkResults).write(Paths.get(output));
+        } catch (IOException e) {
+            logger.error("Error writing shard result to {}", output, e);
+        }
+    }
 
+    private static void simulateSharded(CompiledGame game, byte[] configHash, ShardJob job, String shardsStr,
+                                        List<String> workerArguments) {
+        int shards;
         try {
-            String jsonResult = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(result);
+            shards = Integer.parseInt(shardsStr);
+        } catch (NumberFormatException e) {
+            shards = 0;
+        }
+        if (shards <= 0) {
+            logger.error("Invalid number of shards. It must be a positive number.");
+            return;
+        }
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / shards);
+        try {
+            Path directory = Files.createTempDirectory("shards");
+            SimulationResult result = new ShardCoordinator(game, configHash, job, directory,
+                    ShardCoordinator.localWorkers(workerArguments, threads)).run(shards);
+            Files.deleteIfExists(directory);
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("seed", job.getSeed());
+            report.putAll(result.toReport());
+            printReport("Simulation Result", report);
+        } catch (IOException e) {
+            logger.error("Sharded simulation failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Sharded simulation was interrupted");
+        }
+    }
+
+    private static void calculateExact(CompiledGame game, int bettingAmount, double bonusPercentage, long spins,
+                                       long seed, SpinMetrics metrics) {
+        Optional<ExactRtpResult> result = new ExactRtpCalculator(game, bonusPercentage, bettingAmount).calculate();
+        if (result.isPresent()) {
+            printReport("Exact Result", result.get().toReport());
+        } else {
+            logger.warn("Exact calculation is not feasible for this config, simulating {} spins instead", spins);
+            simulate(game, bettingAmount, bonusPercentage, spins, 0, seed, metrics);
+        }
+    }
+
+    private static void printReport(String title, Map<String, Object> report) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        try {
+            String jsonResult = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(report);
+            logger.info("{}: {}", title, jsonResult);
+        } catch (IOException e) {
+            logger.error("Error writing JSON result", e);
+        }
+    }
+
+    private static void printResult(CompiledGame game, int[] finalMatrix, double reward,
+                                    Map<String, List<String>> appliedWinningCombinations,
+                                    List<String> appliedBonusSymbols, SpinMetrics metrics) {
+        try {
+            long start = System.nanoTime();
+            String jsonResult = formatResult(game, finalMatrix, reward, appliedWinningCombinations, appliedBonusSymbols);
+            if (metrics != null) {
+                metrics.record(SpinMetrics.Phase.SERIALIZE, System.nanoTime() - start);
+            }
             logger.info("Final Result: {}", jsonResult);
         } catch (IOException e) {
             logger.error("Error writing JSON result", e);
         }
     }
 
+    static String formatResult(CompiledGame game, int[] finalMatrix, double reward,
+                               Map<String, List<String>> appliedWinningCombinations,
+                               List<String> appliedBonusSymbols) throws IOException {
+        StringWriter json = new StringWriter();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(json)) {
+            generator.setPrettyPrinter(new DefaultPrettyPrinter());
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("matrix");
+            for (String[] row : game.decode(finalMatrix)) {
+                generator.writeArray(row, 0, row.length);
+            }
+            generator.writeEndArray();
+            generator.writeNumberField("reward", reward);
+            generator.writeObjectFieldStart("applied_winning_combinations");
+            for (Map.Entry<String, List<String>> entry : appliedWinningCombinations.entrySet()) {
+                generator.writeArrayFieldStart(entry.getKey());
+                for (String combination : entry.getValue()) {
+                    generator.writeString(combination);
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+            generator.writeArrayFieldStart("applied_bonus_symbol");
+            for (String symbol : appliedBonusSymbols) {
+                generator.writeString(symbol);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        return json.toString();
+    }
+
     private static void printHelp(Options options) {
         HelpFormatter formatter = new HelpFormatter();
         formatter.printHelp("java -jar <your-jar-file>", options);
@@ -1,99 +1,152 @@
 package ru.kropotov;
 
-import lombok.AllArgsConstructor;
-import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import ru.kropotov.game.AliasTable;
+import ru.kropotov.game.CompiledGame;
 import ru.kropotov.model.RequestConfig;
-import ru.kropotov.model.StandardSymbol;
+import ru.kropotov.random.SpinLanes;
+import ru.kropotov.random.SpinRandom;
 
-import java.util.*;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
 @Slf4j
 public class MatrixGenerator {
-    private final RequestConfig config;
+    // From this many cells on, bonus cells are found by skipping ahead instead of a draw per cell
+    static final int SPARSE_BONUS_MIN_CELLS = 2500;
+
+    private final CompiledGame game;
     private final double bonusPercentage;
-    private final Random random = new Random();
-    private final Map<Integer, Map<Integer, Map<String, Integer>>> symbolWeightsByPosition = new HashMap<>();
+    private final RandomGenerator random;
+    private final AliasTable[] cellTables;
+    private final int[][] cellSymbols;
+    private final AliasTable bonusTable;
+    private final int[] bonusSymbols;
+    private final boolean sparseBonus;
+    private final double logMissProbability;
 
     public MatrixGenerator(RequestConfig config, double bonusPercentage) {
-        this.config = config;
-        this.bonusPercentage = bonusPercentage;
-        initializeSymbolWeights();
+        this(CompiledGame.compile(config), bonusPercentage);
     }
 
-    private void initializeSymbolWeights() {
-        List<StandardSymbol> standardSymbols = config.getProbabilities().getStandardSymbols();
-        for (StandardSymbol ss : standardSymbols) {
-            symbolWeightsByPosition
-                    .computeIfAbsent(ss.getRow(), k -> new HashMap<>())
-                    .put(ss.getColumn(), ss.getSymbols());
-        }
+    public MatrixGenerator(CompiledGame game, double bonusPercentage) {
+        this(game, bonusPercentage, new SplittableRandom());
+    }
+
+    public MatrixGenerator(CompiledGame game, double bonusPercentage, RandomGenerator random) {
+        this.game = game;
+        this.bonusPercentage = bonusPercentage;
+        this.random = random;
+        this.cellTables = game.getCellTables();
+        this.cellSymbols = game.getCellSymbols();
+        this.bonusTable = game.getBonusTable();
+        this.bonusSymbols = game.getBonusTableSymbols();
+        this.sparseBonus = game.getCellCount() >= SPARSE_BONUS_MIN_CELLS && bonusPercentage > 0 && bonusPercentage < 1;
+        this.logMissProbability = Math.log1p(-bonusPercentage);
     }
 
     public String[][] generateMatrix() {
-        String[][] matrix = new String[config.getRows()][config.getColumns()];
+        return game.decode(generateCells());
+    }
 
+    public int[] generateCells() {
+        int[] cells = new int[game.getCellCount()];
+        generateCells(cells);
+        return cells;
+    }
+
+    public void generateCells(int[] cells) {
         // Fill the matrix with standard symbols based on probabilities
-        for (int row = 0; row < config.getRows(); row++) {
-            for (int col = 0; col < config.getColumns(); col++) {
-                matrix[row][col] = getRandomSymbol(row, col);
-            }
+        for (int cell = 0; cell < cells.length; cell++) {
+            cells[cell] = cellSymbols[cell][cellTables[cell].sample(random)];
         }
 
         // Add bonus symbols based on their probabilities
-        addBonusSymbols(matrix, config.getProbabilities().getBonusSymbols().getSymbols());
-
-        return matrix;
+        addBonusSymbols(cells);
     }
 
-    private String getRandomSymbol(int row, int col) {
-        Map<String, Integer> symbolWeights = symbolWeightsByPosition
-                .getOrDefault(row, Collections.emptyMap())
-                .getOrDefault(col, symbolWeightsByPosition.get(0).get(0));
-
-        List<SymbolProbability> cumulativeDistribution = createCumulativeDistribution(symbolWeights);
-        return getSymbolFromCumulativeDistribution(cumulativeDistribution);
+    /**
+     * Draws the randomness of a spin independently of the bonus percentage, for sweeps that evaluate several
+     * percentages on the same spins: the standard symbols into {@code cells}, and for every cell the uniform
+     * that places a bonus symbol when below the percentage, together with the bonus symbol it would place.
+     */
+    public void generateDraws(int[] cells, double[] bonusUniforms, int[] bonusCells) {
+        for (int cell = 0; cell < cells.length; cell++) {
+            cells[cell] = cellSymbols[cell][cellTables[cell].sample(random)];
+        }
+        for (int cell = 0; cell < cells.length; cell++) {
+            bonusUniforms[cell] = random.nextDouble();
+            bonusCells[cell] = bonusSymbols[bonusTable.sample(random)];
+        }
     }
 
-    private void addBonusSymbols(String[][] matrix, Map<String, Integer> bonusSymbols) {
-        List<SymbolProbability> cumulativeDistribution = createCumulativeDistribution(bonusSymbols);
-        int totalCells = config.getRows() * config.getColumns();
-
-        for (int i = 0; i < totalCells; i++) {
-            int row = i / config.getColumns();
-            int col = i % config.getColumns();
-            if (random.nextDouble() < bonusPercentage) {
-                String bonusSymbol = getSymbolFromCumulativeDistribution(cumulativeDistribution);
-                matrix[row][col] = bonusSymbol;
+    /**
+     * Generates spins {@code firstSpin} to {@code firstSpin + count - 1} of the generator's {@link SpinRandom}
+     * into the batch, each the same as after {@code startSpin} and {@link #generateCells(int[])}. Cells are
+     * drawn a cell at a time for the whole batch, so each table is looked up once per cell and the draws
+     * of different spins overlap.
+     */
+    public void generateCells(SpinBatch batch, long firstSpin, int count) {
+        if (!(random instanceof SpinRandom)) {
+            throw new IllegalArgumentException("Batches are generated from the streams of a SpinRandom");
+        }
+        SpinRandom spinRandom = (SpinRandom) random;
+        batch.resize(count);
+        int[] cells = batch.cells;
+        int stride = batch.stride;
+        if (sparseBonus) {
+            for (int spin = 0; spin < count; spin++) {
+                spinRandom.startSpin(firstSpin + spin);
+                generateCells(batch.matrix);
+                for (int cell = 0; cell < batch.matrix.length; cell++) {
+                    cells[cell * stride + spin] = batch.matrix[cell];
+                }
             }
+            return;
         }
-    }
 
-    private List<SymbolProbability> createCumulativeDistribution(Map<String, Integer> symbolWeights) {
-        List<SymbolProbability> cumulativeDistribution = new ArrayList<>();
-        int cumulativeWeight = 0;
-        for (Map.Entry<String, Integer> entry : symbolWeights.entrySet()) {
-            cumulativeWeight += entry.getValue();
-            cumulativeDistribution.add(new SymbolProbability(entry.getKey(), cumulativeWeight));
+        SpinLanes lanes = batch.lanes;
+        lanes.start(spinRandom.getSeed(), firstSpin, count);
+        for (int cell = 0; cell < cellTables.length; cell++) {
+            AliasTable table = cellTables[cell];
+            int[] symbols = cellSymbols[cell];
+            int row = cell * stride;
+            for (int spin = 0; spin < count; spin++) {
+                cells[row + spin] = symbols[table.sample(lanes, spin)];
+            }
+        }
+        for (int cell = 0; cell < cellTables.length; cell++) {
+            int row = cell * stride;
+            for (int spin = 0; spin < count; spin++) {
+                if (lanes.nextDouble(spin) < bonusPercentage) {
+                    cells[row + spin] = bonusSymbols[bonusTable.sample(lanes, spin)];
+                }
+            }
         }
-        return cumulativeDistribution;
     }
 
-    private String getSymbolFromCumulativeDistribution(List<SymbolProbability> cumulativeDistribution) {
-        int totalWeight = cumulativeDistribution.get(cumulativeDistribution.size() - 1).getCumulativeWeight();
-        int randomWeight = random.nextInt(totalWeight);
-        for (SymbolProbability symbolProbability : cumulativeDistribution) {
-            if (randomWeight < symbolProbability.getCumulativeWeight()) {
-                return symbolProbability.getSymbol();
+    private void addBonusSymbols(int[] cells) {
+        if (sparseBonus) {
+            addSparseBonusSymbols(cells);
+            return;
+        }
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (random.nextDouble() < bonusPercentage) {
+                cells[cell] = bonusSymbols[bonusTable.sample(random)];
             }
         }
-        return cumulativeDistribution.get(cumulativeDistribution.size() - 1).getSymbol();
     }
 
-    @Getter
-    @AllArgsConstructor
-    private static class SymbolProbability {
-        private final String symbol;
-        private final int cumulativeWeight;
+    // The gap before the next bonus cell is geometric, so jumping straight to it places bonus symbols with the
+    // same per-cell probability as a draw per cell, while drawing only about once per bonus cell
+    private void addSparseBonusSymbols(int[] cells) {
+        long cell = -1;
+        while (true) {
+            cell += 1 + (long) (Math.log1p(-random.nextDouble()) / logMissProbability);
+            if (cell >= cells.length) {
+                return;
+            }
+            cells[(int) cell] = bonusSymbols[bonusTable.sample(random)];
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,118 @@
+package ru.kropotov;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import ru.kropotov.game.CompiledGame;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes spin results as newline-delimited JSON, one compact object per spin, with the same fields as
+ * the printed result. A single generator streams every result straight from the evaluation, and the
+ * output is flushed once per batch of results. Instances are not thread-safe.
+ */
+class NdjsonResultWriter implements AutoCloseable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final JsonGenerator generator;
+    private final int flushEvery;
+    private int unflushed;
+
+    public NdjsonResultWriter(OutputStream out, int flushEvery) throws IOException {
+        if (flushEvery < 0) {
+            throw new IllegalArgumentException("Flush batch size must not be negative: " + flushEvery);
+        }
+        // Lines are ended by hand, so the generator must not put its own separator between objects
+        JsonFactory jsonFactory = new JsonFactory().setRootValueSeparator(null);
+        this.generator = jsonFactory.createGenerator(new BufferedOutputStream(out, BUFFER_SIZE));
+        this.flushEvery = flushEvery;
+    }
+
+    public static NdjsonResultWriter toFile(Path path, int flushEvery) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        return new NdjsonResultWriter(Channels.newOutputStream(channel), flushEvery);
+    }
+
+    // Writes to the stdout file descriptor directly, bypassing the synchronized System.out
+    public static NdjsonResultWriter toStdout(int flushEvery) throws IOException {
+        NdjsonResultWriter writer = new NdjsonResultWriter(new FileOutputStream(FileDescriptor.out), flushEvery);
+        writer.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return writer;
+    }
+
+    public void write(int[] matrix, Evaluation evaluation) throws IOException {
+        CompiledGame game = evaluation.getGame();
+        generator.writeStartObject();
+
+        generator.writeArrayFieldStart("matrix");
+        for (int row = 0; row < game.getRows(); row++) {
+            generator.writeStartArray();
+            for (int col = 0; col < game.getColumns(); col++) {
+                generator.writeString(game.symbolName(matrix[row * game.getColumns() + col]));
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndArray();
+
+        generator.writeNumberField("reward", evaluation.getReward());
+
+        generator.writeObjectFieldStart("applied_winning_combinations");
+        int appliedCount = evaluation.getAppliedCombinationCount();
+        for (int i = 0; i < appliedCount; i++) {
+            int symbol = evaluation.getAppliedSymbolId(i);
+            if (isFirstApplication(evaluation, i, symbol)) {
+                // Every symbol gets one field with all of its combinations in the order they were applied
+                generator.writeArrayFieldStart(game.symbolName(symbol));
+                for (int j = i; j < appliedCount; j++) {
+                    if (evaluation.getAppliedSymbolId(j) == symbol) {
+                        generator.writeString(game.getCombinations()[evaluation.getAppliedCombinationId(j)]
+                                .getName());
+                    }
+                }
+                generator.writeEndArray();
+            }
+        }
+        generator.writeEndObject();
+
+        generator.writeArrayFieldStart("applied_bonus_symbol");
+        for (int i = 0; i < evaluation.getAppliedBonusSymbolCount(); i++) {
+            generator.writeString(game.symbolName(evaluation.getAppliedBonusSymbolId(i)));
+        }
+        generator.writeEndArray();
+
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+
+        if (flushEvery > 0 && ++unflushed >= flushEvery) {
+            flush();
+        }
+    }
+
+    public void flush() throws IOException {
+        generator.flush();
+        unflushed = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+
+    private static boolean isFirstApplication(Evaluation evaluation, int index, int symbol) {
+        for (int i = 0; i < index; i++) {
+            if (evaluation.getAppliedSymbolId(i) == symbol) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
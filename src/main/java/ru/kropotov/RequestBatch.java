@@ -0,0 +1,221 @@
+package ru.kropotov;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.metrics.SpinMetrics;
+import ru.kropotov.model.SpinRequest;
+import ru.kropotov.random.SpinRandom;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.random.RandomGenerator;
+
+/**
+ * Spins every line of a JSON lines file of {@code {bet, bonus_percentage, seed}} requests against one
+ * game, and writes one result line per request in input order.
+ * <p>
+ * A reader thread streams the requests onto a worker pool and queues a future per line. The calling
+ * thread writes the futures in queue order, so the bounded queue is both the reorder buffer and the
+ * backpressure: once it holds {@code window} lines the reader waits for the writer, and memory stays
+ * flat whatever the size of the input. Invalid lines give an {@code {"line", "error"}} result.
+ */
+@Slf4j
+class RequestBatch {
+    static final int DEFAULT_WINDOW = 4096;
+    private static final CompletableFuture<byte[]> END = CompletableFuture.completedFuture(new byte[0]);
+
+    private final CompiledGame game;
+    private final RewardEvaluator evaluator;
+    private final Long seed;
+    private final SpinMetrics metrics;
+    private final int threads;
+    private final int window;
+    private final ObjectReader requestReader = new ObjectMapper().readerFor(SpinRequest.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ThreadLocal<Worker> workers;
+
+    /**
+     * @param seed seed of the run whose spin {@code i} is used for line {@code i} without a seed of its own,
+     *             or null to spin such lines unseeded
+     * @param metrics metrics to record the spins into, or null
+     */
+    RequestBatch(CompiledGame game, Long seed, SpinMetrics metrics, int threads, int window) {
+        if (threads <= 0 || window <= 0) {
+            throw new IllegalArgumentException("Threads and window must be positive: " + threads + ", " + window);
+        }
+        this.game = game;
+        this.evaluator = RewardEvaluator.forGame(game);
+        this.seed = seed;
+        this.metrics = metrics;
+        this.threads = threads;
+        this.window = window;
+        this.workers = ThreadLocal.withInitial(Worker::new);
+    }
+
+    /**
+     * Returns the number of result lines written. The output is flushed after every {@code flushEvery}
+     * lines, or only when its buffer is full for 0, and at the end.
+     */
+    long run(BufferedReader in, OutputStream out, int flushEvery) throws IOException {
+        BlockingQueue<CompletableFuture<byte[]>> pending = new ArrayBlockingQueue<>(window);
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "request-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Thread reader = new Thread(() -> readRequests(in, pending, pool), "request-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        long written = 0;
+        try {
+            while (true) {
+                CompletableFuture<byte[]> result = pending.take();
+                if (result == END) {
+                    break;
+                }
+                out.write(result.join());
+                written++;
+                if (flushEvery > 0 && written % flushEvery == 0) {
+                    out.flush();
+                }
+            }
+            out.flush();
+            return written;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing results", e);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        } finally {
+            reader.interrupt();
+            pool.shutdownNow();
+        }
+    }
+
+    private void readRequests(BufferedReader in, BlockingQueue<CompletableFuture<byte[]>> pending,
+                              ExecutorService pool) {
+        try {
+            try {
+                String line;
+                long lineNumber = 0;
+                long spinIndex = 0;
+                while ((line = in.readLine()) != null) {
+                    lineNumber++;
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    String request = line;
+                    long number = lineNumber;
+                    long spin = spinIndex++;
+                    pending.put(CompletableFuture.supplyAsync(() -> process(request, number, spin), pool));
+                }
+            } catch (IOException e) {
+                pending.put(CompletableFuture.failedFuture(new UncheckedIOException(e)));
+            }
+            pending.put(END);
+        } catch (InterruptedException e) {
+            // The writer gave up, nobody is left to take what this thread would queue
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private byte[] process(String line, long lineNumber, long spinIndex) {
+        SpinRequest request;
+        try {
+            request = requestReader.readValue(line);
+        } catch (IOException e) {
+            return error(lineNumber, "Invalid request");
+        }
+        // A line of the JSON literal null reads as no request
+        if (request == null) {
+            return error(lineNumber, "Invalid request");
+        }
+        String error = SpinServer.validationError(request);
+        if (error != null) {
+            return error(lineNumber, error);
+        }
+        return workers.get().spin(request, spinIndex);
+    }
+
+    private byte[] error(long lineNumber, String message) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("line", lineNumber);
+        result.put("error", message);
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(result);
+            byte[] line = Arrays.copyOf(json, json.length + 1);
+            line[json.length] = '\n';
+            return line;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Buffers one worker thread reuses for all of its requests
+    private final class Worker {
+        private final int[] matrix = new int[game.getCellCount()];
+        private final Evaluation evaluation = evaluator.newEvaluation();
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final NdjsonResultWriter writer;
+        private final SpinRandom runRandom = seed != null ? new SpinRandom(seed) : null;
+
+        private Worker() {
+            try {
+                writer = new NdjsonResultWriter(buffer, 0);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private byte[] spin(SpinRequest request, long spinIndex) {
+            RandomGenerator random;
+            if (request.getSeed() == null && runRandom != null) {
+                runRandom.startSpin(spinIndex);
+                random = runRandom;
+            } else {
+                random = SpinServer.random(request);
+            }
+            boolean timed = metrics != null && metrics.isTimed(spinIndex);
+            long start = timed ? System.nanoTime() : 0;
+            new MatrixGenerator(game, SpinServer.bonusProbability(request), random).generateCells(matrix);
+            long generated = timed ? System.nanoTime() : 0;
+            evaluator.evaluate(matrix, request.getBet(), evaluation);
+            long evaluated = timed ? System.nanoTime() : 0;
+            try {
+                writer.write(matrix, evaluation);
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (timed) {
+                metrics.record(SpinMetrics.Phase.GENERATE, generated - start);
+                metrics.record(SpinMetrics.Phase.EVALUATE, evaluated - generated);
+                metrics.record(SpinMetrics.Phase.SERIALIZE, System.nanoTime() - evaluated);
+            }
+            if (metrics != null) {
+                metrics.recordSpin(evaluation.getReward());
+            }
+            byte[] line = buffer.toByteArray();
+            buffer.reset();
+            return line;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package ru.kropotov;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import ru.kropotov.game.CompiledCombination;
+import ru.kropotov.game.CompiledGame;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static ru.kropotov.game.CompiledGame.NO_SYMBOL;
+import static ru.kropotov.model.enums.When.LINEAR_SYMBOLS;
+
+/**
+ * Evaluates matrices of one game into caller-supplied {@link Evaluation} objects. The evaluator keeps
+ * no state of its own between calls, so a single instance can serve every thread, each thread bringing
+ * its own evaluation.
+ */
+@Slf4j
+public class RewardEvaluator {
+    @Getter
+    protected final CompiledGame game;
+    protected final int[] standardSymbols;
+    protected final CompiledCombination[][] sameSymbolCombinations;
+    protected final CompiledCombination[] linearCombinations;
+    protected final int maxAppliedCombinations;
+
+    public RewardEvaluator(CompiledGame game) {
+        this.game = game;
+        this.standardSymbols = IntStream.range(0, game.symbolCount()).filter(game::isStandard).toArray();
+        this.sameSymbolCombinations = game.getSameSymbolCombinations();
+        this.linearCombinations = Arrays.stream(game.getCombinations())
+                .filter(combination -> LINEAR_SYMBOLS.equals(combination.getWhen()))
+                .toArray(CompiledCombination[]::new);
+
+        // A same_symbols combination applies to at most cells / count symbols, a linear one once per area
+        int maxApplied = 0;
+        for (int count = 1; count < sameSymbolCombinations.length; count++) {
+            maxApplied += sameSymbolCombinations[count].length
+                    * Math.min(standardSymbols.length, game.getCellCount() / count);
+        }
+        for (CompiledCombination combination : linearCombinations) {
+            maxApplied += combination.getCoveredAreas().length;
+        }
+        this.maxAppliedCombinations = maxApplied;
+    }
+
+    /**
+     * Returns the fastest evaluator supporting the game: the bitboard one for grids of up to 64 cells and
+     * the parallel one for large grids.
+     */
+    public static RewardEvaluator forGame(CompiledGame game) {
+        if (BitboardRewardEvaluator.supports(game)) {
+            return new BitboardRewardEvaluator(game);
+        }
+        return LargeGridRewardEvaluator.supports(game) ? new LargeGridRewardEvaluator(game) : new RewardEvaluator(game);
+    }
+
+    public Evaluation newEvaluation() {
+        return new Evaluation(game, maxAppliedCombinations);
+    }
+
+    public double evaluate(int[] matrix, int bettingAmount, Evaluation evaluation) {
+        evaluation.reset();
+        calculateSameSymbolRewards(matrix, bettingAmount, evaluation);
+        calculateLinearSymbolRewards(matrix, bettingAmount, evaluation);
+        double totalReward = calculateTotalReward(evaluation);
+        return finish(applyBonusSymbols(matrix, totalReward, evaluation), evaluation);
+    }
+
+    protected double finish(double reward, Evaluation evaluation) {
+        evaluation.reward = reward;
+        if (log.isDebugEnabled()) {
+            log.debug("Total reward: {}", reward);
+        }
+        return reward;
+    }
+
+    private void calculateSameSymbolRewards(int[] matrix, int bettingAmount, Evaluation evaluation) {
+        int[] eachSymbolAmount = evaluation.symbolCounts;
+        for (int cell : matrix) {
+            if (game.isStandard(cell)) {
+                eachSymbolAmount[cell]++;
+            }
+        }
+        for (int symbol : standardSymbols) {
+            for (CompiledCombination combination : sameSymbolCombinations[eachSymbolAmount[symbol]]) {
+                addSymbolReward(symbol, combination, bettingAmount, evaluation);
+            }
+        }
+    }
+
+    private void calculateLinearSymbolRewards(int[] matrix, int bettingAmount, Evaluation evaluation) {
+        for (CompiledCombination combination : linearCombinations) {
+            for (int[] area : combination.getCoveredAreas()) {
+                int symbol = checkLinearSymbols(matrix, area);
+                if (symbol != NO_SYMBOL) {
+                    addSymbolReward(symbol, combination, bettingAmount, evaluation);
+                }
+            }
+        }
+    }
+
+    protected void addSymbolReward(int symbol, CompiledCombination combination, int bettingAmount,
+                                 Evaluation evaluation) {
+        double symbolReward = game.rewardMultiplier(symbol);
+        if (!Double.isNaN(symbolReward)) {
+            double reward = bettingAmount * symbolReward * combination.getRewardMultiplier();
+            if (log.isDebugEnabled()) {
+                log.debug("Reward name: {}. Reward details: {} x {}", combination.getGroup(),
+                        game.symbolName(symbol), reward);
+            }
+            if (evaluation.rewardedSymbols[symbol]) {
+                evaluation.symbolRewards[symbol] *= combination.getRewardMultiplier();
+            } else {
+                evaluation.symbolRewards[symbol] = reward;
+                evaluation.rewardedSymbols[symbol] = true;
+                evaluation.rewardedCount++;
+            }
+        } else if (log.isDebugEnabled()) {
+            log.debug("Symbol {} has no reward multiplier", game.symbolName(symbol));
+        }
+        evaluation.appliedSymbols[evaluation.appliedCount] = symbol;
+        evaluation.appliedCombinations[evaluation.appliedCount++] = combination.getId();
+    }
+
+    // Compensated like DoubleStream.sum() over the HashMap of RewardCalculator, in the order it iterates
+    protected double calculateTotalReward(Evaluation evaluation) {
+        CompensatedSum sum = evaluation.rewardSum;
+        sum.reset();
+        for (int symbol : game.rewardSumOrder(evaluation.rewardedCount)) {
+            if (evaluation.rewardedSymbols[symbol]) {
+                sum.add(evaluation.symbolRewards[symbol]);
+            }
+        }
+        double totalReward = sum.total();
+        evaluation.totalReward = totalReward;
+        return totalReward;
+    }
+
+    private double applyBonusSymbols(int[] matrix, double totalReward, Evaluation evaluation) {
+        if (totalReward == 0.0) {
+            return totalReward;
+        }
+        evaluation.bonusMultiplier = 1.0;
+        evaluation.extraBonus = 0.0;
+        for (int symbol : matrix) {
+            if (game.isBonus(symbol)) {
+                applyBonusSymbol(symbol, evaluation);
+            }
+        }
+        return totalReward * evaluation.bonusMultiplier + evaluation.extraBonus;
+    }
+
+    protected void applyBonusSymbol(int symbol, Evaluation evaluation) {
+        switch (game.getImpacts()[symbol]) {
+            case MULTIPLY_REWARD:
+                double rewardMultiplier = game.rewardMultiplier(symbol);
+                if (!Double.isNaN(rewardMultiplier)) {
+                    evaluation.bonusMultiplier *= rewardMultiplier;
+                    if (log.isDebugEnabled()) {
+                        log.debug("Reward name: multiply_reward. Reward details: multiplier x{}", rewardMultiplier);
+                    }
+                    evaluation.appliedBonusSymbols[evaluation.appliedBonusCount++] = symbol;
+                } else {
+                    log.warn("Reward multiplier for symbol {} is null", game.symbolName(symbol));
+                }
+                break;
+            case EXTRA_BONUS:
+                evaluation.extraBonus += game.getExtras()[symbol];
+                if (log.isDebugEnabled()) {
+                    log.debug("Reward name: extra_bonus. Reward details: add {} extra", game.getExtras()[symbol]);
+                }
+                evaluation.appliedBonusSymbols[evaluation.appliedBonusCount++] = symbol;
+                break;
+        }
+    }
+
+    static int checkLinearSymbols(int[] matrix, int[] coveredArea) {
+        if (coveredArea.length == 0) {
+            return NO_SYMBOL;
+        }
+        int symbol = matrix[coveredArea[0]];
+        for (int i = 1; i < coveredArea.length; i++) {
+            if (matrix[coveredArea[i]] != symbol) {
+                return NO_SYMBOL;
+            }
+        }
+        return symbol;
+    }
+}
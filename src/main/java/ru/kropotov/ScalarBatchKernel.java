@@ -0,0 +1,43 @@
+package ru.kropotov;
+
+/**
+ * Batch kernel for runtimes without the Vector API module: evaluates the spins one by one with the
+ * fastest single-spin evaluator of the game.
+ */
+final class ScalarBatchKernel implements BatchKernel {
+    private final RewardEvaluator evaluator;
+
+    ScalarBatchKernel(RewardEvaluator evaluator) {
+        this.evaluator = evaluator;
+    }
+
+    @Override
+    public void evaluate(SpinBatch batch, int bettingAmount) {
+        Evaluation evaluation = batch.evaluation;
+        int[] matrix = batch.matrix;
+        batch.clearHits();
+        for (int spin = 0; spin < batch.size(); spin++) {
+            batch.rewards[spin] = evaluator.evaluate(batch.readMatrix(spin, matrix), bettingAmount, evaluation);
+            // Stamps count a combination or bonus symbol once per spin
+            for (int i = 0; i < evaluation.getAppliedCombinationCount(); i++) {
+                int combination = evaluation.getAppliedCombinationId(i);
+                if (batch.combinationSeen[combination] != spin + 1) {
+                    batch.combinationSeen[combination] = spin + 1;
+                    batch.combinationHits[combination]++;
+                }
+            }
+            for (int i = 0; i < evaluation.getAppliedBonusSymbolCount(); i++) {
+                int symbol = evaluation.getAppliedBonusSymbolId(i);
+                if (batch.bonusSymbolSeen[symbol] != spin + 1) {
+                    batch.bonusSymbolSeen[symbol] = spin + 1;
+                    batch.bonusSymbolHits[symbol]++;
+                }
+            }
+        }
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,183 @@
+package ru.kropotov;
+
+import lombok.Getter;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.stats.PayoutStatistics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Aggregated outcome of a batch of spins. Every worker fills its own instance and the instances are
+ * merged afterwards, so recording never touches shared state.
+ */
+@Getter
+public class SimulationResult {
+    private final CompiledGame game;
+    private long spins;
+    private long hits;
+    private double totalBet;
+    private double totalWin;
+    private double maxWin;
+    private final long[] combinationHits;
+    private final long[] bonusSymbolHits;
+    // Payouts in multiples of the bet
+    private PayoutStatistics payoutStatistics = new PayoutStatistics();
+    // Spin number at which a combination or bonus symbol was last counted, to count each once per spin
+    private final long[] combinationSeen;
+    private final long[] bonusSymbolSeen;
+
+    public SimulationResult(CompiledGame game) {
+        this.game = game;
+        this.combinationHits = new long[game.getCombinations().length];
+        this.bonusSymbolHits = new long[game.symbolCount()];
+        this.combinationSeen = new long[combinationHits.length];
+        this.bonusSymbolSeen = new long[bonusSymbolHits.length];
+    }
+
+    void record(int bettingAmount, Evaluation evaluation) {
+        recordReward(bettingAmount, evaluation.getReward());
+        for (int i = 0; i < evaluation.getAppliedCombinationCount(); i++) {
+            int combination = evaluation.getAppliedCombinationId(i);
+            if (combinationSeen[combination] != spins) {
+                combinationSeen[combination] = spins;
+                combinationHits[combination]++;
+            }
+        }
+        for (int i = 0; i < evaluation.getAppliedBonusSymbolCount(); i++) {
+            int symbol = evaluation.getAppliedBonusSymbolId(i);
+            if (bonusSymbolSeen[symbol] != spins) {
+                bonusSymbolSeen[symbol] = spins;
+                bonusSymbolHits[symbol]++;
+            }
+        }
+    }
+
+    // Records the spins of an evaluated batch in order, with the hit counts the batch already tallied
+    void record(int bettingAmount, SpinBatch batch) {
+        for (int spin = 0; spin < batch.size(); spin++) {
+            recordReward(bettingAmount, batch.getReward(spin));
+        }
+        for (int i = 0; i < combinationHits.length; i++) {
+            combinationHits[i] += batch.getCombinationHits(i);
+        }
+        for (int i = 0; i < bonusSymbolHits.length; i++) {
+            bonusSymbolHits[i] += batch.getBonusSymbolHits(i);
+        }
+    }
+
+    private void recordReward(int bettingAmount, double reward) {
+        spins++;
+        totalBet += bettingAmount;
+        totalWin += reward;
+        if (reward > 0) {
+            hits++;
+        }
+        if (reward > maxWin) {
+            maxWin = reward;
+        }
+        payoutStatistics.record(bettingAmount > 0 ? reward / bettingAmount : 0);
+    }
+
+    public SimulationResult merge(SimulationResult other) {
+        spins += other.spins;
+        hits += other.hits;
+        totalBet += other.totalBet;
+        totalWin += other.totalWin;
+        maxWin = Math.max(maxWin, other.maxWin);
+        payoutStatistics.merge(other.payoutStatistics);
+        for (int i = 0; i < combinationHits.length; i++) {
+            combinationHits[i] += other.combinationHits[i];
+        }
+        for (int i = 0; i < bonusSymbolHits.length; i++) {
+            bonusSymbolHits[i] += other.bonusSymbolHits[i];
+        }
+        return this;
+    }
+
+    /**
+     * Writes the totals and statistics in a binary form from which {@link #read} restores a result that
+     * merges exactly like this one.
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeLong(spins);
+        out.writeLong(hits);
+        out.writeDouble(totalBet);
+        out.writeDouble(totalWin);
+        out.writeDouble(maxWin);
+        writeCounts(out, combinationHits);
+        writeCounts(out, bonusSymbolHits);
+        payoutStatistics.write(out);
+    }
+
+    public static SimulationResult read(CompiledGame game, DataInput in) throws IOException {
+        SimulationResult result = new SimulationResult(game);
+        result.spins = in.readLong();
+        result.hits = in.readLong();
+        result.totalBet = in.readDouble();
+        result.totalWin = in.readDouble();
+        result.maxWin = in.readDouble();
+        readCounts(in, result.combinationHits);
+        readCounts(in, result.bonusSymbolHits);
+        result.payoutStatistics = PayoutStatistics.read(in);
+        return result;
+    }
+
+    private static void writeCounts(DataOutput out, long[] counts) throws IOException {
+        out.writeInt(counts.length);
+        for (long count : counts) {
+            out.writeLong(count);
+        }
+    }
+
+    private static void readCounts(DataInput in, long[] counts) throws IOException {
+        int length = in.readInt();
+        if (length != counts.length) {
+            throw new IOException("Expected " + counts.length + " counts of the game but got " + length);
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = in.readLong();
+        }
+    }
+
+    public double getRtp() {
+        return totalBet == 0 ? 0 : totalWin / totalBet;
+    }
+
+    public double getHitFrequency() {
+        return rate(hits);
+    }
+
+    public Map<String, Object> toReport() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("spins", spins);
+        report.put("total_bet", totalBet);
+        report.put("total_win", totalWin);
+        report.put("rtp", getRtp());
+        report.put("hit_frequency", getHitFrequency());
+        report.put("max_win", maxWin);
+        report.putAll(payoutStatistics.toReport());
+
+        Map<String, Double> combinationRates = new LinkedHashMap<>();
+        for (int i = 0; i < combinationHits.length; i++) {
+            combinationRates.put(game.getCombinations()[i].getName(), rate(combinationHits[i]));
+        }
+        report.put("combination_trigger_rates", combinationRates);
+
+        Map<String, Double> bonusSymbolRates = new LinkedHashMap<>();
+        for (int symbol = 0; symbol < bonusSymbolHits.length; symbol++) {
+            if (game.isBonus(symbol)) {
+                bonusSymbolRates.put(game.symbolName(symbol), rate(bonusSymbolHits[symbol]));
+            }
+        }
+        report.put("bonus_symbol_trigger_rates", bonusSymbolRates);
+        return report;
+    }
+
+    private double rate(long count) {
+        return spins == 0 ? 0 : (double) count / spins;
+    }
+}
@@ -0,0 +1,169 @@
+package ru.kropotov;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.metrics.SpinMetrics;
+import ru.kropotov.random.SpinRandom;
+
+import java.util.stream.IntStream;
+
+@Slf4j
+public class Simulator {
+    static final int CHUNK_SIZE = 1 << 16;
+    // Chunks between two checks of the confidence interval when running to a target width
+    static final int ROUND_CHUNKS = 32;
+
+    private final CompiledGame game;
+    // Large grids are evaluated spin by spin, as a batch of them would hold many megabytes per worker
+    private final BatchRewardEvaluator batchEvaluator;
+    private final RewardEvaluator evaluator;
+    private final double bonusPercentage;
+    private final int bettingAmount;
+    private final long seed;
+    private final SpinMetrics metrics;
+
+    public Simulator(CompiledGame game, double bonusPercentage, int bettingAmount, long seed) {
+        this(game, bonusPercentage, bettingAmount, seed, null);
+    }
+
+    public Simulator(CompiledGame game, double bonusPercentage, int bettingAmount, long seed, SpinMetrics metrics) {
+        this.game = game;
+        if (LargeGridRewardEvaluator.supports(game)) {
+            this.batchEvaluator = null;
+            this.evaluator = RewardEvaluator.forGame(game);
+        } else {
+            this.batchEvaluator = new BatchRewardEvaluator(game);
+            this.evaluator = null;
+        }
+        this.bonusPercentage = bonusPercentage;
+        this.bettingAmount = bettingAmount;
+        this.seed = seed;
+        this.metrics = metrics;
+    }
+
+    public SimulationResult run(long spins) {
+        int chunks = chunkCount(spins);
+        long start = System.nanoTime();
+        SimulationResult result = new SimulationResult(game);
+        runChunks(0, chunks, spins, result);
+        log.debug("Simulated {} spins in {} ms", spins, (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    /**
+     * Spins until the 95% confidence interval of the RTP reaches at most {@code targetHalfWidth} on either
+     * side, or {@code maxSpins} have run. The interval is checked after every round of a fixed number of
+     * chunks, so a seed stops at the same spin however many threads run it.
+     */
+    public SimulationResult runUntil(double targetHalfWidth, long maxSpins) {
+        if (!(targetHalfWidth > 0)) {
+            throw new IllegalArgumentException("Target confidence half width must be positive: " + targetHalfWidth);
+        }
+        int chunks = chunkCount(maxSpins);
+        long start = System.nanoTime();
+        SimulationResult result = new SimulationResult(game);
+        for (int round = 0; round < chunks; round += ROUND_CHUNKS) {
+            runChunks(round, Math.min(chunks, round + ROUND_CHUNKS), maxSpins, result);
+            if (result.getPayoutStatistics().getConfidenceHalfWidth() <= targetHalfWidth) {
+                break;
+            }
+        }
+        log.debug("Simulated {} spins to a confidence half width of {} in {} ms", result.getSpins(),
+                result.getPayoutStatistics().getConfidenceHalfWidth(), (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    // Number of chunks a run of the given number of spins is split into
+    public static int chunkCount(long spins) {
+        if (spins <= 0) {
+            throw new IllegalArgumentException("Number of spins must be positive: " + spins);
+        }
+        long chunks = (spins + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        if (chunks > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many spins: " + spins);
+        }
+        return (int) chunks;
+    }
+
+    /**
+     * Runs chunks {@code firstChunk} to {@code lastChunk - 1} of a run of the given number of spins and
+     * returns their results in chunk order. Merging the results of all chunks in order into an empty result
+     * gives exactly the result of {@link #run}, however the chunks were spread over threads or processes.
+     */
+    public SimulationResult[] runChunks(int firstChunk, int lastChunk, long spins) {
+        int chunks = chunkCount(spins);
+        if (firstChunk < 0 || firstChunk > lastChunk || lastChunk > chunks) {
+            throw new IllegalArgumentException("Invalid chunks " + firstChunk + " to " + lastChunk + " of " + chunks);
+        }
+        // Every chunk runs on its own generator and result, so workers share nothing while spinning
+        return IntStream.range(firstChunk, lastChunk)
+                .parallel()
+                .mapToObj(chunk -> runChunk(chunk * (long) CHUNK_SIZE, Math.min(spins, (chunk + 1L) * CHUNK_SIZE)))
+                .toArray(SimulationResult[]::new);
+    }
+
+    private void runChunks(int firstChunk, int lastChunk, long spins, SimulationResult result) {
+        // Merge in chunk order so that the totals do not depend on how the chunks were scheduled
+        for (SimulationResult partial : runChunks(firstChunk, lastChunk, spins)) {
+            result.merge(partial);
+        }
+    }
+
+    private SimulationResult runChunk(long firstSpin, long lastSpin) {
+        SpinRandom random = new SpinRandom(seed);
+        MatrixGenerator matrixGenerator = new MatrixGenerator(game, bonusPercentage, random);
+        SimulationResult result = batchEvaluator != null
+                ? runBatches(matrixGenerator, firstSpin, lastSpin)
+                : runSpins(matrixGenerator, random, firstSpin, lastSpin);
+        if (metrics != null) {
+            metrics.recordSpins(result.getSpins(), result.getHits());
+        }
+        return result;
+    }
+
+    private SimulationResult runBatches(MatrixGenerator matrixGenerator, long firstSpin, long lastSpin) {
+        SimulationResult result = new SimulationResult(game);
+        SpinBatch batch = batchEvaluator.newBatch(BatchRewardEvaluator.batchSize(game));
+        for (long spin = firstSpin; spin < lastSpin; spin += batch.size()) {
+            // Spin i always draws from the stream of (seed, i), whichever worker or batch runs it
+            int count = (int) Math.min(batch.getCapacity(), lastSpin - spin);
+            if (metrics != null) {
+                // Phases are timed per batch and recorded as their average per spin
+                long start = System.nanoTime();
+                matrixGenerator.generateCells(batch, spin, count);
+                long generated = System.nanoTime();
+                batchEvaluator.evaluate(batch, bettingAmount);
+                metrics.record(SpinMetrics.Phase.GENERATE, (generated - start) / count);
+                metrics.record(SpinMetrics.Phase.EVALUATE, (System.nanoTime() - generated) / count);
+            } else {
+                matrixGenerator.generateCells(batch, spin, count);
+                batchEvaluator.evaluate(batch, bettingAmount);
+            }
+            result.record(bettingAmount, batch);
+        }
+        return result;
+    }
+
+    private SimulationResult runSpins(MatrixGenerator matrixGenerator, SpinRandom random, long firstSpin,
+                                      long lastSpin) {
+        SimulationResult result = new SimulationResult(game);
+        int[] matrix = new int[game.getCellCount()];
+        Evaluation evaluation = evaluator.newEvaluation();
+        for (long spin = firstSpin; spin < lastSpin; spin++) {
+            random.startSpin(spin);
+            if (metrics != null && metrics.isTimed(spin)) {
+                long start = System.nanoTime();
+                matrixGenerator.generateCells(matrix);
+                long generated = System.nanoTime();
+                evaluator.evaluate(matrix, bettingAmount, evaluation);
+                metrics.record(SpinMetrics.Phase.GENERATE, generated - start);
+                metrics.record(SpinMetrics.Phase.EVALUATE, System.nanoTime() - generated);
+            } else {
+                matrixGenerator.generateCells(matrix);
+                evaluator.evaluate(matrix, bettingAmount, evaluation);
+            }
+            result.record(bettingAmount, evaluation);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,59 @@
+package ru.kropotov;
+
+import lombok.Getter;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.model.RequestConfig;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Entry point for embedding the game in another JVM. An engine is immutable once built and is shared by
+ * every thread; all state of a spin lives in a {@link SpinContext}, which each thread takes from
+ * {@link #context()} or creates with {@link #newContext}, so concurrent spins never lock or share memory
+ * they write.
+ */
+public final class SlotEngine {
+    @Getter
+    private final CompiledGame game;
+    // Probability of a cell holding a bonus symbol
+    @Getter
+    private final double bonusPercentage;
+    private final RewardEvaluator evaluator;
+    private final ThreadLocal<SpinContext> contexts = ThreadLocal.withInitial(this::newContext);
+
+    public SlotEngine(RequestConfig config) {
+        this(CompiledGame.compile(config), Main.DEFAULT_BONUS_PERCENTAGE);
+    }
+
+    public SlotEngine(RequestConfig config, double bonusPercentage) {
+        this(CompiledGame.compile(config), bonusPercentage);
+    }
+
+    public SlotEngine(CompiledGame game, double bonusPercentage) {
+        if (!(bonusPercentage >= 0 && bonusPercentage <= 1)) {
+            throw new IllegalArgumentException("Bonus percentage must be from 0 to 1: " + bonusPercentage);
+        }
+        this.game = game;
+        this.bonusPercentage = bonusPercentage;
+        this.evaluator = RewardEvaluator.forGame(game);
+    }
+
+    /**
+     * Context of the calling thread, created on its first call with a random seed.
+     */
+    public SpinContext context() {
+        return contexts.get();
+    }
+
+    public SpinContext newContext() {
+        return newContext(ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Context whose spin {@code i} is spin {@code i} of a run with the given seed, the spin that
+     * {@code Main --seed <seed> --spin-index <i>} replays.
+     */
+    public SpinContext newContext(long seed) {
+        return new SpinContext(evaluator, bonusPercentage, seed);
+    }
+}
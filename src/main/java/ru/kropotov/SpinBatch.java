@@ -0,0 +1,131 @@
+package ru.kropotov;
+
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.random.SpinLanes;
+
+import java.util.Arrays;
+
+/**
+ * Structure-of-arrays block of spins for {@link BatchRewardEvaluator}. Cells are laid out per cell with
+ * one slot per spin, so {@code cells[cell * stride + spin]} holds the symbol of a cell and a pass over
+ * one cell of the whole batch reads contiguous memory. A batch also holds the scratch arrays of its
+ * evaluation, so each thread evaluates its own batches without allocating.
+ */
+public final class SpinBatch {
+    // Rows are padded to whole vectors of the widest species
+    static final int MAX_LANES = 64;
+
+    private final CompiledGame game;
+    private final int capacity;
+    final int stride;
+    final int[] cells;
+    // Lanes of the vector kernel: the cells as doubles, the cells of each symbol and the symbol all
+    // cells of each linear area hold, or null when the batch is evaluated spin by spin
+    final double[] cellSymbols;
+    final double[] symbolCounts;
+    final double[] areaSymbols;
+    final double[] rewards;
+    // Compensation and plain sum of the vector kernel's compensated reward sums, or null
+    final double[] rewardCompensations;
+    final double[] simpleRewards;
+    // Spins of the batch that applied each combination and bonus symbol
+    final long[] combinationHits;
+    final long[] bonusSymbolHits;
+    final int[] combinationSeen;
+    final int[] bonusSymbolSeen;
+    final int[] matrix;
+    final SpinLanes lanes;
+    final Evaluation evaluation;
+    private int size;
+
+    SpinBatch(CompiledGame game, int capacity, int areaCount, Evaluation evaluation, boolean vectorLanes) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Batch capacity must be positive: " + capacity);
+        }
+        this.game = game;
+        this.capacity = capacity;
+        this.stride = (capacity + MAX_LANES - 1) / MAX_LANES * MAX_LANES;
+        this.cells = new int[game.getCellCount() * stride];
+        this.cellSymbols = vectorLanes ? new double[cells.length] : null;
+        this.symbolCounts = vectorLanes ? new double[game.symbolCount() * stride] : null;
+        this.areaSymbols = vectorLanes ? new double[areaCount * stride] : null;
+        this.rewards = new double[stride];
+        this.rewardCompensations = vectorLanes ? new double[stride] : null;
+        this.simpleRewards = vectorLanes ? new double[stride] : null;
+        this.combinationHits = new long[game.getCombinations().length];
+        this.bonusSymbolHits = new long[game.symbolCount()];
+        this.combinationSeen = new int[combinationHits.length];
+        this.bonusSymbolSeen = new int[bonusSymbolHits.length];
+        this.matrix = new int[game.getCellCount()];
+        this.lanes = new SpinLanes(capacity);
+        this.evaluation = evaluation;
+    }
+
+    /**
+     * Copies the given matrices into the batch.
+     */
+    public void load(int[][] matrices) {
+        resize(matrices.length);
+        for (int spin = 0; spin < matrices.length; spin++) {
+            if (matrices[spin].length != matrix.length) {
+                throw new IllegalArgumentException("Matrix must have " + matrix.length + " cells: "
+                        + matrices[spin].length);
+            }
+            for (int cell = 0; cell < matrix.length; cell++) {
+                cells[cell * stride + spin] = matrices[spin][cell];
+            }
+        }
+    }
+
+    public CompiledGame getGame() {
+        return game;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Number of spins currently in the batch
+    public int size() {
+        return size;
+    }
+
+    public int getCell(int spin, int cell) {
+        return cells[cell * stride + spin];
+    }
+
+    public int[] readMatrix(int spin, int[] matrix) {
+        for (int cell = 0; cell < matrix.length; cell++) {
+            matrix[cell] = cells[cell * stride + spin];
+        }
+        return matrix;
+    }
+
+    // Results of the last evaluation of the batch
+
+    public double getReward(int spin) {
+        return rewards[spin];
+    }
+
+    public long getCombinationHits(int combination) {
+        return combinationHits[combination];
+    }
+
+    public long getBonusSymbolHits(int symbol) {
+        return bonusSymbolHits[symbol];
+    }
+
+    void clearHits() {
+        Arrays.fill(combinationHits, 0);
+        Arrays.fill(bonusSymbolHits, 0);
+        Arrays.fill(combinationSeen, 0);
+        Arrays.fill(bonusSymbolSeen, 0);
+    }
+
+    void resize(int count) {
+        if (count < 0 || count > capacity) {
+            throw new IllegalArgumentException("Batch of " + capacity + " spins cannot hold " + count);
+        }
+        size = count;
+    }
+}
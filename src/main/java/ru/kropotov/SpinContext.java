@@ -0,0 +1,108 @@
+package ru.kropotov;
+
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.random.SpinRandom;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Random stream and scratch buffers of one caller of a {@link SlotEngine}. A context is used by one
+ * thread at a time and holds the last spin or evaluation until the next one, so reading its results
+ * allocates nothing beyond what the getters return. It does not refer back to its engine, so the
+ * contexts an engine keeps in its thread-local do not keep a discarded engine alive.
+ */
+public final class SpinContext {
+    private final CompiledGame game;
+    private final RewardEvaluator evaluator;
+    private final SpinRandom random;
+    private final MatrixGenerator generator;
+    private final int[] matrix;
+    private final Evaluation evaluation;
+    private final SpinOutcome outcome;
+    private long spins;
+    private boolean outcomeCaptured;
+
+    SpinContext(RewardEvaluator evaluator, double bonusPercentage, long seed) {
+        this.game = evaluator.getGame();
+        this.evaluator = evaluator;
+        this.random = new SpinRandom(seed);
+        this.generator = new MatrixGenerator(game, bonusPercentage, random);
+        this.matrix = new int[game.getCellCount()];
+        this.evaluation = evaluator.newEvaluation();
+        this.outcome = new SpinOutcome(game);
+    }
+
+    /**
+     * Generates the next matrix of the context and evaluates it, returning the reward.
+     */
+    public double spin(int bettingAmount) {
+        random.startSpin(spins++);
+        generator.generateCells(matrix);
+        return evaluate(bettingAmount);
+    }
+
+    public double evaluate(String[][] matrix, int bettingAmount) {
+        System.arraycopy(game.encode(matrix), 0, this.matrix, 0, this.matrix.length);
+        return evaluate(bettingAmount);
+    }
+
+    private double evaluate(int bettingAmount) {
+        outcomeCaptured = false;
+        return evaluator.evaluate(matrix, bettingAmount, evaluation);
+    }
+
+    public CompiledGame getGame() {
+        return game;
+    }
+
+    public long getSeed() {
+        return random.getSeed();
+    }
+
+    // Spins made so far, which is also the index of the next spin in the run of the seed
+    public long getSpins() {
+        return spins;
+    }
+
+    // Results of the last spin or evaluation
+
+    public String[][] getMatrix() {
+        return game.decode(matrix);
+    }
+
+    public double getReward() {
+        return evaluation.getReward();
+    }
+
+    public Map<String, List<String>> getAppliedWinningCombinations() {
+        return evaluation.getAppliedWinningCombinations();
+    }
+
+    public List<String> getAppliedBonusSymbols() {
+        return evaluation.getAppliedBonusSymbols();
+    }
+
+    /**
+     * Bet-independent outcome of the last matrix, valid until the next spin or evaluation.
+     */
+    public SpinOutcome getOutcome() {
+        if (!outcomeCaptured) {
+            outcome.capture(matrix, evaluation);
+            outcomeCaptured = true;
+        }
+        return outcome;
+    }
+
+    // The last result in the JSON form Main prints
+    public String toJson() {
+        try {
+            return Main.formatResult(game, matrix, evaluation.getReward(), getAppliedWinningCombinations(),
+                    getAppliedBonusSymbols());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
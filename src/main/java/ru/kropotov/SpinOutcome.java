@@ -0,0 +1,189 @@
+package ru.kropotov;
+
+import ru.kropotov.game.CompiledGame;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bet-independent result of evaluating a matrix, from which the reward of any bet is priced without
+ * evaluating the matrix again. Rewards are {@code bet * symbol * combination} with the later
+ * combinations of a symbol multiplied in, so the outcome keeps each symbol's chain of multipliers and
+ * prices a bet by replaying them in the evaluator's order: {@link #price} returns exactly what
+ * {@link RewardEvaluator#evaluate} returns for that bet, at the cost of one multiplication per applied
+ * combination. An outcome is reused across matrices by capturing into it again.
+ */
+public final class SpinOutcome {
+    private final CompiledGame game;
+    // Chains of the rewarded symbols in the order in which their rewards are summed
+    private double[] chainSymbolMultipliers = new double[0];
+    private int[] chainStarts = new int[1];
+    private double[] combinationMultipliers = new double[0];
+    private int chainCount;
+    private double bonusMultiplier;
+    private double extraBonus;
+    private int[] bonusSymbols;
+    private int bonusCount;
+    // Applied combinations in the order of the evaluation, for reporting
+    private int[] appliedSymbols = new int[0];
+    private int[] appliedCombinations = new int[0];
+    private int appliedCount;
+    private final CompensatedSum rewardSum = new CompensatedSum();
+
+    public SpinOutcome(CompiledGame game) {
+        this.game = game;
+        this.bonusSymbols = new int[game.getCellCount()];
+    }
+
+    /**
+     * Captures the outcome of the matrix the evaluation was just evaluated on, at whatever bet.
+     */
+    public void capture(int[] matrix, Evaluation evaluation) {
+        if (evaluation.getGame() != game) {
+            throw new IllegalArgumentException("Evaluation belongs to another game");
+        }
+        int applied = evaluation.appliedCount;
+        if (appliedSymbols.length < applied) {
+            appliedSymbols = new int[evaluation.appliedSymbols.length];
+            appliedCombinations = new int[appliedSymbols.length];
+            combinationMultipliers = new double[appliedSymbols.length];
+        }
+        System.arraycopy(evaluation.appliedSymbols, 0, appliedSymbols, 0, applied);
+        System.arraycopy(evaluation.appliedCombinations, 0, appliedCombinations, 0, applied);
+        appliedCount = applied;
+        if (chainSymbolMultipliers.length < game.symbolCount()) {
+            chainSymbolMultipliers = new double[game.symbolCount()];
+            chainStarts = new int[game.symbolCount() + 1];
+        }
+
+        chainCount = 0;
+        int multipliers = 0;
+        for (int symbol : game.rewardSumOrder(evaluation.rewardedCount)) {
+            if (!evaluation.rewardedSymbols[symbol]) {
+                continue;
+            }
+            chainSymbolMultipliers[chainCount] = game.rewardMultiplier(symbol);
+            chainStarts[chainCount++] = multipliers;
+            for (int i = 0; i < applied; i++) {
+                if (appliedSymbols[i] == symbol) {
+                    combinationMultipliers[multipliers++] =
+                            game.getCombinations()[appliedCombinations[i]].getRewardMultiplier();
+                }
+            }
+        }
+        chainStarts[chainCount] = multipliers;
+
+        if (evaluation.totalReward != 0.0) {
+            bonusMultiplier = evaluation.bonusMultiplier;
+            extraBonus = evaluation.extraBonus;
+            bonusCount = evaluation.appliedBonusCount;
+            System.arraycopy(evaluation.appliedBonusSymbols, 0, bonusSymbols, 0, bonusCount);
+        } else {
+            // The evaluator skipped bonus symbols, which another bet might still reach
+            captureBonusSymbols(matrix);
+        }
+    }
+
+    private void captureBonusSymbols(int[] matrix) {
+        bonusMultiplier = 1.0;
+        extraBonus = 0.0;
+        bonusCount = 0;
+        if (chainCount == 0) {
+            return;
+        }
+        for (int symbol : matrix) {
+            if (!game.isBonus(symbol)) {
+                continue;
+            }
+            switch (game.getImpacts()[symbol]) {
+                case MULTIPLY_REWARD:
+                    if (!Double.isNaN(game.rewardMultiplier(symbol))) {
+                        bonusMultiplier *= game.rewardMultiplier(symbol);
+                        bonusSymbols[bonusCount++] = symbol;
+                    }
+                    break;
+                case EXTRA_BONUS:
+                    extraBonus += game.getExtras()[symbol];
+                    bonusSymbols[bonusCount++] = symbol;
+                    break;
+            }
+        }
+    }
+
+    public double price(int bettingAmount) {
+        rewardSum.reset();
+        for (int chain = 0; chain < chainCount; chain++) {
+            int first = chainStarts[chain];
+            double reward = bettingAmount * chainSymbolMultipliers[chain] * combinationMultipliers[first];
+            for (int i = first + 1; i < chainStarts[chain + 1]; i++) {
+                reward *= combinationMultipliers[i];
+            }
+            rewardSum.add(reward);
+        }
+        double totalReward = rewardSum.total();
+        return totalReward == 0.0 ? totalReward : totalReward * bonusMultiplier + extraBonus;
+    }
+
+    /**
+     * Prices every bet of a ladder into the matching slot of {@code rewards}.
+     */
+    public void price(int[] bettingAmounts, double[] rewards) {
+        if (rewards.length < bettingAmounts.length) {
+            throw new IllegalArgumentException("Expected room for " + bettingAmounts.length + " rewards but got "
+                    + rewards.length);
+        }
+        for (int i = 0; i < bettingAmounts.length; i++) {
+            rewards[i] = price(bettingAmounts[i]);
+        }
+    }
+
+    public CompiledGame getGame() {
+        return game;
+    }
+
+    // Win of a unit bet before bonus symbols, which every reward scales up to rounding
+    public double getBaseMultiplier() {
+        rewardSum.reset();
+        for (int chain = 0; chain < chainCount; chain++) {
+            double reward = chainSymbolMultipliers[chain];
+            for (int i = chainStarts[chain]; i < chainStarts[chain + 1]; i++) {
+                reward *= combinationMultipliers[i];
+            }
+            rewardSum.add(reward);
+        }
+        return rewardSum.total();
+    }
+
+    public double getBonusMultiplier() {
+        return bonusMultiplier;
+    }
+
+    public double getExtraBonus() {
+        return extraBonus;
+    }
+
+    public boolean isWinning() {
+        return chainCount > 0;
+    }
+
+    public Map<String, List<String>> getAppliedWinningCombinations() {
+        Map<String, List<String>> appliedWinningCombinations = new HashMap<>();
+        for (int i = 0; i < appliedCount; i++) {
+            appliedWinningCombinations
+                    .computeIfAbsent(game.symbolName(appliedSymbols[i]), k -> new ArrayList<>())
+                    .add(game.getCombinations()[appliedCombinations[i]].getName());
+        }
+        return appliedWinningCombinations;
+    }
+
+    // Bonus symbols that apply whenever the priced win before bonus symbols is not zero
+    public List<String> getAppliedBonusSymbols() {
+        List<String> names = new ArrayList<>(bonusCount);
+        for (int i = 0; i < bonusCount; i++) {
+            names.add(game.symbolName(bonusSymbols[i]));
+        }
+        return names;
+    }
+}
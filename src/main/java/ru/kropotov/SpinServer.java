@@ -0,0 +1,246 @@
+package ru.kropotov;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.metrics.SpinMetrics;
+import ru.kropotov.model.SpinRequest;
+import ru.kropotov.random.SpinRandom;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * Serves {@code POST /spin} for a game that is compiled ahead of the requests. Every request runs on its
+ * own virtual thread when the runtime supports them, and on a pool sized to the cores otherwise. When
+ * given metrics, the server times every spin and serves them on {@code GET /metrics} in Prometheus text
+ * format.
+ */
+@Slf4j
+public class SpinServer implements AutoCloseable {
+    public static final String SPIN_PATH = "/spin";
+    public static final String METRICS_PATH = "/metrics";
+    // Pending connections the kernel queues while every handler is busy
+    private static final int BACKLOG = 4096;
+    private static final String MAX_IDLE_CONNECTIONS = "sun.net.httpserver.maxIdleConnections";
+
+    private final Supplier<CompiledGame> games;
+    // Evaluator of the game last served, replaced when the supplier publishes another game
+    private final AtomicReference<GameEvaluator> evaluators = new AtomicReference<>();
+    private final SpinMetrics metrics;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ObjectReader requestReader = new ObjectMapper().readerFor(SpinRequest.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public SpinServer(CompiledGame game, int port) throws IOException {
+        this(() -> game, port);
+    }
+
+    public SpinServer(Supplier<CompiledGame> games, int port) throws IOException {
+        this(games, port, null);
+    }
+
+    public SpinServer(Supplier<CompiledGame> games, int port, SpinMetrics metrics) throws IOException {
+        this.games = games;
+        this.metrics = metrics;
+        this.server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        this.executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext(SPIN_PATH, this::handleSpin);
+        if (metrics != null) {
+            server.createContext(METRICS_PATH, this::handleMetrics);
+        }
+    }
+
+    /**
+     * Lets the JDK server keep as many idle kept-alive connections as it queues pending ones, unless
+     * {@code sun.net.httpserver.maxIdleConnections} is already set. The default of 200 makes the server
+     * close connections that clients are about to reuse under load, which fails their next request. The
+     * property is JVM-wide and read once, so this must run before the first server of the JVM is created.
+     */
+    public static void keepIdleConnections() {
+        if (System.getProperty(MAX_IDLE_CONNECTIONS) == null) {
+            System.setProperty(MAX_IDLE_CONNECTIONS, String.valueOf(BACKLOG));
+        }
+    }
+
+    public void start() {
+        server.start();
+        log.info("Spin server listening on port {}", getPort());
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    private void handleSpin(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "Only POST is supported");
+                return;
+            }
+            SpinRequest request;
+            try (InputStream body = exchange.getRequestBody()) {
+                request = requestReader.readValue(body);
+            } catch (IOException e) {
+                sendError(exchange, 400, "Invalid request body");
+                return;
+            }
+            // A body of the JSON literal null reads as no request
+            if (request == null) {
+                sendError(exchange, 400, "Invalid request body");
+                return;
+            }
+            String error = validationError(request);
+            if (error != null) {
+                sendError(exchange, 400, error);
+                return;
+            }
+            send(exchange, 200, spin(request.getBet(), bonusProbability(request), random(request)));
+        } catch (RuntimeException e) {
+            log.error("Error processing spin request", e);
+            sendError(exchange, 500, "Internal error");
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "Only GET is supported");
+                return;
+            }
+            byte[] body = metrics.toPrometheus().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().put("Content-Type", List.of("text/plain; version=0.0.4"));
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    // Returns why the request cannot be spun, or null when it is valid
+    static String validationError(SpinRequest request) {
+        if (request.getBet() == null || request.getBet() < 0) {
+            return "bet must be a non-negative number";
+        }
+        if (request.getBonusPercentage() != null
+                && !(request.getBonusPercentage() >= 0 && request.getBonusPercentage() <= 100)) {
+            return "bonus_percentage must be a number from 0 to 100";
+        }
+        return null;
+    }
+
+    static double bonusProbability(SpinRequest request) {
+        return request.getBonusPercentage() != null
+                ? request.getBonusPercentage() / 100.0 : Main.DEFAULT_BONUS_PERCENTAGE;
+    }
+
+    // A seeded request spins like the first spin of a run with that seed, so it can be replayed
+    static RandomGenerator random(SpinRequest request) {
+        return request.getSeed() != null ? new SpinRandom(request.getSeed()) : ThreadLocalRandom.current();
+    }
+
+    private String spin(int bettingAmount, double bonusPercentage, RandomGenerator random) throws IOException {
+        // The whole spin works on the game taken here, even if a reload publishes a new one meanwhile
+        CompiledGame game = games.get();
+        GameEvaluator evaluator = evaluator(game);
+        Evaluation evaluation = evaluator.takeEvaluation();
+        try {
+            long start = System.nanoTime();
+            MatrixGenerator matrixGenerator = new MatrixGenerator(game, bonusPercentage, random);
+            int[] matrix = matrixGenerator.generateCells();
+            long generated = System.nanoTime();
+            double reward = evaluator.evaluator.evaluate(matrix, bettingAmount, evaluation);
+            long evaluated = System.nanoTime();
+            String result = Main.formatResult(game, matrix, reward, evaluation.getAppliedWinningCombinations(),
+                    evaluation.getAppliedBonusSymbols());
+            if (metrics != null) {
+                metrics.record(SpinMetrics.Phase.GENERATE, generated - start);
+                metrics.record(SpinMetrics.Phase.EVALUATE, evaluated - generated);
+                metrics.record(SpinMetrics.Phase.SERIALIZE, System.nanoTime() - evaluated);
+                metrics.recordSpin(reward);
+            }
+            return result;
+        } finally {
+            evaluator.evaluations.offer(evaluation);
+        }
+    }
+
+    private GameEvaluator evaluator(CompiledGame game) {
+        GameEvaluator current = evaluators.get();
+        if (current != null && current.game == game) {
+            return current;
+        }
+        GameEvaluator published = new GameEvaluator(game);
+        // A request still on the game before a reload must not publish it again
+        if (games.get() == game) {
+            evaluators.compareAndSet(current, published);
+        }
+        return published;
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, objectMapper.writeValueAsString(Map.of("error", message)));
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().put("Content-Type", List.of("application/json"));
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    // Looked up reflectively so that the build keeps targeting Java 17
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            int threads = Runtime.getRuntime().availableProcessors() * 2;
+            log.info("Virtual threads are not available, serving requests from {} threads", threads);
+            return Executors.newFixedThreadPool(threads);
+        }
+    }
+
+    // Evaluator of one published game with the evaluations its requests reuse. Requests may each run on a
+    // virtual thread of their own, so evaluations are pooled rather than kept per thread
+    private static final class GameEvaluator {
+        private final CompiledGame game;
+        private final RewardEvaluator evaluator;
+        private final Queue<Evaluation> evaluations = new ConcurrentLinkedQueue<>();
+
+        private GameEvaluator(CompiledGame game) {
+            this.game = game;
+            this.evaluator = RewardEvaluator.forGame(game);
+        }
+
+        private Evaluation takeEvaluation() {
+            Evaluation evaluation = evaluations.poll();
+            return evaluation != null ? evaluation : evaluator.newEvaluation();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package ru.kropotov;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.model.SweepVariant;
+import ru.kropotov.random.SpinRandom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Simulates several variants of a game's bonus percentage and reward multipliers on common random numbers.
+ * Every spin draws its standard symbols, and for every cell a bonus uniform and bonus symbol, once; each
+ * distinct bonus percentage overlays the bonus symbols whose uniform falls below it, and every variant
+ * evaluates the resulting matrix. An N-variant sweep therefore generates as many matrices as one
+ * simulation, and differences between variants come from the variants rather than from their draws.
+ * <p>
+ * Because the bonus draws no longer depend on the percentage, a variant's spins differ from those of a
+ * {@link Simulator} run with the same seed, though they follow the same distribution.
+ */
+@Slf4j
+public class SweepSimulator {
+    private final CompiledGame game;
+    private final List<SweepVariant> variants;
+    private final CompiledGame[] variantGames;
+    private final RewardEvaluator[] evaluators;
+    // Distinct bonus percentages, and the one each variant spins with
+    private final double[] bonusPercentages;
+    private final int[] variantBonus;
+    private final int bettingAmount;
+    private final long seed;
+
+    public SweepSimulator(CompiledGame game, List<SweepVariant> variants, double bonusPercentage, int bettingAmount,
+                          long seed) {
+        if (variants.isEmpty()) {
+            throw new IllegalArgumentException("Sweep needs at least one variant");
+        }
+        this.game = game;
+        this.variants = List.copyOf(variants);
+        this.variantGames = new CompiledGame[variants.size()];
+        this.evaluators = new RewardEvaluator[variants.size()];
+        this.variantBonus = new int[variants.size()];
+        List<Double> percentages = new ArrayList<>();
+        for (int i = 0; i < variants.size(); i++) {
+            SweepVariant variant = variants.get(i);
+            variantGames[i] = game.withRewardMultipliers(
+                    variant.getSymbolMultipliers() != null ? variant.getSymbolMultipliers() : Collections.emptyMap(),
+                    variant.getCombinationMultipliers() != null
+                            ? variant.getCombinationMultipliers() : Collections.emptyMap());
+            evaluators[i] = RewardEvaluator.forGame(variantGames[i]);
+            double percentage = variant.getBonusPercentage() != null
+                    ? variant.getBonusPercentage() / 100.0 : bonusPercentage;
+            if (!(percentage >= 0 && percentage <= 1)) {
+                throw new IllegalArgumentException("Bonus percentage of variant " + name(i)
+                        + " must be from 0 to 100: " + variant.getBonusPercentage());
+            }
+            if (!percentages.contains(percentage)) {
+                percentages.add(percentage);
+            }
+            variantBonus[i] = percentages.indexOf(percentage);
+        }
+        this.bonusPercentages = percentages.stream().mapToDouble(Double::doubleValue).toArray();
+        this.bettingAmount = bettingAmount;
+        this.seed = seed;
+    }
+
+    public List<SweepVariant> getVariants() {
+        return variants;
+    }
+
+    // Name of the variant in reports, its position when it has none
+    public String name(int variant) {
+        String name = variants.get(variant).getName();
+        return name != null ? name : "variant_" + variant;
+    }
+
+    /**
+     * Runs the given number of spins and returns a result per variant, in the order of the variants.
+     */
+    public List<SimulationResult> run(long spins) {
+        if (spins <= 0) {
+            throw new IllegalArgumentException("Number of spins must be positive: " + spins);
+        }
+        long chunks = (spins + Simulator.CHUNK_SIZE - 1) / Simulator.CHUNK_SIZE;
+        if (chunks > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many spins: " + spins);
+        }
+        long start = System.nanoTime();
+        SimulationResult[][] partials = IntStream.range(0, (int) chunks)
+                .parallel()
+                .mapToObj(chunk -> runChunk(chunk * (long) Simulator.CHUNK_SIZE,
+                        Math.min(spins, (chunk + 1L) * Simulator.CHUNK_SIZE)))
+                .toArray(SimulationResult[][]::new);
+
+        // Merge in chunk order so that the totals do not depend on how the chunks were scheduled
+        List<SimulationResult> results = new ArrayList<>();
+        for (int variant = 0; variant < variantGames.length; variant++) {
+            SimulationResult result = new SimulationResult(variantGames[variant]);
+            for (SimulationResult[] partial : partials) {
+                result.merge(partial[variant]);
+            }
+            results.add(result);
+        }
+        log.debug("Swept {} variants over {} spins in {} ms", variantGames.length, spins,
+                (System.nanoTime() - start) / 1_000_000);
+        return results;
+    }
+
+    private SimulationResult[] runChunk(long firstSpin, long lastSpin) {
+        SpinRandom random = new SpinRandom(seed);
+        MatrixGenerator matrixGenerator = new MatrixGenerator(game, 0, random);
+        int cellCount = game.getCellCount();
+        int[] cells = new int[cellCount];
+        double[] bonusUniforms = new double[cellCount];
+        int[] bonusCells = new int[cellCount];
+        int[] matrix = new int[cellCount];
+        SimulationResult[] results = new SimulationResult[variantGames.length];
+        Evaluation[] evaluations = new Evaluation[variantGames.length];
+        for (int variant = 0; variant < variantGames.length; variant++) {
+            results[variant] = new SimulationResult(variantGames[variant]);
+            evaluations[variant] = evaluators[variant].newEvaluation();
+        }
+        for (long spin = firstSpin; spin < lastSpin; spin++) {
+            random.startSpin(spin);
+            matrixGenerator.generateDraws(cells, bonusUniforms, bonusCells);
+            for (int bonus = 0; bonus < bonusPercentages.length; bonus++) {
+                double bonusPercentage = bonusPercentages[bonus];
+                for (int cell = 0; cell < cellCount; cell++) {
+                    matrix[cell] = bonusUniforms[cell] < bonusPercentage ? bonusCells[cell] : cells[cell];
+                }
+                for (int variant = 0; variant < variantGames.length; variant++) {
+                    if (variantBonus[variant] == bonus) {
+                        evaluators[variant].evaluate(matrix, bettingAmount, evaluations[variant]);
+                        results[variant].record(bettingAmount, evaluations[variant]);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+}
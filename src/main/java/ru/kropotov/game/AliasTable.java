@@ -0,0 +1,161 @@
+package ru.kropotov.game;
+
+import ru.kropotov.random.Divisor;
+import ru.kropotov.random.SpinLanes;
+import ru.kropotov.random.SpinRandom;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.random.RandomGenerator;
+
+/**
+ * Vose alias table over integer weights. Every column holds {@code totalWeight} slots split between
+ * the column itself and its alias, so a single {@code nextInt(size * totalWeight)} picks an index with
+ * exactly the configured probability.
+ */
+public final class AliasTable {
+    private final int size;
+    private final int totalWeight;
+    private final int bound;
+    private final int[] threshold;
+    private final int[] alias;
+    private final int[] weights;
+    // Divisions by the bound and the total weight, done by multiplication
+    private final Divisor boundDivisor;
+    private final Divisor columnDivisor;
+
+    private AliasTable(int size, int totalWeight, int[] threshold, int[] alias, int[] weights) {
+        this.size = size;
+        this.totalWeight = totalWeight;
+        this.bound = size * totalWeight;
+        this.boundDivisor = new Divisor(bound);
+        this.columnDivisor = new Divisor(totalWeight);
+        this.threshold = threshold;
+        this.alias = alias;
+        this.weights = weights;
+    }
+
+    public static AliasTable of(int[] weights) {
+        int size = weights.length;
+        if (size == 0) {
+            throw new IllegalArgumentException("Alias table requires at least one weight");
+        }
+        long total = 0;
+        for (int weight : weights) {
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weights must not be negative: " + weight);
+            }
+            total += weight;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("At least one weight must be positive");
+        }
+        if (total * size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Weights are too large: total " + total + " for " + size + " symbols");
+        }
+        int totalWeight = (int) total;
+
+        // Scale every weight by the number of columns so that each column is filled by exactly totalWeight
+        int[] scaled = new int[size];
+        int[] small = new int[size];
+        int[] large = new int[size];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < size; i++) {
+            scaled[i] = weights[i] * size;
+            if (scaled[i] < totalWeight) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+
+        int[] threshold = new int[size];
+        int[] alias = new int[size];
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            threshold[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] -= totalWeight - scaled[less];
+            if (scaled[more] < totalWeight) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        while (largeCount > 0) {
+            int index = large[--largeCount];
+            threshold[index] = totalWeight;
+            alias[index] = index;
+        }
+        while (smallCount > 0) {
+            int index = small[--smallCount];
+            threshold[index] = totalWeight;
+            alias[index] = index;
+        }
+        return new AliasTable(size, totalWeight, threshold, alias, weights.clone());
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeInt(size);
+        out.writeInt(totalWeight);
+        for (int i = 0; i < size; i++) {
+            out.writeInt(threshold[i]);
+            out.writeInt(alias[i]);
+            out.writeInt(weights[i]);
+        }
+    }
+
+    // Reads a table written by write, which is not built again
+    static AliasTable read(DataInput in) throws IOException {
+        int size = in.readInt();
+        int totalWeight = in.readInt();
+        if (size <= 0 || totalWeight <= 0 || (long) size * totalWeight > Integer.MAX_VALUE) {
+            throw new IOException("Invalid alias table of " + size + " columns and total weight " + totalWeight);
+        }
+        int[] threshold = new int[size];
+        int[] alias = new int[size];
+        int[] weights = new int[size];
+        for (int i = 0; i < size; i++) {
+            threshold[i] = in.readInt();
+            alias[i] = in.readInt();
+            weights[i] = in.readInt();
+            if (alias[i] < 0 || alias[i] >= size) {
+                throw new IOException("Invalid alias table column " + alias[i] + " of " + size);
+            }
+        }
+        return new AliasTable(size, totalWeight, threshold, alias, weights);
+    }
+
+    public int sample(RandomGenerator random) {
+        if (random instanceof SpinRandom) {
+            return sample((SpinRandom) random);
+        }
+        return column(random.nextInt(bound));
+    }
+
+    // Draws the same index as sample(RandomGenerator), without dividing
+    public int sample(SpinRandom random) {
+        return column(random.nextInt(boundDivisor));
+    }
+
+    // Draws from one lane what sample(SpinRandom) draws from the stream of that spin
+    public int sample(SpinLanes lanes, int lane) {
+        return column(lanes.nextInt(lane, boundDivisor));
+    }
+
+    private int column(int slot) {
+        int column = columnDivisor.divide(slot);
+        return slot - column * totalWeight < threshold[column] ? column : alias[column];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double probability(int index) {
+        return (double) weights[index] / totalWeight;
+    }
+}
@@ -0,0 +1,18 @@
+package ru.kropotov.game;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.kropotov.model.enums.When;
+
+@Getter
+@AllArgsConstructor
+public final class CompiledCombination {
+    private final int id;
+    private final String name;
+    private final double rewardMultiplier;
+    private final When when;
+    private final int count;
+    private final String group;
+    // Row-major cell offsets of every covered area
+    private final int[][] coveredAreas;
+}
@@ -0,0 +1,413 @@
+package ru.kropotov.game;
+
+import lombok.Getter;
+import ru.kropotov.model.RequestConfig;
+import ru.kropotov.model.StandardSymbol;
+import ru.kropotov.model.Symbol;
+import ru.kropotov.model.WinCombination;
+import ru.kropotov.model.enums.Impact;
+import ru.kropotov.model.enums.Type;
+import ru.kropotov.model.enums.When;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable form of {@link RequestConfig} in which every symbol is interned to a small int id.
+ * Matrices are flat {@code int[rows * columns]} arrays of symbol ids in row-major order.
+ */
+@Getter
+public final class CompiledGame {
+    public static final int NO_SYMBOL = -1;
+
+    private final int rows;
+    private final int columns;
+    private final int cellCount;
+    private final String[] symbolNames;
+    private final boolean[] standardSymbols;
+    private final boolean[] bonusSymbols;
+    // NaN when the symbol has no reward multiplier
+    private final double[] rewardMultipliers;
+    private final Impact[] impacts;
+    private final int[] extras;
+    private final AliasTable[] cellTables;
+    private final int[][] cellSymbols;
+    private final AliasTable bonusTable;
+    private final int[] bonusTableSymbols;
+    private final CompiledCombination[] combinations;
+    // same_symbols combinations paying for each count of one symbol, at most one per group, in config order
+    private final CompiledCombination[][] sameSymbolCombinations;
+    private final Map<String, Integer> symbolIds;
+    // Symbols with a reward multiplier in the order a HashMap of their names iterates with 16, 32... buckets,
+    // the order in which RewardCalculator summed symbol rewards
+    private final int[][] rewardSumOrders;
+
+    // Also restores games from snapshots, which hold exactly these fields
+    CompiledGame(int rows, int columns, String[] symbolNames, boolean[] standardSymbols, boolean[] bonusSymbols,
+                 double[] rewardMultipliers, Impact[] impacts, int[] extras, AliasTable[] cellTables,
+                 int[][] cellSymbols, AliasTable bonusTable, int[] bonusTableSymbols,
+                 CompiledCombination[] combinations) {
+        this.rows = rows;
+        this.columns = columns;
+        this.cellCount = rows * columns;
+        this.symbolNames = symbolNames;
+        Map<String, Integer> ids = new HashMap<>();
+        for (int id = 0; id < symbolNames.length; id++) {
+            ids.put(symbolNames[id], id);
+        }
+        this.symbolIds = Collections.unmodifiableMap(ids);
+        this.standardSymbols = standardSymbols;
+        this.bonusSymbols = bonusSymbols;
+        this.rewardMultipliers = rewardMultipliers;
+        this.impacts = impacts;
+        this.extras = extras;
+        this.cellTables = cellTables;
+        this.cellSymbols = cellSymbols;
+        this.bonusTable = bonusTable;
+        this.bonusTableSymbols = bonusTableSymbols;
+        this.combinations = combinations;
+        this.sameSymbolCombinations = new CompiledCombination[cellCount + 1][];
+        for (int count = 0; count <= cellCount; count++) {
+            int sameCount = count;
+            sameSymbolCombinations[count] = Arrays.stream(combinations)
+                    .filter(combination -> When.SAME_SYMBOLS.equals(combination.getWhen())
+                            && combination.getCount() == sameCount && sameCount > 0)
+                    .toArray(CompiledCombination[]::new);
+        }
+        this.rewardSumOrders = rewardSumOrders(symbolNames, rewardMultipliers);
+    }
+
+    private static int[][] rewardSumOrders(String[] symbolNames, double[] rewardMultipliers) {
+        List<Integer> paying = new ArrayList<>();
+        for (int id = 0; id < symbolNames.length; id++) {
+            if (!Double.isNaN(rewardMultipliers[id])) {
+                paying.add(id);
+            }
+        }
+        // A HashMap grows to twice the buckets once it holds more than three quarters of them, and iterates
+        // bucket by bucket; symbols sharing a bucket are taken in id order
+        List<int[]> orders = new ArrayList<>();
+        for (int buckets = 16; ; buckets *= 2) {
+            int mask = buckets - 1;
+            orders.add(paying.stream()
+                    .sorted(Comparator.comparingInt(id -> bucketHash(symbolNames[id]) & mask))
+                    .mapToInt(Integer::intValue)
+                    .toArray());
+            if (paying.size() <= buckets / 4 * 3) {
+                return orders.toArray(new int[0][]);
+            }
+        }
+    }
+
+    private static int bucketHash(String name) {
+        int h = name.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    public static CompiledGame compile(RequestConfig config) {
+        return compile(config, config.getRows(), config.getColumns());
+    }
+
+    public static CompiledGame compile(RequestConfig config, int rows, int columns) {
+        if (rows <= 0 || columns <= 0) {
+            throw new IllegalArgumentException("Matrix size must be positive: " + rows + "x" + columns);
+        }
+        if (config.getSymbols() == null || config.getProbabilities() == null
+                || config.getProbabilities().getStandardSymbols() == null
+                || config.getProbabilities().getBonusSymbols() == null
+                || config.getProbabilities().getBonusSymbols().getSymbols() == null) {
+            throw new IllegalArgumentException("Config must define symbols and their probabilities");
+        }
+        Builder builder = new Builder(config, rows, columns);
+        builder.internSymbols();
+        builder.compileCellTables();
+        builder.compileBonusTable();
+        builder.compileCombinations();
+        return builder.build();
+    }
+
+    public int symbolCount() {
+        return symbolNames.length;
+    }
+
+    public int symbolId(String name) {
+        Integer id = symbolIds.get(name);
+        if (id == null) {
+            throw new IllegalArgumentException("Unknown symbol: " + name);
+        }
+        return id;
+    }
+
+    public String symbolName(int id) {
+        return symbolNames[id];
+    }
+
+    public boolean isStandard(int id) {
+        return standardSymbols[id];
+    }
+
+    public boolean isBonus(int id) {
+        return bonusSymbols[id];
+    }
+
+    public double rewardMultiplier(int id) {
+        return rewardMultipliers[id];
+    }
+
+    /**
+     * Order in which the rewards of the given number of rewarded symbols are summed.
+     */
+    public int[] rewardSumOrder(int rewardedCount) {
+        int table = 0;
+        while (table + 1 < rewardSumOrders.length && rewardedCount > 12 << table) {
+            table++;
+        }
+        return rewardSumOrders[table];
+    }
+
+    /**
+     * Same game with the reward multipliers of the given symbols and win combinations, by name, replaced.
+     * Symbol ids, probabilities and covered areas stay the same, so matrices of this game are matrices of
+     * the returned one.
+     */
+    public CompiledGame withRewardMultipliers(Map<String, Double> symbolMultipliers,
+                                              Map<String, Double> combinationMultipliers) {
+        double[] multipliers = rewardMultipliers.clone();
+        for (Map.Entry<String, Double> entry : symbolMultipliers.entrySet()) {
+            multipliers[symbolId(entry.getKey())] = checkMultiplier(entry.getKey(), entry.getValue());
+        }
+        Map<String, Double> remaining = new HashMap<>(combinationMultipliers);
+        CompiledCombination[] replaced = new CompiledCombination[combinations.length];
+        for (int i = 0; i < combinations.length; i++) {
+            CompiledCombination combination = combinations[i];
+            Double multiplier = remaining.remove(combination.getName());
+            replaced[i] = multiplier == null ? combination : new CompiledCombination(combination.getId(),
+                    combination.getName(), checkMultiplier(combination.getName(), multiplier), combination.getWhen(),
+                    combination.getCount(), combination.getGroup(), combination.getCoveredAreas());
+        }
+        if (!remaining.isEmpty()) {
+            throw new IllegalArgumentException("Unknown win combinations: " + remaining.keySet());
+        }
+        return new CompiledGame(rows, columns, symbolNames, standardSymbols, bonusSymbols, multipliers, impacts,
+                extras, cellTables, cellSymbols, bonusTable, bonusTableSymbols, replaced);
+    }
+
+    private static double checkMultiplier(String name, Double multiplier) {
+        if (multiplier == null || !Double.isFinite(multiplier)) {
+            throw new IllegalArgumentException("Reward multiplier of " + name + " must be a finite number: "
+                    + multiplier);
+        }
+        return multiplier;
+    }
+
+    public int[] encode(String[][] matrix) {
+        if (matrix.length != rows) {
+            throw new IllegalArgumentException("Expected " + rows + " rows but got " + matrix.length);
+        }
+        int[] cells = new int[cellCount];
+        for (int row = 0; row < rows; row++) {
+            if (matrix[row].length != columns) {
+                throw new IllegalArgumentException("Expected " + columns + " columns but got " + matrix[row].length);
+            }
+            for (int col = 0; col < columns; col++) {
+                cells[row * columns + col] = symbolId(matrix[row][col]);
+            }
+        }
+        return cells;
+    }
+
+    public String[][] decode(int[] cells) {
+        String[][] matrix = new String[rows][columns];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++) {
+                matrix[row][col] = symbolNames[cells[row * columns + col]];
+            }
+        }
+        return matrix;
+    }
+
+    private static final class Builder {
+        private static final Pattern POSITION = Pattern.compile("\\s*(\\d{1,9})\\s*:\\s*(\\d{1,9})\\s*");
+
+        private final RequestConfig config;
+        private final int rows;
+        private final int columns;
+        private final Map<String, Symbol> symbols;
+        private final List<String> names = new ArrayList<>();
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<CompiledCombination> combinations = new ArrayList<>();
+        private AliasTable[] cellTables;
+        private int[][] cellSymbols;
+        private AliasTable bonusTable;
+        private int[] bonusTableSymbols;
+
+        private Builder(RequestConfig config, int rows, int columns) {
+            this.config = config;
+            this.rows = rows;
+            this.columns = columns;
+            this.symbols = config.getSymbols();
+        }
+
+        private void internSymbols() {
+            symbols.keySet().forEach(this::intern);
+            config.getProbabilities().getStandardSymbols().forEach(ss -> ss.getSymbols().keySet().forEach(this::intern));
+            config.getProbabilities().getBonusSymbols().getSymbols().keySet().forEach(this::intern);
+            symbols.forEach((name, symbol) -> {
+                if (Type.BONUS.equals(symbol.getType())) {
+                    if (symbol.getImpact() == null) {
+                        throw new IllegalArgumentException("Bonus symbol " + name + " has no impact");
+                    }
+                    if (Impact.EXTRA_BONUS.equals(symbol.getImpact()) && symbol.getExtra() == null) {
+                        throw new IllegalArgumentException("Bonus symbol " + name + " has no extra amount");
+                    }
+                }
+            });
+        }
+
+        private CompiledGame build() {
+            String[] symbolNames = names.toArray(new String[0]);
+            int symbolCount = symbolNames.length;
+            boolean[] standardSymbols = new boolean[symbolCount];
+            boolean[] bonusSymbols = new boolean[symbolCount];
+            double[] rewardMultipliers = new double[symbolCount];
+            Impact[] impacts = new Impact[symbolCount];
+            int[] extras = new int[symbolCount];
+            for (int id = 0; id < symbolCount; id++) {
+                Symbol symbol = symbols.get(symbolNames[id]);
+                rewardMultipliers[id] = symbol != null && symbol.getRewardMultiplier() != null
+                        ? symbol.getRewardMultiplier() : Double.NaN;
+                if (symbol != null) {
+                    standardSymbols[id] = Type.STANDARD.equals(symbol.getType());
+                    bonusSymbols[id] = Type.BONUS.equals(symbol.getType());
+                    impacts[id] = symbol.getImpact();
+                    extras[id] = symbol.getExtra() != null ? symbol.getExtra() : 0;
+                }
+            }
+            return new CompiledGame(rows, columns, symbolNames, standardSymbols, bonusSymbols, rewardMultipliers,
+                    impacts, extras, cellTables, cellSymbols, bonusTable, bonusTableSymbols,
+                    combinations.toArray(new CompiledCombination[0]));
+        }
+
+        private int intern(String name) {
+            return ids.computeIfAbsent(name, k -> {
+                names.add(k);
+                return names.size() - 1;
+            });
+        }
+
+        private void compileCellTables() {
+            int cellCount = rows * columns;
+            cellTables = new AliasTable[cellCount];
+            cellSymbols = new int[cellCount][];
+            for (StandardSymbol ss : config.getProbabilities().getStandardSymbols()) {
+                if (ss.getRow() >= 0 && ss.getRow() < rows && ss.getColumn() >= 0 && ss.getColumn() < columns) {
+                    int cell = ss.getRow() * columns + ss.getColumn();
+                    cellSymbols[cell] = symbolIds(ss.getSymbols());
+                    cellTables[cell] = aliasTable(ss.getSymbols());
+                }
+            }
+            if (cellTables[0] == null) {
+                throw new IllegalArgumentException("No standard symbol probabilities for cell 0:0");
+            }
+
+            // Cells without their own probabilities use the distribution of cell 0:0
+            for (int cell = 1; cell < cellCount; cell++) {
+                if (cellTables[cell] == null) {
+                    cellSymbols[cell] = cellSymbols[0];
+                    cellTables[cell] = cellTables[0];
+                }
+            }
+        }
+
+        private void compileBonusTable() {
+            Map<String, Integer> bonusWeights = config.getProbabilities().getBonusSymbols().getSymbols();
+            bonusTableSymbols = symbolIds(bonusWeights);
+            bonusTable = aliasTable(bonusWeights);
+        }
+
+        private void compileCombinations() {
+            if (config.getWinCombinations() == null) {
+                return;
+            }
+            config.getWinCombinations().forEach((name, combination) -> {
+                if (combination.getWhen() == null) {
+                    return;
+                }
+                if (combination.getRewardMultiplier() == null) {
+                    throw new IllegalArgumentException("Win combination " + name + " has no reward multiplier");
+                }
+                if (When.SAME_SYMBOLS.equals(combination.getWhen()) && combination.getCount() == null) {
+                    throw new IllegalArgumentException("Win combination " + name + " has no count");
+                }
+                if (When.LINEAR_SYMBOLS.equals(combination.getWhen()) && combination.getCoveredAreas() == null) {
+                    throw new IllegalArgumentException("Win combination " + name + " has no covered areas");
+                }
+                combinations.add(compileCombination(combinations.size(), name, combination));
+            });
+            validateSameSymbolCounts();
+        }
+
+        // A symbol count must not pay twice within one group, as such tiers overlap instead of replacing each other
+        private void validateSameSymbolCounts() {
+            Map<String, Map<Integer, String>> countsByGroup = new HashMap<>();
+            for (CompiledCombination combination : combinations) {
+                if (When.SAME_SYMBOLS.equals(combination.getWhen())) {
+                    String other = countsByGroup.computeIfAbsent(combination.getGroup(), k -> new HashMap<>())
+                            .putIfAbsent(combination.getCount(), combination.getName());
+                    if (other != null) {
+                        throw new IllegalArgumentException("Win combinations " + other + " and "
+                                + combination.getName() + " of group " + combination.getGroup()
+                                + " both pay for " + combination.getCount() + " same symbols");
+                    }
+                }
+            }
+        }
+
+        private CompiledCombination compileCombination(int id, String name, WinCombination combination) {
+            int[][] coveredAreas = new int[0][];
+            if (When.LINEAR_SYMBOLS.equals(combination.getWhen())) {
+                coveredAreas = combination.getCoveredAreas().stream()
+                        .map(area -> compileCoveredArea(name, area))
+                        .toArray(int[][]::new);
+            }
+            return new CompiledCombination(id, name, combination.getRewardMultiplier(), combination.getWhen(),
+                    combination.getCount() != null ? combination.getCount() : 0, combination.getGroup(),
+                    coveredAreas);
+        }
+
+        private int[] compileCoveredArea(String name, List<String> area) {
+            if (area == null) {
+                throw new IllegalArgumentException("Win combination " + name + " has an empty covered area");
+            }
+            int[] cells = new int[area.size()];
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = compilePosition(name, area.get(i));
+            }
+            return cells;
+        }
+
+        private int compilePosition(String name, String position) {
+            Matcher matcher = POSITION.matcher(position == null ? "" : position);
+            if (!matcher.matches()) {
+                throw new IllegalArgumentException("Win combination " + name + " has invalid position '"
+                        + position + "', expected row:column");
+            }
+            long row = Long.parseLong(matcher.group(1));
+            long col = Long.parseLong(matcher.group(2));
+            if (row >= rows || col >= columns) {
+                throw new IllegalArgumentException("Win combination " + name + " position " + position
+                        + " is outside of the " + rows + "x" + columns + " matrix");
+            }
+            return (int) row * columns + (int) col;
+        }
+
+        private int[] symbolIds(Map<String, Integer> weights) {
+            return weights.keySet().stream().mapToInt(ids::get).toArray();
+        }
+
+        private static AliasTable aliasTable(Map<String, Integer> weights) {
+            return AliasTable.of(weights.values().stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
+}
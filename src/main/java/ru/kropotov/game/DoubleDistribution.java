@@ -0,0 +1,119 @@
+package ru.kropotov.game;
+
+import java.util.Arrays;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Open-addressing map from a value to its accumulated probability, used to build discrete
+ * distributions without boxing every update.
+ */
+public final class DoubleDistribution {
+    private static final long EMPTY = Double.doubleToRawLongBits(Double.NaN) ^ 1L;
+
+    private long[] keys;
+    private double[] probabilities;
+    private int size;
+
+    public DoubleDistribution() {
+        this(16);
+    }
+
+    public DoubleDistribution(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        keys = new long[capacity];
+        probabilities = new double[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    public void add(double value, double probability) {
+        // +0.0 and -0.0 are the same payout
+        long key = Double.doubleToLongBits(value == 0 ? 0.0 : value);
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                probabilities[slot] += probability;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        probabilities[slot] = probability;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    public void addAll(DoubleDistribution other, double weight) {
+        for (int slot = 0; slot < other.keys.length; slot++) {
+            if (other.keys[slot] != EMPTY) {
+                add(Double.longBitsToDouble(other.keys[slot]), other.probabilities[slot] * weight);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public double[] values() {
+        double[] values = new double[size];
+        int index = 0;
+        for (long key : keys) {
+            if (key != EMPTY) {
+                values[index++] = Double.longBitsToDouble(key);
+            }
+        }
+        return values;
+    }
+
+    public double[] probabilities() {
+        double[] result = new double[size];
+        int index = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                result[index++] = probabilities[slot];
+            }
+        }
+        return result;
+    }
+
+    public SortedMap<Double, Double> toSortedMap() {
+        SortedMap<Double, Double> map = new TreeMap<>();
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                map.put(Double.longBitsToDouble(keys[slot]), probabilities[slot]);
+            }
+        }
+        return map;
+    }
+
+    // Approximate heap footprint of the two backing arrays
+    public long memoryBytes() {
+        return (long) keys.length * (Long.BYTES + Double.BYTES);
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        double[] oldProbabilities = probabilities;
+        keys = new long[oldKeys.length * 2];
+        probabilities = new double[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != EMPTY) {
+                add(Double.longBitsToDouble(oldKeys[slot]), oldProbabilities[slot]);
+            }
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9e3779b97f4a7c15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,195 @@
+package ru.kropotov.game;
+
+import lombok.Getter;
+import ru.kropotov.model.enums.Impact;
+import ru.kropotov.model.enums.When;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary snapshot of a {@link CompiledGame} with every table already built, together with the hash of
+ * the config it was compiled from. Reading one is plain stream decoding, without the JSON binding and
+ * validation of the config, so short-lived runs reach their first spin sooner.
+ */
+@Getter
+public final class GameSnapshot {
+    private static final int MAGIC = 0x534C5447;
+    private static final int VERSION = 1;
+    private static final int HASH_BYTES = 32;
+    private static final int STANDARD = 1;
+    private static final int BONUS = 2;
+
+    private final CompiledGame game;
+    private final byte[] configHash;
+
+    public GameSnapshot(CompiledGame game, byte[] configHash) {
+        if (configHash.length != HASH_BYTES) {
+            throw new IllegalArgumentException("Config hash must have " + HASH_BYTES + " bytes: " + configHash.length);
+        }
+        this.game = game;
+        this.configHash = configHash;
+    }
+
+    public void write(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.write(configHash);
+            out.writeInt(game.getRows());
+            out.writeInt(game.getColumns());
+
+            out.writeInt(game.symbolCount());
+            for (int symbol = 0; symbol < game.symbolCount(); symbol++) {
+                out.writeUTF(game.symbolName(symbol));
+                out.writeByte((game.isStandard(symbol) ? STANDARD : 0) | (game.isBonus(symbol) ? BONUS : 0));
+                Impact impact = game.getImpacts()[symbol];
+                out.writeByte(impact != null ? impact.ordinal() : -1);
+                out.writeDouble(game.rewardMultiplier(symbol));
+                out.writeInt(game.getExtras()[symbol]);
+            }
+
+            // Cells without their own probabilities share one table, which is written once
+            Map<AliasTable, Integer> tableIds = new IdentityHashMap<>();
+            List<Integer> tableCells = new ArrayList<>();
+            int[] cellTableIds = new int[game.getCellCount()];
+            for (int cell = 0; cell < cellTableIds.length; cell++) {
+                int cellNumber = cell;
+                cellTableIds[cell] = tableIds.computeIfAbsent(game.getCellTables()[cell], table -> {
+                    tableCells.add(cellNumber);
+                    return tableIds.size();
+                });
+            }
+            out.writeInt(tableCells.size());
+            for (int cell : tableCells) {
+                writeInts(out, game.getCellSymbols()[cell]);
+                game.getCellTables()[cell].write(out);
+            }
+            for (int tableId : cellTableIds) {
+                out.writeInt(tableId);
+            }
+            writeInts(out, game.getBonusTableSymbols());
+            game.getBonusTable().write(out);
+
+            out.writeInt(game.getCombinations().length);
+            for (CompiledCombination combination : game.getCombinations()) {
+                out.writeUTF(combination.getName());
+                out.writeDouble(combination.getRewardMultiplier());
+                out.writeByte(combination.getWhen().ordinal());
+                out.writeInt(combination.getCount());
+                out.writeBoolean(combination.getGroup() != null);
+                if (combination.getGroup() != null) {
+                    out.writeUTF(combination.getGroup());
+                }
+                out.writeInt(combination.getCoveredAreas().length);
+                for (int[] area : combination.getCoveredAreas()) {
+                    writeInts(out, area);
+                }
+            }
+        }
+    }
+
+    public static GameSnapshot read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a game snapshot: " + path);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported game snapshot version " + version + ": " + path);
+            }
+            byte[] configHash = in.readNBytes(HASH_BYTES);
+            int rows = in.readInt();
+            int columns = in.readInt();
+            if (rows <= 0 || columns <= 0 || (long) rows * columns > Integer.MAX_VALUE) {
+                throw new IOException("Invalid matrix size " + rows + "x" + columns + ": " + path);
+            }
+
+            int symbolCount = in.readInt();
+            String[] names = new String[symbolCount];
+            boolean[] standard = new boolean[symbolCount];
+            boolean[] bonus = new boolean[symbolCount];
+            Impact[] impacts = new Impact[symbolCount];
+            double[] multipliers = new double[symbolCount];
+            int[] extras = new int[symbolCount];
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                names[symbol] = in.readUTF();
+                int kind = in.readByte();
+                standard[symbol] = (kind & STANDARD) != 0;
+                bonus[symbol] = (kind & BONUS) != 0;
+                int impact = in.readByte();
+                impacts[symbol] = impact >= 0 ? Impact.values()[impact] : null;
+                multipliers[symbol] = in.readDouble();
+                extras[symbol] = in.readInt();
+            }
+
+            AliasTable[] tables = new AliasTable[in.readInt()];
+            int[][] tableSymbols = new int[tables.length][];
+            for (int table = 0; table < tables.length; table++) {
+                tableSymbols[table] = readIds(in, symbolCount);
+                tables[table] = AliasTable.read(in);
+                if (tables[table].size() != tableSymbols[table].length) {
+                    throw new IOException("Probability table " + table + " does not match its symbols");
+                }
+            }
+            AliasTable[] cellTables = new AliasTable[rows * columns];
+            int[][] cellSymbols = new int[cellTables.length][];
+            for (int cell = 0; cell < cellTables.length; cell++) {
+                int table = in.readInt();
+                if (table < 0 || table >= tables.length) {
+                    throw new IOException("Invalid probability table " + table + " of " + tables.length);
+                }
+                cellTables[cell] = tables[table];
+                cellSymbols[cell] = tableSymbols[table];
+            }
+            int[] bonusTableSymbols = readIds(in, symbolCount);
+            AliasTable bonusTable = AliasTable.read(in);
+
+            CompiledCombination[] combinations = new CompiledCombination[in.readInt()];
+            for (int id = 0; id < combinations.length; id++) {
+                String name = in.readUTF();
+                double rewardMultiplier = in.readDouble();
+                When when = When.values()[in.readByte()];
+                int count = in.readInt();
+                String group = in.readBoolean() ? in.readUTF() : null;
+                int[][] areas = new int[in.readInt()][];
+                for (int area = 0; area < areas.length; area++) {
+                    areas[area] = readIds(in, cellTables.length);
+                }
+                combinations[id] = new CompiledCombination(id, name, rewardMultiplier, when, count, group, areas);
+            }
+            return new GameSnapshot(new CompiledGame(rows, columns, names, standard, bonus, multipliers, impacts,
+                    extras, cellTables, cellSymbols, bonusTable, bonusTableSymbols, combinations), configHash);
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt game snapshot: " + path, e);
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    // Reads symbol ids or cell offsets, all of which must be below the given bound
+    private static int[] readIds(DataInputStream in, int bound) throws IOException {
+        int[] ids = new int[in.readInt()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = in.readInt();
+            if (ids[i] < 0 || ids[i] >= bound) {
+                throw new IOException("Invalid id " + ids[i] + " of " + bound);
+            }
+        }
+        return ids;
+    }
+}
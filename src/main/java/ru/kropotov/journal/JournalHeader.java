@@ -0,0 +1,252 @@
+package ru.kropotov.journal;
+
+import lombok.Getter;
+import ru.kropotov.game.CompiledCombination;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.model.enums.Impact;
+import ru.kropotov.model.enums.When;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Header opening every journal segment: the hash of the config the spins were made with and the symbol
+ * and combination dictionaries, so that a journal renders its records without the config. It also fixes
+ * the layout of the records that follow:
+ * <pre>
+ * seed long | spin index long | reward double | bet int | flags byte | cells | applied combinations
+ * </pre>
+ * Cells are symbol ids packed into the fewest bits that hold every id, and applied combinations are a
+ * bitset with one bit per symbol and combination.
+ */
+@Getter
+public final class JournalHeader {
+    static final int MAGIC = 0x534A524E;
+    static final int VERSION = 1;
+    static final int HASH_BYTES = 32;
+
+    // Offsets of the fixed part of the header
+    static final int HEADER_SIZE_OFFSET = 8;
+    static final int RECORD_SIZE_OFFSET = 12;
+    static final int RECORD_COUNT_OFFSET = 16;
+    static final int DICTIONARY_OFFSET = 24;
+
+    // Offsets within a record
+    static final int SEED = 0;
+    static final int SPIN_INDEX = 8;
+    static final int REWARD = 16;
+    static final int BET = 24;
+    static final int FLAGS = 28;
+    static final int CELLS = 29;
+
+    static final int BONUS_APPLIED = 1;
+
+    private static final int STANDARD = 1;
+    private static final int BONUS = 2;
+
+    private final byte[] configHash;
+    private final int rows;
+    private final int columns;
+    private final int cellCount;
+    private final String[] symbolNames;
+    private final boolean[] standardSymbols;
+    private final boolean[] bonusSymbols;
+    // Impacts are null and multipliers NaN where the symbol has none
+    private final Impact[] impacts;
+    private final double[] rewardMultipliers;
+    private final int[] extras;
+    private final String[] combinationNames;
+    private final When[] combinationWhens;
+    private final int[][][] coveredAreas;
+    private final int bitsPerCell;
+    private final int combinationsOffset;
+    private final int recordSize;
+
+    private JournalHeader(byte[] configHash, int rows, int columns, String[] symbolNames, boolean[] standardSymbols,
+                          boolean[] bonusSymbols, Impact[] impacts, double[] rewardMultipliers, int[] extras,
+                          String[] combinationNames, When[] combinationWhens, int[][][] coveredAreas) {
+        if (configHash.length != HASH_BYTES) {
+            throw new IllegalArgumentException("Config hash must have " + HASH_BYTES + " bytes: " + configHash.length);
+        }
+        this.configHash = configHash;
+        this.rows = rows;
+        this.columns = columns;
+        this.cellCount = rows * columns;
+        this.symbolNames = symbolNames;
+        this.standardSymbols = standardSymbols;
+        this.bonusSymbols = bonusSymbols;
+        this.impacts = impacts;
+        this.rewardMultipliers = rewardMultipliers;
+        this.extras = extras;
+        this.combinationNames = combinationNames;
+        this.combinationWhens = combinationWhens;
+        this.coveredAreas = coveredAreas;
+        this.bitsPerCell = Math.max(1, Integer.SIZE - Integer.numberOfLeadingZeros(symbolNames.length - 1));
+        long cellBytes = ((long) cellCount * bitsPerCell + 7) / 8;
+        long combinationBytes = ((long) symbolNames.length * combinationNames.length + 7) / 8;
+        if (CELLS + cellBytes + combinationBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Records of a " + rows + "x" + columns + " grid are too large");
+        }
+        this.combinationsOffset = CELLS + (int) cellBytes;
+        this.recordSize = combinationsOffset + (int) combinationBytes;
+    }
+
+    public static JournalHeader of(CompiledGame game, byte[] configHash) {
+        int symbolCount = game.symbolCount();
+        String[] names = new String[symbolCount];
+        boolean[] standard = new boolean[symbolCount];
+        boolean[] bonus = new boolean[symbolCount];
+        for (int symbol = 0; symbol < symbolCount; symbol++) {
+            names[symbol] = game.symbolName(symbol);
+            standard[symbol] = game.isStandard(symbol);
+            bonus[symbol] = game.isBonus(symbol);
+        }
+        CompiledCombination[] combinations = game.getCombinations();
+        String[] combinationNames = new String[combinations.length];
+        When[] whens = new When[combinations.length];
+        int[][][] areas = new int[combinations.length][][];
+        for (CompiledCombination combination : combinations) {
+            combinationNames[combination.getId()] = combination.getName();
+            whens[combination.getId()] = combination.getWhen();
+            areas[combination.getId()] = combination.getCoveredAreas();
+        }
+        return new JournalHeader(configHash, game.getRows(), game.getColumns(), names, standard, bonus,
+                game.getImpacts().clone(), game.getRewardMultipliers().clone(), game.getExtras().clone(),
+                combinationNames, whens, areas);
+    }
+
+    /**
+     * Returns the SHA-256 of the config file, the hash that ties a journal to its config.
+     */
+    public static byte[] hash(Path configFile) throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(configFile));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public int symbolCount() {
+        return symbolNames.length;
+    }
+
+    public int combinationCount() {
+        return combinationNames.length;
+    }
+
+    static JournalHeader read(ByteBuffer segment, Path path) throws IOException {
+        if (segment.capacity() < DICTIONARY_OFFSET || segment.getInt(0) != MAGIC) {
+            throw new IOException("Not a spin journal segment: " + path);
+        }
+        if (segment.getInt(4) != VERSION) {
+            throw new IOException("Unsupported journal version " + segment.getInt(4) + ": " + path);
+        }
+        int size = segment.getInt(HEADER_SIZE_OFFSET);
+        if (size < DICTIONARY_OFFSET || size > segment.capacity()) {
+            throw new IOException("Truncated journal header: " + path);
+        }
+        byte[] dictionary = new byte[size - DICTIONARY_OFFSET];
+        segment.get(DICTIONARY_OFFSET, dictionary);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(dictionary))) {
+            byte[] configHash = in.readNBytes(HASH_BYTES);
+            int rows = in.readInt();
+            int columns = in.readInt();
+            int symbolCount = in.readInt();
+            String[] names = new String[symbolCount];
+            boolean[] standard = new boolean[symbolCount];
+            boolean[] bonus = new boolean[symbolCount];
+            Impact[] impacts = new Impact[symbolCount];
+            double[] multipliers = new double[symbolCount];
+            int[] extras = new int[symbolCount];
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                names[symbol] = in.readUTF();
+                int kind = in.readByte();
+                standard[symbol] = (kind & STANDARD) != 0;
+                bonus[symbol] = (kind & BONUS) != 0;
+                int impact = in.readByte();
+                impacts[symbol] = impact >= 0 ? Impact.values()[impact] : null;
+                multipliers[symbol] = in.readDouble();
+                extras[symbol] = in.readInt();
+            }
+            int combinationCount = in.readInt();
+            String[] combinationNames = new String[combinationCount];
+            When[] whens = new When[combinationCount];
+            int[][][] areas = new int[combinationCount][][];
+            for (int combination = 0; combination < combinationCount; combination++) {
+                combinationNames[combination] = in.readUTF();
+                whens[combination] = When.values()[in.readByte()];
+                areas[combination] = new int[in.readInt()][];
+                for (int area = 0; area < areas[combination].length; area++) {
+                    int[] cells = new int[in.readInt()];
+                    for (int i = 0; i < cells.length; i++) {
+                        cells[i] = in.readInt();
+                    }
+                    areas[combination][area] = cells;
+                }
+            }
+            JournalHeader header = new JournalHeader(configHash, rows, columns, names, standard, bonus, impacts,
+                    multipliers, extras, combinationNames, whens, areas);
+            if (header.recordSize != segment.getInt(RECORD_SIZE_OFFSET)) {
+                throw new IOException("Journal record size does not match its dictionary: " + path);
+            }
+            return header;
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt journal header: " + path, e);
+        }
+    }
+
+    boolean sameJournal(JournalHeader other) {
+        return Arrays.equals(encode(), other.encode());
+    }
+
+    // Returns the header as written at the start of a segment, with a record count of 0
+    byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            // Header size, filled in below
+            out.writeInt(0);
+            out.writeInt(recordSize);
+            // Record count, kept up to date by the writer of the segment
+            out.writeLong(0);
+            out.write(configHash);
+            out.writeInt(rows);
+            out.writeInt(columns);
+            out.writeInt(symbolNames.length);
+            for (int symbol = 0; symbol < symbolNames.length; symbol++) {
+                out.writeUTF(symbolNames[symbol]);
+                out.writeByte((standardSymbols[symbol] ? STANDARD : 0) | (bonusSymbols[symbol] ? BONUS : 0));
+                out.writeByte(impacts[symbol] != null ? impacts[symbol].ordinal() : -1);
+                out.writeDouble(rewardMultipliers[symbol]);
+                out.writeInt(extras[symbol]);
+            }
+            out.writeInt(combinationNames.length);
+            for (int combination = 0; combination < combinationNames.length; combination++) {
+                out.writeUTF(combinationNames[combination]);
+                out.writeByte(combinationWhens[combination].ordinal());
+                out.writeInt(coveredAreas[combination].length);
+                for (int[] area : coveredAreas[combination]) {
+                    out.writeInt(area.length);
+                    for (int cell : area) {
+                        out.writeInt(cell);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Writing to memory failed", e);
+        }
+        byte[] header = bytes.toByteArray();
+        ByteBuffer.wrap(header).putInt(HEADER_SIZE_OFFSET, header.length);
+        return header;
+    }
+}
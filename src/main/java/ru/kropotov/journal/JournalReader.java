@@ -0,0 +1,196 @@
+package ru.kropotov.journal;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import ru.kropotov.model.enums.Impact;
+import ru.kropotov.model.enums.When;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reads a journal written by {@link JournalWriter}. The segments are memory-mapped read-only and records
+ * are visited in place through a {@link JournalRecord} view, so scanning a journal costs no more than
+ * reading its pages. Records render to the JSON shape of printed results from the dictionaries of the
+ * journal alone.
+ */
+public class JournalReader {
+    private static final ObjectWriter RESULT_WRITER = new ObjectMapper().writer();
+
+    private final JournalHeader header;
+    private final List<MappedByteBuffer> segments;
+    // Number of records before each segment, with the total at the end
+    private final long[] firstRecords;
+
+    private JournalReader(JournalHeader header, List<MappedByteBuffer> segments, long[] firstRecords) {
+        this.header = header;
+        this.segments = segments;
+        this.firstRecords = firstRecords;
+    }
+
+    public static JournalReader open(Path directory) throws IOException {
+        JournalHeader header = null;
+        List<MappedByteBuffer> segments = new ArrayList<>();
+        List<Long> counts = new ArrayList<>();
+        for (int index = 0; Files.exists(JournalWriter.segmentPath(directory, index)); index++) {
+            Path path = JournalWriter.segmentPath(directory, index);
+            MappedByteBuffer segment;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException("Journal segment is larger than 2 GiB: " + path);
+                }
+                segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            JournalHeader segmentHeader = JournalHeader.read(segment, path);
+            if (header == null) {
+                header = segmentHeader;
+            } else if (!header.sameJournal(segmentHeader)) {
+                throw new IOException("Journal segment belongs to another config: " + path);
+            }
+            // A segment whose writer died is cut at its last complete record
+            int headerSize = segment.getInt(JournalHeader.HEADER_SIZE_OFFSET);
+            long complete = (segment.capacity() - headerSize) / header.getRecordSize();
+            counts.add(Math.min(segment.getLong(JournalHeader.RECORD_COUNT_OFFSET), complete));
+            segments.add(segment);
+        }
+        if (header == null) {
+            throw new IOException("No journal segments in " + directory);
+        }
+        long[] firstRecords = new long[counts.size() + 1];
+        for (int i = 0; i < counts.size(); i++) {
+            firstRecords[i + 1] = firstRecords[i] + counts.get(i);
+        }
+        return new JournalReader(header, segments, firstRecords);
+    }
+
+    public JournalHeader getHeader() {
+        return header;
+    }
+
+    public long getRecordCount() {
+        return firstRecords[segments.size()];
+    }
+
+    public JournalRecord record(long index) {
+        if (index < 0 || index >= getRecordCount()) {
+            throw new IndexOutOfBoundsException("Record " + index + " of " + getRecordCount());
+        }
+        int segment = 0;
+        while (firstRecords[segment + 1] <= index) {
+            segment++;
+        }
+        JournalRecord record = new JournalRecord(header);
+        record.moveTo(segments.get(segment), recordOffset(segment, index - firstRecords[segment]), index);
+        return record;
+    }
+
+    /**
+     * Visits every record in order with one reused view.
+     */
+    public void forEach(Consumer<JournalRecord> action) {
+        JournalRecord record = new JournalRecord(header);
+        for (int segment = 0; segment < segments.size(); segment++) {
+            MappedByteBuffer buffer = segments.get(segment);
+            long count = firstRecords[segment + 1] - firstRecords[segment];
+            for (long i = 0; i < count; i++) {
+                record.moveTo(buffer, recordOffset(segment, i), firstRecords[segment] + i);
+                action.accept(record);
+            }
+        }
+    }
+
+    public JournalSummary summarize() {
+        JournalSummary summary = new JournalSummary(header);
+        forEach(summary::record);
+        return summary;
+    }
+
+    /**
+     * Returns the record as the printed result: matrix, reward, applied winning combinations in the order
+     * they were applied and applied bonus symbols.
+     */
+    public Map<String, Object> toResult(JournalRecord record) {
+        int[] matrix = record.readCells(new int[header.getCellCount()]);
+        String[] names = header.getSymbolNames();
+        String[][] rows = new String[header.getRows()][header.getColumns()];
+        for (int cell = 0; cell < matrix.length; cell++) {
+            rows[cell / header.getColumns()][cell % header.getColumns()] = names[matrix[cell]];
+        }
+
+        // Evaluators apply same_symbols combinations symbol by symbol, then linear ones area by area
+        Map<String, List<String>> appliedCombinations = new LinkedHashMap<>();
+        When[] whens = header.getCombinationWhens();
+        for (int symbol = 0; symbol < header.symbolCount(); symbol++) {
+            for (int combination = 0; combination < whens.length; combination++) {
+                if (whens[combination] == When.SAME_SYMBOLS && record.isApplied(symbol, combination)) {
+                    apply(appliedCombinations, symbol, combination);
+                }
+            }
+        }
+        for (int combination = 0; combination < whens.length; combination++) {
+            if (whens[combination] != When.LINEAR_SYMBOLS) {
+                continue;
+            }
+            for (int[] area : header.getCoveredAreas()[combination]) {
+                int symbol = areaSymbol(matrix, area);
+                if (symbol >= 0 && record.isApplied(symbol, combination)) {
+                    apply(appliedCombinations, symbol, combination);
+                }
+            }
+        }
+
+        List<String> appliedBonusSymbols = new ArrayList<>();
+        if (record.isBonusApplied()) {
+            for (int symbol : matrix) {
+                Impact impact = header.getImpacts()[symbol];
+                if (header.getBonusSymbols()[symbol] && (impact == Impact.EXTRA_BONUS
+                        || impact == Impact.MULTIPLY_REWARD && !Double.isNaN(header.getRewardMultipliers()[symbol]))) {
+                    appliedBonusSymbols.add(names[symbol]);
+                }
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("matrix", rows);
+        result.put("reward", record.getReward());
+        result.put("applied_winning_combinations", appliedCombinations);
+        result.put("applied_bonus_symbol", appliedBonusSymbols);
+        return result;
+    }
+
+    // Renders the record as one compact JSON line, the same as the JSON lines output
+    public String render(JournalRecord record) throws JsonProcessingException {
+        return RESULT_WRITER.writeValueAsString(toResult(record));
+    }
+
+    private int recordOffset(int segment, long index) {
+        return segments.get(segment).getInt(JournalHeader.HEADER_SIZE_OFFSET) + (int) index * header.getRecordSize();
+    }
+
+    private void apply(Map<String, List<String>> appliedCombinations, int symbol, int combination) {
+        appliedCombinations.computeIfAbsent(header.getSymbolNames()[symbol], k -> new ArrayList<>())
+                .add(header.getCombinationNames()[combination]);
+    }
+
+    private static int areaSymbol(int[] matrix, int[] area) {
+        if (area.length == 0) {
+            return -1;
+        }
+        for (int cell : area) {
+            if (matrix[cell] != matrix[area[0]]) {
+                return -1;
+            }
+        }
+        return matrix[area[0]];
+    }
+}
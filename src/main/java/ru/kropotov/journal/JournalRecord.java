@@ -0,0 +1,103 @@
+package ru.kropotov.journal;
+
+import java.nio.ByteBuffer;
+
+/**
+ * View of one journal record in its mapped segment. Iterating a journal moves a single view from record
+ * to record, so it is only valid until the next one is visited.
+ */
+public final class JournalRecord {
+    private final JournalHeader header;
+    private ByteBuffer segment;
+    private int offset;
+    private long index;
+
+    JournalRecord(JournalHeader header) {
+        this.header = header;
+    }
+
+    void moveTo(ByteBuffer segment, int offset, long index) {
+        this.segment = segment;
+        this.offset = offset;
+        this.index = index;
+    }
+
+    // Position of the record in the journal
+    public long getIndex() {
+        return index;
+    }
+
+    public long getSeed() {
+        return segment.getLong(offset + JournalHeader.SEED);
+    }
+
+    public long getSpinIndex() {
+        return segment.getLong(offset + JournalHeader.SPIN_INDEX);
+    }
+
+    public double getReward() {
+        return segment.getDouble(offset + JournalHeader.REWARD);
+    }
+
+    public int getBet() {
+        return segment.getInt(offset + JournalHeader.BET);
+    }
+
+    public boolean isBonusApplied() {
+        return (segment.get(offset + JournalHeader.FLAGS) & JournalHeader.BONUS_APPLIED) != 0;
+    }
+
+    public int getCell(int cell) {
+        int bitsPerCell = header.getBitsPerCell();
+        long bit = (long) cell * bitsPerCell;
+        int position = offset + JournalHeader.CELLS + (int) (bit >>> 3);
+        int shift = (int) (bit & 7);
+        int value = 0;
+        for (int read = 0; read < bitsPerCell; position++) {
+            value |= ((segment.get(position) & 0xFF) >>> shift) << read;
+            read += Byte.SIZE - shift;
+            shift = 0;
+        }
+        return value & ((1 << bitsPerCell) - 1);
+    }
+
+    /**
+     * Unpacks every cell into the given row-major matrix.
+     */
+    public int[] readCells(int[] matrix) {
+        int bitsPerCell = header.getBitsPerCell();
+        int mask = (1 << bitsPerCell) - 1;
+        int position = offset + JournalHeader.CELLS;
+        long bits = 0;
+        int filled = 0;
+        for (int cell = 0; cell < header.getCellCount(); cell++) {
+            while (filled < bitsPerCell) {
+                bits |= (long) (segment.get(position++) & 0xFF) << filled;
+                filled += Byte.SIZE;
+            }
+            matrix[cell] = (int) bits & mask;
+            bits >>>= bitsPerCell;
+            filled -= bitsPerCell;
+        }
+        return matrix;
+    }
+
+    public boolean isApplied(int symbol, int combination) {
+        int bit = symbol * header.combinationCount() + combination;
+        return (segment.get(offset + header.getCombinationsOffset() + (bit >>> 3)) & (1 << (bit & 7))) != 0;
+    }
+
+    int combinationByte(int index) {
+        return segment.get(offset + header.getCombinationsOffset() + index) & 0xFF;
+    }
+
+    // Whether the combination paid for any symbol
+    public boolean isApplied(int combination) {
+        for (int symbol = 0; symbol < header.symbolCount(); symbol++) {
+            if (isApplied(symbol, combination)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
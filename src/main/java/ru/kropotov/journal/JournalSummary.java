@@ -0,0 +1,83 @@
+package ru.kropotov.journal;
+
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Totals of the records of a journal, with the same fields as a simulation report.
+ */
+@Getter
+public class JournalSummary {
+    private final JournalHeader header;
+    private long spins;
+    private long hits;
+    private double totalBet;
+    private double totalWin;
+    private double maxWin;
+    private final long[] combinationHits;
+    // Spin number at which a combination was last counted, to count each once per spin
+    private final long[] combinationSeen;
+
+    JournalSummary(JournalHeader header) {
+        this.header = header;
+        this.combinationHits = new long[header.combinationCount()];
+        this.combinationSeen = new long[combinationHits.length];
+    }
+
+    void record(JournalRecord record) {
+        double reward = record.getReward();
+        spins++;
+        totalBet += record.getBet();
+        totalWin += reward;
+        if (reward > 0) {
+            hits++;
+        }
+        if (reward > maxWin) {
+            maxWin = reward;
+        }
+        // Most spins apply nothing, so whole zero bytes of the bitset are skipped
+        int combinationCount = combinationHits.length;
+        for (int i = 0; i < header.getRecordSize() - header.getCombinationsOffset(); i++) {
+            int bits = record.combinationByte(i);
+            while (bits != 0) {
+                int combination = (i * Byte.SIZE + Integer.numberOfTrailingZeros(bits)) % combinationCount;
+                if (combinationSeen[combination] != spins) {
+                    combinationSeen[combination] = spins;
+                    combinationHits[combination]++;
+                }
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    public double getRtp() {
+        return totalBet == 0 ? 0 : totalWin / totalBet;
+    }
+
+    public double getHitFrequency() {
+        return rate(hits);
+    }
+
+    public Map<String, Object> toReport() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("spins", spins);
+        report.put("total_bet", totalBet);
+        report.put("total_win", totalWin);
+        report.put("rtp", getRtp());
+        report.put("hit_frequency", getHitFrequency());
+        report.put("max_win", maxWin);
+
+        Map<String, Double> combinationRates = new LinkedHashMap<>();
+        for (int i = 0; i < combinationHits.length; i++) {
+            combinationRates.put(header.getCombinationNames()[i], rate(combinationHits[i]));
+        }
+        report.put("combination_trigger_rates", combinationRates);
+        return report;
+    }
+
+    private double rate(long count) {
+        return spins == 0 ? 0 : (double) count / spins;
+    }
+}
@@ -0,0 +1,163 @@
+package ru.kropotov.journal;
+
+import ru.kropotov.Evaluation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Appends spins to a journal directory through memory-mapped segment files. Every segment is mapped at
+ * its full size when it is opened and starts with the {@link JournalHeader}; once it cannot take another
+ * record it is truncated to its records and the next segment is opened. The record count in the header
+ * is updated with every record, so a reader sees every complete record even if the writer dies.
+ * A writer opened on an existing journal of the same config continues it: the last segment is cut at
+ * its last complete record and new records go to the segments after it. Instances are not thread-safe.
+ */
+public class JournalWriter implements AutoCloseable {
+    public static final long DEFAULT_SEGMENT_BYTES = 256L << 20;
+    private static final String SEGMENT_NAME = "segment-%06d.journal";
+
+    private final Path directory;
+    private final JournalHeader header;
+    private final byte[] encodedHeader;
+    private final int segmentBytes;
+    private final int recordSize;
+    private final byte[] cells;
+    private final byte[] combinations;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int segmentIndex;
+    private int position;
+    private long segmentRecords;
+    private long records;
+
+    public JournalWriter(Path directory, JournalHeader header, long segmentBytes) throws IOException {
+        this.encodedHeader = header.encode();
+        this.recordSize = header.getRecordSize();
+        if (segmentBytes > Integer.MAX_VALUE || segmentBytes < (long) encodedHeader.length + recordSize) {
+            throw new IllegalArgumentException("Segment size must hold the header and a record and fit in 2 GiB: "
+                    + segmentBytes);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.header = header;
+        this.segmentBytes = (int) segmentBytes;
+        this.cells = new byte[header.getCombinationsOffset() - JournalHeader.CELLS];
+        this.combinations = new byte[recordSize - header.getCombinationsOffset()];
+        while (Files.exists(segmentPath(directory, segmentIndex))) {
+            segmentIndex++;
+        }
+        if (segmentIndex > 0) {
+            finishExistingSegment(segmentPath(directory, segmentIndex - 1));
+        }
+    }
+
+    static Path segmentPath(Path directory, int index) {
+        return directory.resolve(String.format(SEGMENT_NAME, index));
+    }
+
+    public void append(long seed, long spinIndex, int bet, int[] matrix, Evaluation evaluation) throws IOException {
+        if (matrix.length != header.getCellCount()) {
+            throw new IllegalArgumentException("Expected " + header.getCellCount() + " cells but got " + matrix.length);
+        }
+        if (segment == null || segmentBytes - position < recordSize) {
+            rollOver();
+        }
+        packCells(matrix);
+        Arrays.fill(combinations, (byte) 0);
+        int combinationCount = header.combinationCount();
+        for (int i = 0; i < evaluation.getAppliedCombinationCount(); i++) {
+            int bit = evaluation.getAppliedSymbolId(i) * combinationCount + evaluation.getAppliedCombinationId(i);
+            combinations[bit >>> 3] |= (byte) (1 << (bit & 7));
+        }
+
+        segment.putLong(position + JournalHeader.SEED, seed);
+        segment.putLong(position + JournalHeader.SPIN_INDEX, spinIndex);
+        segment.putDouble(position + JournalHeader.REWARD, evaluation.getReward());
+        segment.putInt(position + JournalHeader.BET, bet);
+        segment.put(position + JournalHeader.FLAGS,
+                (byte) (evaluation.getAppliedBonusSymbolCount() > 0 ? JournalHeader.BONUS_APPLIED : 0));
+        segment.put(position + JournalHeader.CELLS, cells);
+        segment.put(position + header.getCombinationsOffset(), combinations);
+        position += recordSize;
+        segmentRecords++;
+        records++;
+        segment.putLong(JournalHeader.RECORD_COUNT_OFFSET, segmentRecords);
+    }
+
+    // Records appended by this writer, not counting those of a journal it continues
+    public long getRecordCount() {
+        return records;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finishSegment();
+    }
+
+    private void packCells(int[] matrix) {
+        int bitsPerCell = header.getBitsPerCell();
+        long bits = 0;
+        int filled = 0;
+        int out = 0;
+        for (int cell : matrix) {
+            bits |= (long) cell << filled;
+            filled += bitsPerCell;
+            while (filled >= Byte.SIZE) {
+                cells[out++] = (byte) bits;
+                bits >>>= Byte.SIZE;
+                filled -= Byte.SIZE;
+            }
+        }
+        if (filled > 0) {
+            cells[out] = (byte) bits;
+        }
+    }
+
+    private void rollOver() throws IOException {
+        finishSegment();
+        channel = FileChannel.open(segmentPath(directory, segmentIndex++), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        segment.put(0, encodedHeader);
+        position = encodedHeader.length;
+        segmentRecords = 0;
+    }
+
+    // Checks that the segment was written for the same config and cuts it after its last complete record
+    private void finishExistingSegment(Path path) throws IOException {
+        try (FileChannel existing = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer fixed = ByteBuffer.allocate(JournalHeader.DICTIONARY_OFFSET);
+            existing.read(fixed, 0);
+            int headerSize = fixed.getInt(JournalHeader.HEADER_SIZE_OFFSET);
+            ByteBuffer encoded = ByteBuffer.allocate(Math.max(JournalHeader.DICTIONARY_OFFSET,
+                    (int) Math.min(headerSize, existing.size())));
+            existing.read(encoded, 0);
+            if (!header.sameJournal(JournalHeader.read(encoded, path))) {
+                throw new IOException("Journal in " + directory + " was written with another config: " + path);
+            }
+            long complete = (existing.size() - headerSize) / recordSize;
+            long count = Math.min(encoded.getLong(JournalHeader.RECORD_COUNT_OFFSET), complete);
+            existing.write(ByteBuffer.allocate(Long.BYTES).putLong(0, count), JournalHeader.RECORD_COUNT_OFFSET);
+            existing.truncate(headerSize + count * recordSize);
+            existing.force(true);
+        }
+    }
+
+    private void finishSegment() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        segment.force();
+        // The mapping stays valid up to the truncated size, which is all that was written
+        channel.truncate(position);
+        channel.close();
+        channel = null;
+        segment = null;
+    }
+}
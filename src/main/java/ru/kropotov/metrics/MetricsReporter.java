@@ -0,0 +1,74 @@
+package ru.kropotov.metrics;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prints {@link SpinMetrics} in JSON or Prometheus text format at exit and, optionally, on an interval.
+ */
+@Slf4j
+public class MetricsReporter {
+    private static final ObjectWriter JSON_WRITER = new ObjectMapper().writerWithDefaultPrettyPrinter();
+
+    public enum Format {
+        JSON, PROMETHEUS;
+
+        public static Format of(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown metrics format: " + name);
+            }
+        }
+    }
+
+    private final SpinMetrics metrics;
+    private final Format format;
+    private final PrintStream out;
+
+    public MetricsReporter(SpinMetrics metrics, Format format, PrintStream out) {
+        this.metrics = metrics;
+        this.format = format;
+        this.out = out;
+    }
+
+    /**
+     * Reports once when the JVM exits, and every {@code intervalSeconds} until then when it is positive.
+     */
+    public void start(long intervalSeconds) {
+        if (intervalSeconds > 0) {
+            ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metrics-reporter");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleAtFixedRate(this::report, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(this::report, "metrics-final-report"));
+    }
+
+    public void report() {
+        out.println(format().stripTrailing());
+        out.flush();
+    }
+
+    public String format() {
+        if (format == Format.PROMETHEUS) {
+            return metrics.toPrometheus();
+        }
+        try {
+            return JSON_WRITER.writeValueAsString(metrics.toReport());
+        } catch (JsonProcessingException e) {
+            log.error("Error writing metrics", e);
+            return "{}";
+        }
+    }
+}
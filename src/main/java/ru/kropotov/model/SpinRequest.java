@@ -0,0 +1,20 @@
+package ru.kropotov.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.*;
+
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SpinRequest {
+    @JsonProperty("bet")
+    private Integer bet;
+    @JsonProperty("bonus_percentage")
+    private Double bonusPercentage;
+    @JsonProperty("seed")
+    private Long seed;
+}
@@ -0,0 +1,25 @@
+package ru.kropotov.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.*;
+
+import java.util.Map;
+
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SweepVariant {
+    @JsonProperty("name")
+    private String name;
+    // In percent like --bonus-percentage, and the bonus percentage of the sweep when null
+    @JsonProperty("bonus_percentage")
+    private Double bonusPercentage;
+    @JsonProperty("symbol_multipliers")
+    private Map<String, Double> symbolMultipliers;
+    @JsonProperty("combination_multipliers")
+    private Map<String, Double> combinationMultipliers;
+}
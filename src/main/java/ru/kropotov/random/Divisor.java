@@ -0,0 +1,32 @@
+package ru.kropotov.random;
+
+/**
+ * Exact division of non-negative ints by a fixed positive int, by a multiplication instead of a division.
+ * With {@code magic = 2^62 / d + 1}, {@code n * magic / 2^62} exceeds {@code n / d} by less than
+ * {@code n / 2^62 < 1 / d} for every {@code n < 2^31}, so its floor is the exact quotient.
+ */
+public final class Divisor {
+    private final int divisor;
+    private final long magic;
+
+    public Divisor(int divisor) {
+        if (divisor <= 0) {
+            throw new IllegalArgumentException("Divisor must be positive: " + divisor);
+        }
+        this.divisor = divisor;
+        this.magic = (1L << 62) / divisor + 1;
+    }
+
+    public int getDivisor() {
+        return divisor;
+    }
+
+    // n must not be negative
+    public int divide(int n) {
+        return (int) Math.multiplyHigh((long) n << 2, magic);
+    }
+
+    public int remainder(int n) {
+        return n - divide(n) * divisor;
+    }
+}
@@ -0,0 +1,51 @@
+package ru.kropotov.random;
+
+/**
+ * The random streams of a block of consecutive spins side by side, one lane per spin. Lane {@code j}
+ * draws exactly what a {@link SpinRandom} of the same seed draws after {@code startSpin(firstSpin + j)},
+ * so generating a block lane by lane gives the same spins as generating them one at a time.
+ */
+public final class SpinLanes {
+    private final long[] states;
+
+    public SpinLanes(int capacity) {
+        this.states = new long[capacity];
+    }
+
+    public int capacity() {
+        return states.length;
+    }
+
+    public void start(long seed, long firstSpin, int count) {
+        if (count > states.length) {
+            throw new IllegalArgumentException("Lanes of " + states.length + " spins cannot hold " + count);
+        }
+        for (int lane = 0; lane < count; lane++) {
+            states[lane] = SpinRandom.spinSeed(seed, firstSpin + lane);
+        }
+    }
+
+    public long nextLong(int lane) {
+        return SpinRandom.mix64(states[lane] += SpinRandom.GOLDEN_GAMMA);
+    }
+
+    public int nextInt(int lane) {
+        return (int) (nextLong(lane) >>> 32);
+    }
+
+    public double nextDouble(int lane) {
+        return (nextLong(lane) >>> 11) * 0x1.0p-53;
+    }
+
+    // Same algorithm as SpinRandom.nextInt(Divisor)
+    public int nextInt(int lane, Divisor bound) {
+        int m = bound.getDivisor() - 1;
+        int r = nextInt(lane);
+        if ((bound.getDivisor() & m) == 0) {
+            return r & m;
+        }
+        for (int u = r >>> 1; u + m - (r = bound.remainder(u)) < 0; u = nextInt(lane) >>> 1) {
+        }
+        return r;
+    }
+}
@@ -0,0 +1,70 @@
+package ru.kropotov.random;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Reseedable SplitMix64 generator that gives every spin of a run its own random stream.
+ * <p>
+ * The stream of spin {@code i} of a run with seed {@code s} is a SplitMix64 sequence started from
+ * {@code spinSeed(s, i)}, which is the {@code (i + 1)}-th {@code nextLong()} of {@code new SplittableRandom(s)}.
+ * Any spin can therefore be replayed from the seed and its index alone, independently of the spins before it
+ * and of how a run was split between threads.
+ */
+public final class SpinRandom implements RandomGenerator {
+    static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final long seed;
+    private long state;
+
+    public SpinRandom(long seed) {
+        this.seed = seed;
+        startSpin(0);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void startSpin(long spinIndex) {
+        state = spinSeed(seed, spinIndex);
+    }
+
+    public static long spinSeed(long seed, long spinIndex) {
+        return mix64(seed + (spinIndex + 1) * GOLDEN_GAMMA);
+    }
+
+    @Override
+    public long nextLong() {
+        return mix64(state += GOLDEN_GAMMA);
+    }
+
+    // The default algorithm of RandomGenerator, fixed here so that streams do not depend on the JDK
+    @Override
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("Bound must be positive: " + bound);
+        }
+        return nextInt(new Divisor(bound));
+    }
+
+    /**
+     * Same as {@code nextInt(bound.getDivisor())}, with the divisions done by the given divisor.
+     */
+    public int nextInt(Divisor bound) {
+        int m = bound.getDivisor() - 1;
+        int r = nextInt();
+        if ((bound.getDivisor() & m) == 0) {
+            return r & m;
+        }
+        // Rejects the candidates of the last, incomplete run of the bound
+        for (int u = r >>> 1; u + m - (r = bound.remainder(u)) < 0; u = nextInt() >>> 1) {
+        }
+        return r;
+    }
+
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
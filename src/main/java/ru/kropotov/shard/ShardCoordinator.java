@@ -0,0 +1,163 @@
+package ru.kropotov.shard;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.kropotov.SimulationResult;
+import ru.kropotov.game.CompiledGame;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a simulation as shards of consecutive chunks in separate worker processes and merges their
+ * {@link ShardResult} files. Chunk results are merged one by one in chunk order, exactly as a single
+ * process merges them, so the merged result equals that of a single-process run of the same job. A shard
+ * whose worker exits without a valid result file is started again, up to {@link #MAX_ATTEMPTS} times.
+ */
+@Slf4j
+public class ShardCoordinator {
+    public static final int MAX_ATTEMPTS = 3;
+    static final String WORKER_CLASS = "ru.kropotov.Main";
+
+    /**
+     * Starts the worker of chunks {@code firstChunk} to {@code lastChunk - 1}, which writes its result to
+     * {@code output} and its logs to {@code log}.
+     */
+    @FunctionalInterface
+    public interface WorkerLauncher {
+        Process launch(int firstChunk, int lastChunk, Path output, Path log) throws IOException;
+    }
+
+    private final CompiledGame game;
+    private final byte[] configHash;
+    private final ShardJob job;
+    private final Path directory;
+    private final WorkerLauncher launcher;
+
+    public ShardCoordinator(CompiledGame game, byte[] configHash, ShardJob job, Path directory,
+                            WorkerLauncher launcher) {
+        this.game = game;
+        this.configHash = configHash;
+        this.job = job;
+        this.directory = directory;
+        this.launcher = launcher;
+    }
+
+    /**
+     * Launches workers on the local JVM with the classpath of this one, each running
+     * {@code Main <workerArguments> --shard first:last --shard-output <file>} on {@code threads} threads.
+     */
+    public static WorkerLauncher localWorkers(List<String> workerArguments, int threads) {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        String classPath = System.getProperty("java.class.path");
+        return (firstChunk, lastChunk, output, log) -> {
+            List<String> command = new ArrayList<>(List.of(java,
+                    "-Djava.util.concurrent.ForkJoinPool.common.parallelism=" + threads,
+                    "-cp", classPath, WORKER_CLASS));
+            command.addAll(workerArguments);
+            command.addAll(List.of("--shard", firstChunk + ":" + lastChunk, "--shard-output", output.toString()));
+            return new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(log.toFile())
+                    .start();
+        };
+    }
+
+    public SimulationResult run(int shards) throws IOException, InterruptedException {
+        if (shards <= 0) {
+            throw new IllegalArgumentException("Number of shards must be positive: " + shards);
+        }
+        int chunks = job.getChunkCount();
+        shards = Math.min(shards, chunks);
+        ShardResult[] results = new ShardResult[shards];
+        long start = System.nanoTime();
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            List<Integer> pending = new ArrayList<>();
+            for (int shard = 0; shard < shards; shard++) {
+                if (results[shard] == null) {
+                    pending.add(shard);
+                }
+            }
+            if (pending.isEmpty()) {
+                break;
+            }
+            runAttempt(pending, shards, chunks, attempt, results);
+        }
+        for (int shard = 0; shard < shards; shard++) {
+            if (results[shard] == null) {
+                throw new IOException("Shard " + shard + " failed " + MAX_ATTEMPTS + " times, see "
+                        + logPath(shard));
+            }
+        }
+
+        SimulationResult merged = new SimulationResult(game);
+        for (ShardResult result : results) {
+            for (SimulationResult chunkResult : result.getChunkResults()) {
+                merged.merge(chunkResult);
+            }
+        }
+        for (int shard = 0; shard < shards; shard++) {
+            Files.deleteIfExists(outputPath(shard));
+            Files.deleteIfExists(logPath(shard));
+        }
+        log.debug("Simulated {} in {} shards in {} ms", job, shards, (System.nanoTime() - start) / 1_000_000);
+        return merged;
+    }
+
+    private void runAttempt(List<Integer> pending, int shards, int chunks, int attempt, ShardResult[] results)
+            throws IOException, InterruptedException {
+        Process[] processes = new Process[shards];
+        try {
+            for (int shard : pending) {
+                Files.deleteIfExists(outputPath(shard));
+                processes[shard] = launcher.launch(firstChunk(shard, shards, chunks),
+                        firstChunk(shard + 1, shards, chunks), outputPath(shard), logPath(shard));
+            }
+            for (int shard : pending) {
+                int exitCode = processes[shard].waitFor();
+                results[shard] = readResult(shard, shards, chunks, exitCode);
+                if (results[shard] == null) {
+                    log.warn("Shard {} failed on attempt {} of {}, see {}", shard, attempt, MAX_ATTEMPTS,
+                            logPath(shard));
+                }
+            }
+        } finally {
+            for (Process process : processes) {
+                if (process != null && process.isAlive()) {
+                    process.destroyForcibly();
+                }
+            }
+        }
+    }
+
+    // The result of a shard, or null when its worker failed or wrote a result of another shard or job
+    private ShardResult readResult(int shard, int shards, int chunks, int exitCode) {
+        Path output = outputPath(shard);
+        if (exitCode != 0 || !Files.exists(output)) {
+            return null;
+        }
+        try {
+            ShardResult result = ShardResult.read(output, game);
+            return result.isShardOf(job, configHash, firstChunk(shard, shards, chunks),
+                    firstChunk(shard + 1, shards, chunks)) ? result : null;
+        } catch (IOException e) {
+            log.warn("Unreadable result of shard {}: {}", shard, e.getMessage());
+            return null;
+        }
+    }
+
+    private static int firstChunk(int shard, int shards, int chunks) {
+        return (int) ((long) shard * chunks / shards);
+    }
+
+    private Path outputPath(int shard) {
+        return directory.resolve("shard-" + shard + ".bin");
+    }
+
+    private Path logPath(int shard) {
+        return directory.resolve("shard-" + shard + ".log");
+    }
+}
@@ -0,0 +1,34 @@
+package ru.kropotov.shard;
+
+import lombok.Getter;
+import ru.kropotov.Simulator;
+
+/**
+ * Parameters of a {@link Simulator} run that shards split by its chunks.
+ */
+@Getter
+public final class ShardJob {
+    private final long seed;
+    private final int bettingAmount;
+    private final double bonusPercentage;
+    private final long spins;
+    private final int chunkCount;
+
+    public ShardJob(long seed, int bettingAmount, double bonusPercentage, long spins) {
+        this.seed = seed;
+        this.bettingAmount = bettingAmount;
+        this.bonusPercentage = bonusPercentage;
+        this.spins = spins;
+        this.chunkCount = Simulator.chunkCount(spins);
+    }
+
+    public boolean isSameJob(ShardJob other) {
+        return seed == other.seed && bettingAmount == other.bettingAmount
+                && Double.compare(bonusPercentage, other.bonusPercentage) == 0 && spins == other.spins;
+    }
+
+    @Override
+    public String toString() {
+        return spins + " spins of seed " + seed + " at bet " + bettingAmount + " and bonus " + bonusPercentage;
+    }
+}
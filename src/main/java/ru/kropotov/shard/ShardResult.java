@@ -0,0 +1,106 @@
+package ru.kropotov.shard;
+
+import lombok.Getter;
+import ru.kropotov.SimulationResult;
+import ru.kropotov.game.CompiledGame;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Binary partial result of a shard: the job it belongs to and the result of every chunk it ran, in chunk
+ * order. Only the job parameters and the config hash identify the game, so a shard file can come from a
+ * worker on any machine that loads the same config or snapshot.
+ */
+@Getter
+public final class ShardResult {
+    private static final int MAGIC = 0x534C5348;
+    private static final int VERSION = 1;
+    private static final int HASH_BYTES = 32;
+
+    private final ShardJob job;
+    private final byte[] configHash;
+    private final int firstChunk;
+    private final SimulationResult[] chunkResults;
+
+    public ShardResult(ShardJob job, byte[] configHash, int firstChunk, SimulationResult[] chunkResults) {
+        if (configHash.length != HASH_BYTES) {
+            throw new IllegalArgumentException("Config hash must have " + HASH_BYTES + " bytes: " + configHash.length);
+        }
+        this.job = job;
+        this.configHash = configHash;
+        this.firstChunk = firstChunk;
+        this.chunkResults = chunkResults;
+    }
+
+    public int getLastChunk() {
+        return firstChunk + chunkResults.length;
+    }
+
+    // Written next to the path and moved onto it, so a worker that dies midway leaves no shard file
+    public void write(Path path) throws IOException {
+        Path partial = path.resolveSibling(path.getFileName() + ".part");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(partial)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.write(configHash);
+            out.writeLong(job.getSeed());
+            out.writeInt(job.getBettingAmount());
+            out.writeDouble(job.getBonusPercentage());
+            out.writeLong(job.getSpins());
+            out.writeInt(firstChunk);
+            out.writeInt(chunkResults.length);
+            for (SimulationResult result : chunkResults) {
+                result.write(out);
+            }
+            // Ends with the magic again, so that a file cut short is never taken for a shorter shard
+            out.writeInt(MAGIC);
+        }
+        Files.move(partial, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static ShardResult read(Path path, CompiledGame game) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a shard result: " + path);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported shard result version " + version + ": " + path);
+            }
+            byte[] configHash = in.readNBytes(HASH_BYTES);
+            long seed = in.readLong();
+            int bettingAmount = in.readInt();
+            double bonusPercentage = in.readDouble();
+            ShardJob job = new ShardJob(seed, bettingAmount, bonusPercentage, in.readLong());
+            int firstChunk = in.readInt();
+            int chunks = in.readInt();
+            if (firstChunk < 0 || chunks < 0 || (long) firstChunk + chunks > job.getChunkCount()) {
+                throw new IOException("Invalid chunks " + firstChunk + " to " + (firstChunk + chunks) + ": " + path);
+            }
+            SimulationResult[] chunkResults = new SimulationResult[chunks];
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                chunkResults[chunk] = SimulationResult.read(game, in);
+            }
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Truncated shard result: " + path);
+            }
+            return new ShardResult(job, configHash, firstChunk, chunkResults);
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt shard result: " + path, e);
+        }
+    }
+
+    // Whether this is the given shard of the given job of the given config
+    public boolean isShardOf(ShardJob job, byte[] configHash, int firstChunk, int lastChunk) {
+        return this.job.isSameJob(job) && Arrays.equals(this.configHash, configHash)
+                && this.firstChunk == firstChunk && getLastChunk() == lastChunk;
+    }
+}
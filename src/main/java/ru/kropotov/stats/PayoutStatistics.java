@@ -0,0 +1,149 @@
+package ru.kropotov.stats;
+
+import lombok.Getter;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One-pass statistics of spin payouts in multiples of the bet: Welford's running mean and variance, a
+ * quantile sketch and the distribution of win multipliers. Every worker fills its own instance, and
+ * instances combine with the pairwise update of Chan et al., so merging needs no locking.
+ */
+@Getter
+public class PayoutStatistics {
+    // z of the two-sided 95% interval of the normal distribution
+    public static final double Z_95 = 1.959963984540054;
+    private static final double[] QUANTILES = {0.5, 0.99, 0.9999};
+    private static final String[] QUANTILE_NAMES = {"p50", "p99", "p99.99"};
+    // Upper bounds of the win multiplier buckets after the one of zero payouts
+    private static final double[] MULTIPLIER_BOUNDS = {1, 2, 5, 10, 20, 50, 100, 1_000, 10_000};
+
+    private long count;
+    private double mean;
+    // Sum of squared differences from the mean
+    private double m2;
+    private QuantileSketch sketch = new QuantileSketch();
+    private final long[] multiplierCounts = new long[MULTIPLIER_BOUNDS.length + 2];
+
+    public void record(double payout) {
+        count++;
+        double delta = payout - mean;
+        mean += delta / count;
+        m2 += delta * (payout - mean);
+        sketch.add(payout);
+        multiplierCounts[multiplierBucket(payout)]++;
+    }
+
+    public PayoutStatistics merge(PayoutStatistics other) {
+        if (other.count == 0) {
+            return this;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+        mean += delta * other.count / total;
+        count = total;
+        sketch.merge(other.sketch);
+        for (int i = 0; i < multiplierCounts.length; i++) {
+            multiplierCounts[i] += other.multiplierCounts[i];
+        }
+        return this;
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeLong(count);
+        out.writeDouble(mean);
+        out.writeDouble(m2);
+        sketch.write(out);
+        out.writeInt(multiplierCounts.length);
+        for (long multiplierCount : multiplierCounts) {
+            out.writeLong(multiplierCount);
+        }
+    }
+
+    public static PayoutStatistics read(DataInput in) throws IOException {
+        PayoutStatistics statistics = new PayoutStatistics();
+        statistics.count = in.readLong();
+        statistics.mean = in.readDouble();
+        statistics.m2 = in.readDouble();
+        statistics.sketch = QuantileSketch.read(in);
+        if (in.readInt() != statistics.multiplierCounts.length) {
+            throw new IOException("Payout statistics have other win multiplier buckets");
+        }
+        for (int i = 0; i < statistics.multiplierCounts.length; i++) {
+            statistics.multiplierCounts[i] = in.readLong();
+        }
+        return statistics;
+    }
+
+    // Sample variance of a payout
+    public double getVariance() {
+        return count < 2 ? 0 : m2 / (count - 1);
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * Returns the half width of the 95% confidence interval of the mean payout, which is the RTP, or
+     * infinity while there are too few payouts to tell.
+     */
+    public double getConfidenceHalfWidth() {
+        return count < 2 ? Double.POSITIVE_INFINITY : Z_95 * Math.sqrt(getVariance() / count);
+    }
+
+    public double quantile(double quantile) {
+        return sketch.quantile(quantile);
+    }
+
+    public Map<String, Object> toReport() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("payout_variance", getVariance());
+        report.put("payout_std_dev", getStandardDeviation());
+        double halfWidth = getConfidenceHalfWidth();
+        report.put("rtp_ci_95", Double.isInfinite(halfWidth) ? null : List.of(mean - halfWidth, mean + halfWidth));
+
+        Map<String, Double> quantiles = new LinkedHashMap<>();
+        for (int i = 0; i < QUANTILES.length; i++) {
+            quantiles.put(QUANTILE_NAMES[i], quantile(QUANTILES[i]));
+        }
+        report.put("payout_quantiles", quantiles);
+
+        Map<String, Double> multipliers = new LinkedHashMap<>();
+        multipliers.put("0", rate(multiplierCounts[0]));
+        double lower = 0;
+        for (int i = 0; i < MULTIPLIER_BOUNDS.length; i++) {
+            multipliers.put(label(lower) + "-" + label(MULTIPLIER_BOUNDS[i]), rate(multiplierCounts[i + 1]));
+            lower = MULTIPLIER_BOUNDS[i];
+        }
+        multipliers.put(">" + label(lower), rate(multiplierCounts[multiplierCounts.length - 1]));
+        report.put("win_multiplier_distribution", multipliers);
+        return report;
+    }
+
+    private static int multiplierBucket(double payout) {
+        if (payout <= 0) {
+            return 0;
+        }
+        for (int i = 0; i < MULTIPLIER_BOUNDS.length; i++) {
+            if (payout <= MULTIPLIER_BOUNDS[i]) {
+                return i + 1;
+            }
+        }
+        return MULTIPLIER_BOUNDS.length + 1;
+    }
+
+    private static String label(double bound) {
+        return Long.toString((long) bound);
+    }
+
+    private double rate(long bucketCount) {
+        return count == 0 ? 0 : (double) bucketCount / count;
+    }
+}
@@ -0,0 +1,168 @@
+package ru.kropotov.stats;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Mergeable sketch of the quantiles of non-negative values with a relative error bound. A positive value
+ * falls into the logarithmic bucket {@code i} covering {@code (gamma^(i-1), gamma^i]}, whose estimate
+ * {@code 2 gamma^i / (gamma + 1)} is within the relative accuracy of every value in it; zeros are counted
+ * apart. Sketches of the same accuracy merge exactly and in any order. Instances are not thread-safe.
+ */
+public final class QuantileSketch {
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.005;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+    private long count;
+    private long zeroCount;
+    // counts[i] is the count of bucket offset + i
+    private long[] counts = new long[0];
+    private int offset;
+    // Payouts repeat a lot, so the bucket of the last value is kept to skip the logarithm
+    private double lastValue = Double.NaN;
+    private int lastIndex;
+
+    public QuantileSketch() {
+        this(DEFAULT_RELATIVE_ACCURACY);
+    }
+
+    public QuantileSketch(double relativeAccuracy) {
+        if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+            throw new IllegalArgumentException("Relative accuracy must be between 0 and 1: " + relativeAccuracy);
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    public void add(double value) {
+        if (!(value >= 0) || value == Double.POSITIVE_INFINITY) {
+            throw new IllegalArgumentException("Value must be finite and not negative: " + value);
+        }
+        count++;
+        if (value == 0) {
+            zeroCount++;
+            return;
+        }
+        if (value != lastValue) {
+            lastValue = value;
+            lastIndex = (int) Math.ceil(Math.log(value) / logGamma);
+        }
+        // The slot is taken first, as growing replaces the array
+        int slot = slot(lastIndex);
+        counts[slot]++;
+    }
+
+    public QuantileSketch merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches of accuracy " + relativeAccuracy + " and "
+                    + other.relativeAccuracy);
+        }
+        count += other.count;
+        zeroCount += other.zeroCount;
+        for (int i = 0; i < other.counts.length; i++) {
+            if (other.counts[i] != 0) {
+                int slot = slot(other.offset + i);
+                counts[slot] += other.counts[i];
+            }
+        }
+        return this;
+    }
+
+    // Writes the accuracy, the counts and the range of non-empty buckets, from which read restores the sketch
+    public void write(DataOutput out) throws IOException {
+        int first = 0;
+        int last = counts.length;
+        while (first < last && counts[first] == 0) {
+            first++;
+        }
+        while (last > first && counts[last - 1] == 0) {
+            last--;
+        }
+        out.writeDouble(relativeAccuracy);
+        out.writeLong(count);
+        out.writeLong(zeroCount);
+        out.writeInt(offset + first);
+        out.writeInt(last - first);
+        for (int i = first; i < last; i++) {
+            out.writeLong(counts[i]);
+        }
+    }
+
+    public static QuantileSketch read(DataInput in) throws IOException {
+        double relativeAccuracy = in.readDouble();
+        if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+            throw new IOException("Invalid sketch accuracy: " + relativeAccuracy);
+        }
+        QuantileSketch sketch = new QuantileSketch(relativeAccuracy);
+        sketch.count = in.readLong();
+        sketch.zeroCount = in.readLong();
+        sketch.offset = in.readInt();
+        int length = in.readInt();
+        if (length < 0 || sketch.zeroCount < 0 || sketch.zeroCount > sketch.count) {
+            throw new IOException("Invalid sketch of " + sketch.count + " values in " + length + " buckets");
+        }
+        sketch.counts = new long[length];
+        long total = sketch.zeroCount;
+        for (int i = 0; i < length; i++) {
+            sketch.counts[i] = in.readLong();
+            total += sketch.counts[i];
+        }
+        if (total != sketch.count) {
+            throw new IOException("Sketch bucket counts do not add up to " + sketch.count);
+        }
+        return sketch;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * Returns the value of the given rank, or 0 for an empty sketch.
+     */
+    public double quantile(double quantile) {
+        if (!(quantile >= 0 && quantile <= 1)) {
+            throw new IllegalArgumentException("Quantile must be from 0 to 1: " + quantile);
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.floor(quantile * (count - 1));
+        long seen = zeroCount;
+        if (rank < seen) {
+            return 0;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                return 2 * Math.pow(gamma, offset + i) / (gamma + 1);
+            }
+        }
+        throw new IllegalStateException("Bucket counts do not add up to " + count);
+    }
+
+    private int slot(int index) {
+        if (counts.length == 0) {
+            counts = new long[64];
+            offset = index - counts.length / 2;
+        } else if (index < offset) {
+            int grow = Math.max(offset - index, counts.length);
+            long[] grown = new long[counts.length + grow];
+            System.arraycopy(counts, 0, grown, grow, counts.length);
+            counts = grown;
+            offset -= grow;
+        } else if (index >= offset + counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(index - offset + 1, counts.length * 2));
+        }
+        return index - offset;
+    }
+}
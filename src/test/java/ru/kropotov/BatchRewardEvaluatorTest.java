@@ -0,0 +1,99 @@
+package ru.kropotov;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.model.RequestConfig;
+import ru.kropotov.random.SpinRandom;
+
+import java.io.File;
+import java.io.IOException;
+
+class BatchRewardEvaluatorTest {
+    // Not a multiple of any vector length, so the last block of every batch is partial
+    private static final int BATCH_SIZE = 100;
+
+    private RequestConfig config;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        config = objectMapper.readValue(new File("src/test/resources/config.json"), RequestConfig.class);
+    }
+
+    @Test
+    void testScalarKernelMatchesRewardCalculator() {
+        assertMatchesRewardCalculator(CompiledGame.compile(config), false);
+        assertMatchesRewardCalculator(CompiledGame.compile(config, 5, 5), false);
+    }
+
+    @Test
+    void testVectorKernelMatchesRewardCalculator() {
+        assumeTrue(BatchRewardEvaluator.isVectorAvailable(), "jdk.incubator.vector is not present");
+        assertMatchesRewardCalculator(CompiledGame.compile(config), true);
+        assertMatchesRewardCalculator(CompiledGame.compile(config, 5, 5), true);
+    }
+
+    @Test
+    void testBatchSizeKeepsCellsWithinBudget() {
+        assertEquals(BatchRewardEvaluator.DEFAULT_BATCH_SIZE,
+                BatchRewardEvaluator.batchSize(CompiledGame.compile(config)));
+        CompiledGame large = CompiledGame.compile(config, 50, 50);
+        assertEquals(BatchRewardEvaluator.BATCH_CELLS / 2500, BatchRewardEvaluator.batchSize(large));
+        assertEquals(1, BatchRewardEvaluator.batchSize(CompiledGame.compile(config, 300, 300)));
+    }
+
+    @Test
+    void testEvaluatesOneSpinOfBatch() {
+        CompiledGame game = CompiledGame.compile(config);
+        BatchRewardEvaluator evaluator = new BatchRewardEvaluator(game, false);
+        SpinBatch batch = evaluator.newBatch(BATCH_SIZE);
+        new MatrixGenerator(game, 0.3, new SpinRandom(5L)).generateCells(batch, 0, 10);
+        evaluator.evaluate(batch, 100);
+
+        Evaluation evaluation = evaluator.newEvaluation();
+        for (int spin = 0; spin < batch.size(); spin++) {
+            assertEquals(batch.getReward(spin), evaluator.evaluate(batch, spin, 100, evaluation), 0);
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> evaluator.evaluate(batch, 10, 100, evaluation));
+    }
+
+    @Test
+    void testRejectsBatchOfAnotherGame() {
+        BatchRewardEvaluator evaluator = new BatchRewardEvaluator(CompiledGame.compile(config), false);
+        SpinBatch batch = new BatchRewardEvaluator(CompiledGame.compile(config), false).newBatch(BATCH_SIZE);
+        assertThrows(IllegalArgumentException.class, () -> evaluator.evaluate(batch, 100));
+    }
+
+    private static void assertMatchesRewardCalculator(CompiledGame game, boolean vector) {
+        BatchRewardEvaluator evaluator = new BatchRewardEvaluator(game, vector);
+        SpinBatch batch = evaluator.newBatch(BATCH_SIZE);
+        MatrixGenerator matrixGenerator = new MatrixGenerator(game, 0.3, new SpinRandom(11L));
+        RewardEvaluator plainEvaluator = new RewardEvaluator(game);
+        Evaluation evaluation = plainEvaluator.newEvaluation();
+        SimulationResult expected = new SimulationResult(game);
+        SimulationResult actual = new SimulationResult(game);
+        int[] matrix = new int[game.getCellCount()];
+
+        for (int first = 0; first < 20 * BATCH_SIZE; first += BATCH_SIZE) {
+            matrixGenerator.generateCells(batch, first, BATCH_SIZE);
+            evaluator.evaluate(batch, 100);
+            for (int spin = 0; spin < BATCH_SIZE; spin++) {
+                batch.readMatrix(spin, matrix);
+                double reward = new RewardCalculator(matrix, game, 100).calculateReward();
+                assertEquals(reward, batch.getReward(spin), 0, evaluator.getKernelName() + " spin " + (first + spin));
+                plainEvaluator.evaluate(matrix, 100, evaluation);
+                expected.record(100, evaluation);
+            }
+            actual.record(100, batch);
+        }
+        assertTrue(expected.getHits() > 0);
+        assertEquals(expected.getTotalWin(), actual.getTotalWin(), 0);
+        assertArrayEquals(expected.getCombinationHits(), actual.getCombinationHits());
+        assertArrayEquals(expected.getBonusSymbolHits(), actual.getBonusSymbolHits());
+    }
+}
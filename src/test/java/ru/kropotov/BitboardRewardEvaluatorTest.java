@@ -0,0 +1,95 @@
+package ru.kropotov;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.model.RequestConfig;
+import ru.kropotov.random.SpinRandom;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+class BitboardRewardEvaluatorTest {
+    private RequestConfig config;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        config = objectMapper.readValue(new File("src/test/resources/config.json"), RequestConfig.class);
+    }
+
+    @Test
+    void testMatchesPlainEvaluatorOnGeneratedMatrices() {
+        for (int size : new int[] {3, 4}) {
+            CompiledGame game = CompiledGame.compile(config, size, size);
+            SpinRandom random = new SpinRandom(size);
+            MatrixGenerator matrixGenerator = new MatrixGenerator(game, 0.2, random);
+            int[] matrix = new int[game.getCellCount()];
+            for (int spin = 0; spin < 20_000; spin++) {
+                random.startSpin(spin);
+                matrixGenerator.generateCells(matrix);
+                assertSameEvaluation(game, matrix);
+            }
+        }
+    }
+
+    @Test
+    void testMatchesPlainEvaluatorOnUniformMatrices() {
+        // Uniform symbols over few distinct ones make lines, same-symbol counts and bonus stacks common
+        CompiledGame game = CompiledGame.compile(config, 3, 3);
+        SplittableRandom random = new SplittableRandom(7L);
+        int[] matrix = new int[game.getCellCount()];
+        for (int spin = 0; spin < 50_000; spin++) {
+            int distinct = 1 + random.nextInt(3);
+            int[] symbols = random.ints(distinct, 0, game.symbolCount()).toArray();
+            for (int cell = 0; cell < matrix.length; cell++) {
+                matrix[cell] = symbols[random.nextInt(distinct)];
+            }
+            assertSameEvaluation(game, matrix);
+        }
+    }
+
+    @Test
+    void testMatchesRewardCalculatorOnFullLines() {
+        CompiledGame game = CompiledGame.compile(config, 3, 3);
+        int[] matrix = new int[game.getCellCount()];
+        for (int symbol = 0; symbol < game.symbolCount(); symbol++) {
+            Arrays.fill(matrix, symbol);
+            assertSameEvaluation(game, matrix);
+        }
+    }
+
+    @Test
+    void testSupportsUpToSixtyFourCells() {
+        CompiledGame small = CompiledGame.compile(config, 8, 8);
+        CompiledGame large = CompiledGame.compile(config, 9, 8);
+
+        assertTrue(RewardEvaluator.forGame(small) instanceof BitboardRewardEvaluator);
+        assertFalse(RewardEvaluator.forGame(large) instanceof BitboardRewardEvaluator);
+        assertThrows(IllegalArgumentException.class, () -> new BitboardRewardEvaluator(large));
+    }
+
+    private static void assertSameEvaluation(CompiledGame game, int[] matrix) {
+        String message = Arrays.deepToString(game.decode(matrix));
+        RewardCalculator rewardCalculator = new RewardCalculator(matrix, game, 100);
+        double expected = rewardCalculator.calculateReward();
+        Evaluation expectedEvaluation = rewardCalculator.getEvaluation();
+
+        RewardEvaluator evaluator = new BitboardRewardEvaluator(game);
+        Evaluation evaluation = evaluator.newEvaluation();
+        assertEquals(Double.doubleToLongBits(expected),
+                Double.doubleToLongBits(evaluator.evaluate(matrix, 100, evaluation)), message);
+
+        assertEquals(expectedEvaluation.getAppliedCombinationCount(), evaluation.getAppliedCombinationCount(), message);
+        for (int i = 0; i < evaluation.getAppliedCombinationCount(); i++) {
+            assertEquals(expectedEvaluation.getAppliedSymbolId(i), evaluation.getAppliedSymbolId(i), message);
+            assertEquals(expectedEvaluation.getAppliedCombinationId(i), evaluation.getAppliedCombinationId(i), message);
+        }
+        assertEquals(expectedEvaluation.getAppliedBonusSymbols(), evaluation.getAppliedBonusSymbols(), message);
+    }
+}
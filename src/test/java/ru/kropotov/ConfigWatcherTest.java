@@ -0,0 +1,87 @@
+package ru.kropotov;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.model.RequestConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+class ConfigWatcherTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ObjectNode config;
+    private Path configPath;
+    private CompiledGame initialGame;
+    private ConfigWatcher configWatcher;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Edited as a tree, since RequestConfig does not serialize back to a readable config
+        config = (ObjectNode) objectMapper.readTree(new File("src/test/resources/config.json"));
+        configPath = directory.resolve("config.json");
+        objectMapper.writeValue(configPath.toFile(), config);
+        initialGame = CompiledGame.compile(objectMapper.treeToValue(config, RequestConfig.class));
+        configWatcher = new ConfigWatcher(configPath, initialGame);
+    }
+
+    @AfterEach
+    void tearDown() {
+        configWatcher.close();
+    }
+
+    @Test
+    void testReloadPublishesNewGame() throws IOException {
+        config.withArray("/probabilities/standard_symbols").forEach(ss ->
+                ((ObjectNode) ss).putObject("symbols").put("A", 1));
+        objectMapper.writeValue(configPath.toFile(), config);
+
+        assertTrue(configWatcher.reload());
+        CompiledGame game = configWatcher.get();
+        assertNotSame(initialGame, game);
+        int[] matrix = new MatrixGenerator(game, 0).generateCells();
+        for (int cell : matrix) {
+            assertEquals("A", game.symbolName(cell));
+        }
+        // Unchanged content is not compiled again
+        assertFalse(configWatcher.reload());
+        assertSame(game, configWatcher.get());
+    }
+
+    @Test
+    void testInvalidConfigKeepsPreviousGame() throws IOException {
+        Files.writeString(configPath, "{\"rows\": 3,");
+        assertFalse(configWatcher.reload());
+        assertSame(initialGame, configWatcher.get());
+
+        config.withObject("/win_combinations/same_symbol_3_times").remove("reward_multiplier");
+        objectMapper.writeValue(configPath.toFile(), config);
+        assertFalse(configWatcher.reload());
+        assertSame(initialGame, configWatcher.get());
+    }
+
+    @Test
+    @Timeout(30)
+    void testWatcherPicksUpFileChange() throws Exception {
+        configWatcher.start();
+        config.put("rows", 3).put("columns", 3);
+        objectMapper.writeValue(configPath.toFile(), config);
+
+        while (configWatcher.get() == initialGame) {
+            Thread.sleep(20);
+        }
+        assertEquals(9, configWatcher.get().getCellCount());
+    }
+}
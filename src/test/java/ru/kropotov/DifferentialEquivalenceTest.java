@@ -0,0 +1,167 @@
+package ru.kropotov;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.kropotov.DifferentialHarness.Engine;
+import ru.kropotov.DifferentialHarness.Outcome;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.model.RequestConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Checks every reward engine against {@link ReferenceRewardCalculator} on seeded matrices. Run more of
+ * them with {@code ./gradlew test --tests DifferentialEquivalenceTest -PdifferentialMatrices=5000000}.
+ */
+class DifferentialEquivalenceTest {
+    private static final long MATRICES = Long.getLong("differential.matrices", 20_000);
+    private static final long SEED = 23L;
+    private static final int BET = 100;
+
+    private RequestConfig config;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        config = objectMapper.readValue(new File("src/test/resources/config.json"), RequestConfig.class);
+    }
+
+    @Test
+    void testEnginesMatchReferenceOnConfigGrid() {
+        assertEquivalent(config, 3, 3, MATRICES);
+    }
+
+    @Test
+    void testEnginesMatchReferenceOnOtherGrids() {
+        assertEquivalent(config, 4, 4, MATRICES / 4);
+        assertEquivalent(config, 5, 5, MATRICES / 4);
+        assertEquivalent(config, 8, 8, MATRICES / 4);
+        assertEquivalent(config, 50, 50, MATRICES / 1000 + 1);
+    }
+
+    @Test
+    void testEnginesMatchReferenceWithInexactMultipliers() {
+        // Multipliers without an exact binary form make any change of operation order visible
+        config.getSymbols().get("A").setRewardMultiplier(1.1);
+        config.getSymbols().get("B").setRewardMultiplier(0.7);
+        config.getSymbols().get("C").setRewardMultiplier(3.3);
+        config.getSymbols().get("10x").setRewardMultiplier(1.15);
+        config.getWinCombinations().get("same_symbol_4_times").setRewardMultiplier(1.3);
+        config.getWinCombinations().get("same_symbols_horizontally").setRewardMultiplier(2.1);
+        assertEquivalent(config, 3, 3, MATRICES);
+        assertEquivalent(config, 5, 5, MATRICES / 4);
+    }
+
+    @Test
+    void testMismatchIsShrunk() {
+        DifferentialHarness harness = new DifferentialHarness(config, 3, 3, BET);
+        CompiledGame game = harness.getGame();
+        // Drops the reward of every matrix holding the last standard symbol
+        Engine broken = (matrix, bettingAmount) -> {
+            Outcome outcome = harness.reference(matrix);
+            boolean hasF = false;
+            for (String[] row : matrix) {
+                for (String symbol : row) {
+                    hasF |= "F".equals(symbol);
+                }
+            }
+            return new Outcome(hasF ? 0 : outcome.reward, null, null);
+        };
+        String[][] matrix = {{"F", "F", "F"}, {"A", "MISS", "F"}, {"F", "10x", "F"}};
+
+        String[][] shrunk = harness.shrink(broken, matrix);
+
+        // Only F shows the bug, so every other cell shrinks to the first symbol of the config
+        String first = game.symbolName(0);
+        int fCells = 0;
+        for (String[] row : shrunk) {
+            for (String symbol : row) {
+                assertTrue(first.equals(symbol) || "F".equals(symbol), DifferentialHarness.format(shrunk));
+                fCells += "F".equals(symbol) ? 1 : 0;
+            }
+        }
+        assertEquals(1, fCells, DifferentialHarness.format(shrunk));
+    }
+
+    @Test
+    void testReportsMismatch() {
+        DifferentialHarness harness = new DifferentialHarness(config, 3, 3, BET);
+        Map<String, Engine> engines = Map.of("off by one", (matrix, bettingAmount) ->
+                new Outcome(harness.reference(matrix).reward + 1, null, null));
+
+        String mismatch = harness.run(game -> engines, SEED, 100);
+
+        assertNotNull(mismatch);
+        assertTrue(mismatch.startsWith("off by one differs on matrix "), mismatch);
+    }
+
+    private static void assertEquivalent(RequestConfig config, int rows, int columns, long matrices) {
+        DifferentialHarness harness = new DifferentialHarness(config, rows, columns, BET);
+        String mismatch = harness.run(DifferentialEquivalenceTest::engines, SEED, matrices);
+        assertNull(mismatch, mismatch);
+    }
+
+    // Fresh engines for each thread of the harness
+    private static Map<String, Engine> engines(CompiledGame game) {
+        Map<String, Engine> engines = new LinkedHashMap<>();
+        engines.put("RewardEvaluator", evaluator(new RewardEvaluator(game)));
+        engines.put("forGame", evaluator(RewardEvaluator.forGame(game)));
+        if (BitboardRewardEvaluator.supports(game)) {
+            engines.put("BitboardRewardEvaluator", evaluator(new BitboardRewardEvaluator(game)));
+        }
+        if (LargeGridRewardEvaluator.supports(game)) {
+            engines.put("LargeGridRewardEvaluator", evaluator(new LargeGridRewardEvaluator(game)));
+        }
+        engines.put("RewardCalculator", (matrix, bettingAmount) -> {
+            RewardCalculator calculator = new RewardCalculator(game.encode(matrix), game, bettingAmount);
+            double reward = calculator.calculateReward();
+            return new Outcome(reward, calculator.getAppliedWinningCombinations(),
+                    calculator.getAppliedBonusSymbols());
+        });
+        engines.put("priced outcome", priced(RewardEvaluator.forGame(game)));
+        engines.put("scalar batch", batch(new BatchRewardEvaluator(game, false)));
+        if (BatchRewardEvaluator.isVectorAvailable()) {
+            engines.put("vector batch", batch(new BatchRewardEvaluator(game, true)));
+        }
+        return engines;
+    }
+
+    private static Engine evaluator(RewardEvaluator evaluator) {
+        Evaluation evaluation = evaluator.newEvaluation();
+        return (matrix, bettingAmount) -> {
+            double reward = evaluator.evaluate(evaluation.getGame().encode(matrix), bettingAmount, evaluation);
+            return new Outcome(reward, evaluation.getAppliedWinningCombinations(),
+                    evaluation.getAppliedBonusSymbols());
+        };
+    }
+
+    // Evaluates at a unit bet and prices the bet of the harness from the outcome
+    private static Engine priced(RewardEvaluator evaluator) {
+        Evaluation evaluation = evaluator.newEvaluation();
+        SpinOutcome outcome = new SpinOutcome(evaluator.getGame());
+        return (matrix, bettingAmount) -> {
+            int[] cells = evaluator.getGame().encode(matrix);
+            evaluator.evaluate(cells, 1, evaluation);
+            outcome.capture(cells, evaluation);
+            double reward = outcome.price(bettingAmount);
+            return new Outcome(reward, outcome.getAppliedWinningCombinations(),
+                    reward == 0 ? null : outcome.getAppliedBonusSymbols());
+        };
+    }
+
+    // Batches only report rewards, their hit counts are checked against the evaluators by SimulatorTest
+    private static Engine batch(BatchRewardEvaluator evaluator) {
+        SpinBatch batch = evaluator.newBatch(1);
+        return (matrix, bettingAmount) -> {
+            batch.load(new int[][]{evaluator.getGame().encode(matrix)});
+            evaluator.evaluate(batch, bettingAmount);
+            return new Outcome(batch.getReward(0), null, null);
+        };
+    }
+}
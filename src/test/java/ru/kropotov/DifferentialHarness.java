@@ -0,0 +1,228 @@
+package ru.kropotov;
+
+import ru.kropotov.game.CompiledCombination;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.model.RequestConfig;
+import ru.kropotov.model.enums.When;
+import ru.kropotov.random.SpinRandom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Drives seeded random and adversarial matrices through {@link ReferenceRewardCalculator} and candidate
+ * engines, and compares the reward bit for bit together with the applied combinations and bonus symbols.
+ * Matrix {@code i} of a seed is always the same, so a mismatch can be replayed from its index, and it is
+ * shrunk to a matrix with as few and as early symbols as still show it.
+ */
+final class DifferentialHarness {
+    private static final double[] BONUS_PERCENTAGES = {0, 0.1, 0.5, 1};
+    private static final int BLOCK_SIZE = 4096;
+
+    // An engine under test; instances are used by one thread at a time
+    interface Engine {
+        Outcome evaluate(String[][] matrix, int bettingAmount);
+    }
+
+    // What an engine reports for a matrix, null where the engine reports nothing to compare
+    static final class Outcome {
+        final double reward;
+        final Map<String, List<String>> appliedWinningCombinations;
+        final List<String> appliedBonusSymbols;
+
+        Outcome(double reward, Map<String, List<String>> appliedWinningCombinations,
+                List<String> appliedBonusSymbols) {
+            this.reward = reward;
+            this.appliedWinningCombinations = appliedWinningCombinations;
+            this.appliedBonusSymbols = appliedBonusSymbols;
+        }
+
+        boolean matches(Outcome expected) {
+            return Double.doubleToRawLongBits(reward) == Double.doubleToRawLongBits(expected.reward)
+                    && (appliedWinningCombinations == null
+                    || appliedWinningCombinations.equals(expected.appliedWinningCombinations))
+                    && (appliedBonusSymbols == null || appliedBonusSymbols.equals(expected.appliedBonusSymbols));
+        }
+
+        @Override
+        public String toString() {
+            return "reward " + reward + " (" + Long.toHexString(Double.doubleToRawLongBits(reward)) + "), combinations "
+                    + appliedWinningCombinations + ", bonus symbols " + appliedBonusSymbols;
+        }
+    }
+
+    private final RequestConfig config;
+    private final CompiledGame game;
+    private final int bettingAmount;
+    private final String[] symbols;
+    private final String[] standardSymbols;
+    private final int[][][] areas;
+    private final int[] sameSymbolCounts;
+
+    DifferentialHarness(RequestConfig config, int rows, int columns, int bettingAmount) {
+        this.config = config;
+        this.game = CompiledGame.compile(config, rows, columns);
+        this.bettingAmount = bettingAmount;
+        this.symbols = game.getSymbolNames();
+        this.standardSymbols = Arrays.stream(symbols).filter(name -> game.isStandard(game.symbolId(name)))
+                .toArray(String[]::new);
+        this.areas = Arrays.stream(game.getCombinations())
+                .filter(combination -> When.LINEAR_SYMBOLS.equals(combination.getWhen()))
+                .map(CompiledCombination::getCoveredAreas)
+                .toArray(int[][][]::new);
+        this.sameSymbolCounts = Arrays.stream(game.getCombinations())
+                .filter(combination -> When.SAME_SYMBOLS.equals(combination.getWhen()))
+                .mapToInt(CompiledCombination::getCount)
+                .toArray();
+    }
+
+    CompiledGame getGame() {
+        return game;
+    }
+
+    Outcome reference(String[][] matrix) {
+        ReferenceRewardCalculator calculator = new ReferenceRewardCalculator(matrix, config, bettingAmount);
+        double reward = calculator.calculateReward();
+        return new Outcome(reward, calculator.getAppliedWinningCombinations(), calculator.getAppliedBonusSymbols());
+    }
+
+    /**
+     * Compares matrices {@code 0} to {@code count - 1} of the seed on engines made per thread by the given
+     * factory, in parallel blocks, and returns the description of the first mismatch found, or null.
+     */
+    String run(Function<CompiledGame, Map<String, Engine>> engines, long seed, long count) {
+        return LongStream.range(0, (count + BLOCK_SIZE - 1) / BLOCK_SIZE)
+                .parallel()
+                .mapToObj(block -> runBlock(engines.apply(game), seed, block * BLOCK_SIZE,
+                        Math.min(count, (block + 1) * BLOCK_SIZE)))
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private String runBlock(Map<String, Engine> engines, long seed, long first, long last) {
+        SpinRandom random = new SpinRandom(seed);
+        MatrixGenerator[] generators = Arrays.stream(BONUS_PERCENTAGES)
+                .mapToObj(bonusPercentage -> new MatrixGenerator(game, bonusPercentage, random))
+                .toArray(MatrixGenerator[]::new);
+        for (long index = first; index < last; index++) {
+            random.startSpin(index);
+            String[][] matrix = matrix(index, random, generators);
+            Outcome expected = reference(matrix);
+            for (Map.Entry<String, Engine> engine : engines.entrySet()) {
+                Outcome actual = engine.getValue().evaluate(copy(matrix), bettingAmount);
+                if (!actual.matches(expected)) {
+                    String[][] shrunk = shrink(engine.getValue(), matrix);
+                    return engine.getKey() + " differs on matrix " + index + " of seed " + seed + ": "
+                            + format(matrix) + "\nshrunk to " + format(shrunk)
+                            + "\nexpected " + reference(shrunk)
+                            + "\nactual   " + engine.getValue().evaluate(copy(shrunk), bettingAmount);
+                }
+            }
+        }
+        return null;
+    }
+
+    // Cycles through weighted spins and matrices built to hit count tiers, full areas and bonus symbols
+    private String[][] matrix(long index, SpinRandom random, MatrixGenerator[] generators) {
+        int kind = (int) (index % 5);
+        if (kind == 0) {
+            return game.decode(generators[(int) (index / 5 % generators.length)].generateCells());
+        }
+        String[][] matrix = new String[game.getRows()][game.getColumns()];
+        switch (kind) {
+            case 1:
+                // Any symbol anywhere
+                fill(matrix, random, symbols);
+                break;
+            case 2:
+                // Two symbols only, which makes high counts and full areas likely
+                fill(matrix, random, new String[]{pick(random, symbols), pick(random, symbols)});
+                break;
+            case 3:
+                // A few areas filled with one symbol each
+                fill(matrix, random, symbols);
+                for (int i = random.nextInt(3); i >= 0 && areas.length > 0; i--) {
+                    int[][] combinationAreas = areas[random.nextInt(areas.length)];
+                    String symbol = pick(random, symbols);
+                    for (int cell : combinationAreas[random.nextInt(combinationAreas.length)]) {
+                        matrix[cell / game.getColumns()][cell % game.getColumns()] = symbol;
+                    }
+                }
+                break;
+            default:
+                // A standard symbol exactly at, or one off, the count of a same_symbols combination
+                fill(matrix, random, standardSymbols);
+                if (sameSymbolCounts.length > 0) {
+                    int count = sameSymbolCounts[random.nextInt(sameSymbolCounts.length)] + random.nextInt(3) - 1;
+                    String symbol = pick(random, standardSymbols);
+                    for (int i = 0; i < count; i++) {
+                        int cell = random.nextInt(game.getCellCount());
+                        matrix[cell / game.getColumns()][cell % game.getColumns()] = symbol;
+                    }
+                }
+        }
+        return matrix;
+    }
+
+    /**
+     * Replaces cells by symbols earlier in the config for as long as the engine still disagrees with the
+     * reference. Every replacement lowers the sum of symbol ids, so shrinking ends.
+     */
+    String[][] shrink(Engine engine, String[][] matrix) {
+        String[][] shrunk = copy(matrix);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (String[] row : shrunk) {
+                for (int col = 0; col < row.length; col++) {
+                    String original = row[col];
+                    for (int symbol = 0; symbol < game.symbolId(original); symbol++) {
+                        row[col] = symbols[symbol];
+                        if (!engine.evaluate(copy(shrunk), bettingAmount).matches(reference(shrunk))) {
+                            changed = true;
+                            break;
+                        }
+                        row[col] = original;
+                    }
+                }
+            }
+        }
+        return shrunk;
+    }
+
+    private static void fill(String[][] matrix, SpinRandom random, String[] candidates) {
+        for (String[] row : matrix) {
+            for (int col = 0; col < row.length; col++) {
+                row[col] = pick(random, candidates);
+            }
+        }
+    }
+
+    private static String pick(SpinRandom random, String[] candidates) {
+        return candidates[random.nextInt(candidates.length)];
+    }
+
+    // Engines get their own copy, so that one changing the matrix cannot hide a mismatch
+    private static String[][] copy(String[][] matrix) {
+        String[][] copy = new String[matrix.length][];
+        for (int row = 0; row < matrix.length; row++) {
+            copy[row] = matrix[row].clone();
+        }
+        return copy;
+    }
+
+    static String format(String[][] matrix) {
+        List<String> rows = new ArrayList<>();
+        for (String[] row : matrix) {
+            rows.add(String.join(" ", row));
+        }
+        return rows.stream().collect(Collectors.joining(" / ", "[", "]"));
+    }
+}
@@ -0,0 +1,112 @@
+package ru.kropotov;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.model.RequestConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+
+class ExactRtpCalculatorTest {
+    private RequestConfig config;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        config = objectMapper.readValue(new File("src/test/resources/config.json"), RequestConfig.class);
+    }
+
+    @Test
+    void testMatchesEnumerationOfEveryMatrix() {
+        // Two standard and two bonus symbols keep all 4^9 matrices enumerable, lines of 10x included
+        Map<String, Integer> standardWeights = new LinkedHashMap<>();
+        standardWeights.put("A", 1);
+        standardWeights.put("B", 2);
+        config.getProbabilities().getStandardSymbols().forEach(ss -> ss.setSymbols(standardWeights));
+        Map<String, Integer> bonusWeights = new LinkedHashMap<>();
+        bonusWeights.put("10x", 1);
+        bonusWeights.put("MISS", 3);
+        config.getProbabilities().getBonusSymbols().setSymbols(bonusWeights);
+        CompiledGame game = CompiledGame.compile(config, 3, 3);
+        double bonusPercentage = 0.3;
+
+        ExactRtpResult result = new ExactRtpCalculator(game, bonusPercentage, 100).calculate().orElseThrow();
+
+        int[] symbols = {game.symbolId("A"), game.symbolId("B"), game.symbolId("10x"), game.symbolId("MISS")};
+        double[] probabilities = {(1 - bonusPercentage) / 3, (1 - bonusPercentage) * 2 / 3,
+                bonusPercentage / 4, bonusPercentage * 3 / 4};
+        Map<Double, Double> expected = new HashMap<>();
+        int[] matrix = new int[9];
+        for (int index = 0; index < 1 << 18; index++) {
+            double probability = 1.0;
+            for (int cell = 0; cell < 9; cell++) {
+                int choice = (index >> (2 * cell)) & 3;
+                matrix[cell] = symbols[choice];
+                probability *= probabilities[choice];
+            }
+            double reward = new RewardCalculator(matrix, game, 100).calculateReward();
+            expected.merge(reward, probability, Double::sum);
+        }
+
+        SortedMap<Double, Double> distribution = result.getPayoutDistribution();
+        assertEquals(expected.keySet(), distribution.keySet());
+        expected.forEach((reward, probability) -> assertEquals(probability, distribution.get(reward), 1e-12));
+        double expectedReward = expected.entrySet().stream().mapToDouble(e -> e.getKey() * e.getValue()).sum();
+        assertEquals(expectedReward, result.getExpectedReward(), expectedReward * 1e-12);
+        assertEquals(expectedReward / 100, result.getRtp(), expectedReward * 1e-14);
+        assertEquals(1.0 - expected.get(0.0), result.getWinProbability(), 1e-12);
+    }
+
+    @Test
+    void testAgreesWithSimulation() {
+        CompiledGame game = CompiledGame.compile(config, 3, 3);
+        double bonusPercentage = 0.1;
+        ExactRtpResult exact = new ExactRtpCalculator(game, bonusPercentage, 1).calculate().orElseThrow();
+        double total = exact.getPayoutDistribution().values().stream().mapToDouble(Double::doubleValue).sum();
+        assertEquals(1.0, total, 1e-12);
+
+        SimulationResult simulated = new Simulator(game, bonusPercentage, 1, 7L).run(1_000_000);
+
+        double spins = simulated.getSpins();
+        double hitError = Math.sqrt(exact.getWinProbability() * (1 - exact.getWinProbability()) / spins);
+        assertEquals(exact.getWinProbability(), simulated.getHitFrequency(), 6 * hitError);
+        double second = exact.getPayoutDistribution().entrySet().stream()
+                .mapToDouble(e -> e.getKey() * e.getKey() * e.getValue()).sum();
+        double rtpError = Math.sqrt((second - exact.getRtp() * exact.getRtp()) / spins);
+        assertEquals(exact.getRtp(), simulated.getRtp(), 6 * rtpError);
+    }
+
+    @Test
+    void testWithoutBonusSymbols() {
+        // With a single symbol every cell is A, so the matrix always wins everything
+        config.getProbabilities().getStandardSymbols().forEach(ss -> ss.setSymbols(Map.of("A", 1)));
+        CompiledGame game = CompiledGame.compile(config, 3, 3);
+        int[] matrix = new MatrixGenerator(game, 0).generateCells();
+        double reward = new RewardCalculator(matrix, game, 100).calculateReward();
+
+        ExactRtpResult result = new ExactRtpCalculator(game, 0, 100).calculate().orElseThrow();
+        assertEquals(Map.of(reward, 1.0), result.getPayoutDistribution());
+        assertEquals(1.0, result.getWinProbability());
+        assertEquals(reward, result.getMaxWin());
+        assertEquals(1, result.getStates());
+    }
+
+    @Test
+    void testFallsBackWhenStateSpaceIsTooLarge() {
+        CompiledGame game = CompiledGame.compile(config);
+        ExactRtpCalculator calculator = new ExactRtpCalculator(game, Main.DEFAULT_BONUS_PERCENTAGE, 1);
+        assertTrue(calculator.countStates() > ExactRtpCalculator.DEFAULT_MAX_STATES);
+        assertTrue(calculator.calculate().isEmpty());
+
+        CompiledGame small = CompiledGame.compile(config, 3, 3);
+        assertTrue(new ExactRtpCalculator(small, Main.DEFAULT_BONUS_PERCENTAGE, 1, 1000).calculate().isEmpty());
+    }
+}
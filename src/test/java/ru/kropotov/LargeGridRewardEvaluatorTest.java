@@ -0,0 +1,93 @@
+package ru.kropotov;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.model.RequestConfig;
+import ru.kropotov.model.WinCombination;
+import ru.kropotov.model.enums.When;
+import ru.kropotov.random.SpinRandom;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class LargeGridRewardEvaluatorTest {
+    private static final int SIZE = 60;
+
+    private CompiledGame game;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        RequestConfig config = objectMapper.readValue(new File("src/test/resources/config.json"), RequestConfig.class);
+        List<List<String>> rows = new ArrayList<>();
+        for (int row = 0; row < SIZE; row++) {
+            int line = row;
+            rows.add(IntStream.range(0, SIZE).mapToObj(col -> line + ":" + col).collect(Collectors.toList()));
+        }
+        config.getWinCombinations().put("full_row", WinCombination.builder()
+                .rewardMultiplier(4.0).when(When.LINEAR_SYMBOLS).group("full_rows").coveredAreas(rows).build());
+        game = CompiledGame.compile(config, SIZE, SIZE);
+    }
+
+    @Test
+    void testIsChosenForLargeGrids() {
+        assertTrue(RewardEvaluator.forGame(game) instanceof LargeGridRewardEvaluator);
+    }
+
+    @Test
+    void testMatchesPlainEvaluator() {
+        RewardEvaluator plainEvaluator = new RewardEvaluator(game);
+        RewardEvaluator largeGridEvaluator = new LargeGridRewardEvaluator(game);
+        Evaluation expected = plainEvaluator.newEvaluation();
+        Evaluation evaluation = largeGridEvaluator.newEvaluation();
+        SplittableRandom random = new SplittableRandom(17L);
+        MatrixGenerator matrixGenerator = new MatrixGenerator(game, 0.01, new SpinRandom(17L));
+        int[] matrix = new int[game.getCellCount()];
+
+        int wins = 0;
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int spin = 0; spin < 300; spin++) {
+                matrixGenerator.generateCells(matrix);
+                // Fill some rows with a single symbol so that full rows and bonus multipliers come into play
+                for (int row = 0; row < SIZE; row++) {
+                    if (random.nextInt(4) == 0) {
+                        int symbol = random.nextInt(game.symbolCount());
+                        for (int col = 0; col < SIZE; col++) {
+                            matrix[row * SIZE + col] = symbol;
+                        }
+                    }
+                }
+                double reward = plainEvaluator.evaluate(matrix, 100, expected);
+                if (reward > 0) {
+                    wins++;
+                }
+                assertEquals(reward, (double) pool.submit(() -> largeGridEvaluator.evaluate(matrix, 100, evaluation))
+                        .join());
+                assertEquals(expected.getAppliedWinningCombinations(), evaluation.getAppliedWinningCombinations());
+                assertEquals(expected.getAppliedBonusSymbols(), evaluation.getAppliedBonusSymbols());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertTrue(wins > 0);
+    }
+
+    @Test
+    void testRejectsForeignEvaluation() {
+        RewardEvaluator largeGridEvaluator = new LargeGridRewardEvaluator(game);
+        Evaluation evaluation = new RewardEvaluator(game).newEvaluation();
+        assertThrows(IllegalArgumentException.class,
+                () -> largeGridEvaluator.evaluate(new int[game.getCellCount()], 100, evaluation));
+    }
+}
@@ -6,11 +6,15 @@ import static ru.kropotov.Main.DEFAULT_BONUS_PERCENTAGE;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import ru.kropotov.game.CompiledGame;
 import ru.kropotov.model.RequestConfig;
 import ru.kropotov.model.enums.Type;
+import ru.kropotov.random.SpinRandom;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 class MatrixGeneratorTest {
     private RequestConfig config;
@@ -45,4 +49,92 @@ class MatrixGeneratorTest {
         }
         assertTrue(bonusSymbolCount > 0);
     }
+
+    @Test
+    void testStandardSymbolFrequenciesMatchWeights() {
+        MatrixGenerator matrixGenerator = new MatrixGenerator(config, 0);
+        Map<String, Integer> weights = config.getProbabilities().getStandardSymbols().get(0).getSymbols();
+        assertFrequenciesMatch(weights, countSymbols(matrixGenerator, 20_000));
+    }
+
+    @Test
+    void testBonusSymbolFrequenciesMatchWeights() {
+        MatrixGenerator matrixGenerator = new MatrixGenerator(config, 1);
+        Map<String, Integer> weights = config.getProbabilities().getBonusSymbols().getSymbols();
+        assertFrequenciesMatch(weights, countSymbols(matrixGenerator, 20_000));
+    }
+
+    @Test
+    void testSparseBonusCellsMatchPercentage() {
+        CompiledGame game = CompiledGame.compile(config, 100, 100);
+        assertTrue(game.getCellCount() >= MatrixGenerator.SPARSE_BONUS_MIN_CELLS);
+        double bonusPercentage = 0.03;
+        MatrixGenerator matrixGenerator = new MatrixGenerator(game, bonusPercentage, new SpinRandom(21L));
+        int spins = 500;
+        int[] cells = new int[game.getCellCount()];
+        // Bonus cells per tenth of the grid, which must be uniform across the grid
+        Map<String, Integer> bands = new HashMap<>();
+        Map<String, Integer> bandWeights = new HashMap<>();
+        for (int spin = 0; spin < spins; spin++) {
+            matrixGenerator.generateCells(cells);
+            for (int cell = 0; cell < cells.length; cell++) {
+                if (game.isBonus(cells[cell])) {
+                    bands.merge("band " + cell * 10 / cells.length, 1, Integer::sum);
+                }
+            }
+        }
+        for (int band = 0; band < 10; band++) {
+            bandWeights.put("band " + band, 1);
+        }
+
+        long bonusCells = bands.values().stream().mapToInt(Integer::intValue).sum();
+        double expected = (double) spins * cells.length * bonusPercentage;
+        double sigma = Math.sqrt(expected * (1 - bonusPercentage));
+        assertTrue(Math.abs(bonusCells - expected) < 6 * sigma, bonusCells + " bonus cells, expected " + expected);
+        assertFrequenciesMatch(bandWeights, bands);
+    }
+
+    @Test
+    void testBatchMatchesSpinBySpin() {
+        // The 100x100 grid places its bonus symbols sparsely
+        for (CompiledGame game : new CompiledGame[]{CompiledGame.compile(config), CompiledGame.compile(config, 100, 100)}) {
+            SpinRandom random = new SpinRandom(8L);
+            MatrixGenerator matrixGenerator = new MatrixGenerator(game, 0.2, random);
+            SpinBatch batch = new BatchRewardEvaluator(game, false).newBatch(70);
+            matrixGenerator.generateCells(batch, 1000, 70);
+            int[] cells = new int[game.getCellCount()];
+            for (int spin = 0; spin < batch.size(); spin++) {
+                random.startSpin(1000 + spin);
+                matrixGenerator.generateCells(cells);
+                assertArrayEquals(cells, batch.readMatrix(spin, new int[cells.length]));
+            }
+        }
+    }
+
+    private static Map<String, Integer> countSymbols(MatrixGenerator matrixGenerator, int spins) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < spins; i++) {
+            for (String[] row : matrixGenerator.generateMatrix()) {
+                for (String cell : row) {
+                    counts.merge(cell, 1, Integer::sum);
+                }
+            }
+        }
+        return counts;
+    }
+
+    private static void assertFrequenciesMatch(Map<String, Integer> weights, Map<String, Integer> counts) {
+        int totalWeight = weights.values().stream().mapToInt(Integer::intValue).sum();
+        int total = counts.values().stream().mapToInt(Integer::intValue).sum();
+        assertEquals(weights.keySet(), counts.keySet());
+        double chiSquare = 0;
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            double expected = (double) total * entry.getValue() / totalWeight;
+            double difference = counts.get(entry.getKey()) - expected;
+            chiSquare += difference * difference / expected;
+        }
+        int degreesOfFreedom = weights.size() - 1;
+        double bound = degreesOfFreedom + 6 * Math.sqrt(2.0 * degreesOfFreedom);
+        assertTrue(chiSquare < bound, "chi-square " + chiSquare + " exceeds " + bound);
+    }
 }
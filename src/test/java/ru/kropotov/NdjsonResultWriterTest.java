@@ -0,0 +1,104 @@
+package ru.kropotov;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.model.RequestConfig;
+import ru.kropotov.random.SpinRandom;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+class NdjsonResultWriterTest {
+    private static final TypeReference<Map<String, Object>> RESULT = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private CompiledGame game;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        RequestConfig config = objectMapper.readValue(new File("src/test/resources/config.json"), RequestConfig.class);
+        game = CompiledGame.compile(config, 3, 3);
+    }
+
+    @Test
+    void testLinesMatchPrintedResults() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SpinRandom random = new SpinRandom(3L);
+        MatrixGenerator matrixGenerator = new MatrixGenerator(game, 0.3, random);
+        String[] printed = new String[200];
+        try (NdjsonResultWriter writer = new NdjsonResultWriter(out, 16)) {
+            for (int spin = 0; spin < printed.length; spin++) {
+                random.startSpin(spin);
+                int[] matrix = matrixGenerator.generateCells();
+                RewardCalculator rewardCalculator = new RewardCalculator(matrix, game, 100);
+                double reward = rewardCalculator.calculateReward();
+                writer.write(matrix, rewardCalculator.getEvaluation());
+                printed[spin] = Main.formatResult(game, matrix, reward,
+                        rewardCalculator.getAppliedWinningCombinations(), rewardCalculator.getAppliedBonusSymbols());
+            }
+        }
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertEquals(printed.length + 1, lines.length);
+        assertEquals("", lines[printed.length]);
+        for (int spin = 0; spin < printed.length; spin++) {
+            assertFalse(lines[spin].contains(" "), lines[spin]);
+            assertEquals(objectMapper.readValue(printed[spin], RESULT), objectMapper.readValue(lines[spin], RESULT));
+        }
+    }
+
+    @Test
+    void testFlushesInBatches() throws IOException {
+        int[] flushes = new int[1];
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                flushes[0]++;
+            }
+        };
+        int[] matrix = new MatrixGenerator(game, 0.5).generateCells();
+        RewardCalculator rewardCalculator = new RewardCalculator(matrix, game, 10);
+        rewardCalculator.calculateReward();
+
+        NdjsonResultWriter writer = new NdjsonResultWriter(out, 4);
+        for (int i = 0; i < 10; i++) {
+            writer.write(matrix, rewardCalculator.getEvaluation());
+        }
+        assertEquals(2, flushes[0]);
+        assertEquals(8, out.toString(StandardCharsets.UTF_8).split("\n").length);
+        writer.close();
+        assertEquals(10, out.toString(StandardCharsets.UTF_8).split("\n").length);
+    }
+
+    @Test
+    void testWritesToFile() throws IOException {
+        Path file = directory.resolve("results.ndjson");
+        int[] matrix = new MatrixGenerator(game, 0.5).generateCells();
+        RewardCalculator rewardCalculator = new RewardCalculator(matrix, game, 10);
+        double reward = rewardCalculator.calculateReward();
+        try (NdjsonResultWriter writer = NdjsonResultWriter.toFile(file, 0)) {
+            writer.write(matrix, rewardCalculator.getEvaluation());
+            writer.write(matrix, rewardCalculator.getEvaluation());
+        }
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        assertEquals(reward, ((Number) objectMapper.readValue(lines.get(1), RESULT).get("reward")).doubleValue());
+    }
+}
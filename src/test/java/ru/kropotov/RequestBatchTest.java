@@ -0,0 +1,153 @@
+package ru.kropotov;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.model.RequestConfig;
+import ru.kropotov.random.SpinRandom;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+class RequestBatchTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private CompiledGame game;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        RequestConfig config = objectMapper.readValue(new File("src/test/resources/config.json"), RequestConfig.class);
+        game = CompiledGame.compile(config);
+    }
+
+    @Test
+    void testWritesResultsInInputOrder() throws IOException {
+        StringBuilder requests = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            requests.append("{\"bet\": ").append(i).append(", \"bonus_percentage\": 20, \"seed\": ").append(i)
+                    .append("}\n");
+        }
+        List<String> lines = run(new RequestBatch(game, null, null, 4, 16), requests.toString());
+
+        assertEquals(500, lines.size());
+        for (int i = 0; i < 500; i++) {
+            assertEquals(spin(i, 0.2, new SpinRandom(i)), lines.get(i));
+        }
+    }
+
+    @Test
+    void testRunSeedReplaysLinesWithoutSeed() throws IOException {
+        String requests = "{\"bet\": 100}\n{\"bet\": 100}\n{\"bet\": 100, \"seed\": 5}\n";
+        RequestBatch batch = new RequestBatch(game, 42L, null, 2, 4);
+        List<String> lines = run(batch, requests);
+
+        SpinRandom random = new SpinRandom(42L);
+        assertEquals(spin(100, Main.DEFAULT_BONUS_PERCENTAGE, random), lines.get(0));
+        random.startSpin(1);
+        assertEquals(spin(100, Main.DEFAULT_BONUS_PERCENTAGE, random), lines.get(1));
+        assertEquals(spin(100, Main.DEFAULT_BONUS_PERCENTAGE, new SpinRandom(5L)), lines.get(2));
+        assertEquals(lines, run(batch, requests));
+    }
+
+    @Test
+    void testReportsInvalidLinesInPlace() throws IOException {
+        String requests = "{\"bet\": 100, \"seed\": 1}\n\nnot json\n{\"bet\": -1}\n{\"bet\": 1, \"bonus_percentage\": 101}\n"
+                + "null\n{\"bet\": 100, \"seed\": 1}\n";
+        List<String> lines = run(new RequestBatch(game, null, null, 2, 4), requests);
+
+        assertEquals(6, lines.size());
+        assertEquals(spin(100, Main.DEFAULT_BONUS_PERCENTAGE, new SpinRandom(1L)), lines.get(0));
+        assertEquals(Map.of("line", 3, "error", "Invalid request"), parse(lines.get(1)));
+        assertEquals(Map.of("line", 4, "error", "bet must be a non-negative number"), parse(lines.get(2)));
+        assertEquals(Map.of("line", 5, "error", "bonus_percentage must be a number from 0 to 100"),
+                parse(lines.get(3)));
+        assertEquals(Map.of("line", 6, "error", "Invalid request"), parse(lines.get(4)));
+        assertEquals(lines.get(0), lines.get(5));
+    }
+
+    @Test
+    @Timeout(60)
+    void testReaderWaitsForSlowWriter() throws IOException {
+        int requests = 20_000;
+        int window = 8;
+        int threads = 2;
+        AtomicLong read = new AtomicLong();
+        AtomicLong written = new AtomicLong();
+        AtomicLong maxAhead = new AtomicLong();
+        Reader input = new Reader() {
+            private final byte[] line = "{\"bet\": 10}\n".getBytes(StandardCharsets.UTF_8);
+            private int position = line.length;
+
+            @Override
+            public int read(char[] buffer, int offset, int length) {
+                if (position == line.length) {
+                    if (read.get() == requests) {
+                        return -1;
+                    }
+                    read.incrementAndGet();
+                    position = 0;
+                }
+                // One character at a time so that the count of read lines is exact
+                buffer[offset] = (char) line[position++];
+                return 1;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        OutputStream output = new OutputStream() {
+            @Override
+            public void write(int b) {
+                if (b == '\n') {
+                    written.incrementAndGet();
+                }
+                maxAhead.accumulateAndGet(read.get() - written.get(), Math::max);
+            }
+        };
+
+        long results = new RequestBatch(game, 1L, null, threads, window).run(new BufferedReader(input, 1), output, 0);
+
+        assertEquals(requests, results);
+        assertEquals(requests, written.get());
+        // Queued lines, the line being written, the line the reader holds waiting for room and the one it started
+        assertTrue(maxAhead.get() <= window + 3, "Reader ran " + maxAhead.get() + " lines ahead");
+    }
+
+    private List<String> run(RequestBatch batch, String requests) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        batch.run(new BufferedReader(new StringReader(requests)), out, 1);
+        return out.toString(StandardCharsets.UTF_8).lines().collect(Collectors.toList());
+    }
+
+    private String spin(int bet, double bonusProbability, SpinRandom random) throws IOException {
+        int[] matrix = new MatrixGenerator(game, bonusProbability, random).generateCells();
+        RewardEvaluator evaluator = RewardEvaluator.forGame(game);
+        Evaluation evaluation = evaluator.newEvaluation();
+        evaluator.evaluate(matrix, bet, evaluation);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (NdjsonResultWriter writer = new NdjsonResultWriter(buffer, 0)) {
+            writer.write(matrix, evaluation);
+        }
+        return buffer.toString(StandardCharsets.UTF_8).stripTrailing();
+    }
+
+    private Map<String, Object> parse(String line) throws IOException {
+        return objectMapper.readValue(line, new TypeReference<>() {
+        });
+    }
+}
@@ -0,0 +1,78 @@
+package ru.kropotov;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.model.RequestConfig;
+import ru.kropotov.random.SpinRandom;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+class RewardEvaluatorTest {
+    private static final int SPINS = 100_000;
+
+    private CompiledGame game;
+    private RewardEvaluator evaluator;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        RequestConfig config = objectMapper.readValue(new File("src/test/resources/config.json"), RequestConfig.class);
+        game = CompiledGame.compile(config, 3, 3);
+        evaluator = new RewardEvaluator(game);
+    }
+
+    @Test
+    void testMatchesRewardCalculator() {
+        SpinRandom random = new SpinRandom(11L);
+        MatrixGenerator matrixGenerator = new MatrixGenerator(game, 0.3, random);
+        Evaluation evaluation = evaluator.newEvaluation();
+        for (int spin = 0; spin < 10_000; spin++) {
+            random.startSpin(spin);
+            int[] matrix = matrixGenerator.generateCells();
+            RewardCalculator rewardCalculator = new RewardCalculator(matrix, game, 100);
+
+            // The evaluation is reused across spins and must not keep anything from the previous one
+            assertEquals(rewardCalculator.calculateReward(), evaluator.evaluate(matrix, 100, evaluation));
+            assertEquals(rewardCalculator.getAppliedWinningCombinations(), evaluation.getAppliedWinningCombinations());
+            assertEquals(rewardCalculator.getAppliedBonusSymbols(), evaluation.getAppliedBonusSymbols());
+        }
+    }
+
+    @Test
+    void testSteadyStateSpinsDoNotAllocate() {
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        SpinRandom random = new SpinRandom(5L);
+        MatrixGenerator matrixGenerator = new MatrixGenerator(game, 0.3, random);
+        Evaluation evaluation = evaluator.newEvaluation();
+        int[] matrix = new int[game.getCellCount()];
+
+        // Warm up so that the measured loop runs compiled code with allocations of its own eliminated
+        double total = spin(random, matrixGenerator, matrix, evaluation, 0);
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        total += spin(random, matrixGenerator, matrix, evaluation, SPINS);
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue(total > 0);
+        // Allows for a few stray allocations of the runtime itself, far below one byte per spin
+        assertTrue(allocated < SPINS / 10, "Allocated " + allocated + " bytes in " + SPINS + " spins");
+    }
+
+    private double spin(SpinRandom random, MatrixGenerator matrixGenerator, int[] matrix, Evaluation evaluation,
+                        long firstSpin) {
+        double total = 0;
+        for (long spin = firstSpin; spin < firstSpin + SPINS; spin++) {
+            random.startSpin(spin);
+            matrixGenerator.generateCells(matrix);
+            total += evaluator.evaluate(matrix, 100, evaluation);
+        }
+        return total;
+    }
+}
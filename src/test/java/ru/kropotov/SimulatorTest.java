@@ -0,0 +1,139 @@
+package ru.kropotov;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.kropotov.Main.DEFAULT_BONUS_PERCENTAGE;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.kropotov.game.CompiledCombination;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.model.RequestConfig;
+import ru.kropotov.model.enums.When;
+import ru.kropotov.random.SpinRandom;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+class SimulatorTest {
+    private RequestConfig config;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        config = objectMapper.readValue(new File("src/test/resources/config.json"), RequestConfig.class);
+    }
+
+    @Test
+    void testSimulationCountsEverySpin() {
+        CompiledGame game = CompiledGame.compile(config);
+        long spins = 3L * Simulator.CHUNK_SIZE + 17;
+        SimulationResult result = new Simulator(game, DEFAULT_BONUS_PERCENTAGE, 10, 1L).run(spins);
+        assertEquals(spins, result.getSpins());
+        assertEquals(spins * 10.0, result.getTotalBet());
+        assertTrue(result.getHits() > 0 && result.getHits() < spins);
+        assertTrue(result.getMaxWin() > 0);
+        assertTrue(result.getRtp() > 0);
+    }
+
+    @Test
+    void testSimulationOfDeterministicGame() {
+        // Only symbol A can be generated and bonus symbols never are, so every spin is the same win
+        config.getProbabilities().getStandardSymbols().forEach(ss -> ss.setSymbols(Map.of("A", 1)));
+        CompiledGame game = CompiledGame.compile(config);
+        int[] matrix = new MatrixGenerator(game, 0).generateCells();
+        RewardCalculator rewardCalculator = new RewardCalculator(matrix, game, 100);
+        double reward = rewardCalculator.calculateReward();
+
+        SimulationResult result = new Simulator(game, 0, 100, 1L).run(1000);
+        assertEquals(1000 * reward, result.getTotalWin());
+        assertEquals(reward, result.getMaxWin());
+        assertEquals(1.0, result.getHitFrequency());
+        assertEquals(reward / 100, result.getRtp());
+        for (CompiledCombination combination : game.getCombinations()) {
+            long expectedHits = When.LINEAR_SYMBOLS.equals(combination.getWhen()) ? 1000 : 0;
+            assertEquals(expectedHits, result.getCombinationHits()[combination.getId()], combination.getName());
+        }
+    }
+
+    @Test
+    void testMergeAddsUpPartialResults() {
+        CompiledGame game = CompiledGame.compile(config);
+        Simulator simulator = new Simulator(game, DEFAULT_BONUS_PERCENTAGE, 1, 1L);
+        SimulationResult first = simulator.run(500);
+        SimulationResult second = simulator.run(700);
+        double maxWin = Math.max(first.getMaxWin(), second.getMaxWin());
+        long hits = first.getHits() + second.getHits();
+
+        SimulationResult merged = first.merge(second);
+        assertEquals(1200, merged.getSpins());
+        assertEquals(hits, merged.getHits());
+        assertEquals(maxWin, merged.getMaxWin());
+    }
+
+    @Test
+    void testStopsOnceConfidenceIntervalIsNarrow() {
+        CompiledGame game = CompiledGame.compile(config);
+        Simulator simulator = new Simulator(game, DEFAULT_BONUS_PERCENTAGE, 10, 3L);
+        long roundSpins = (long) Simulator.ROUND_CHUNKS * Simulator.CHUNK_SIZE;
+        double roundHalfWidth = simulator.run(roundSpins).getPayoutStatistics().getConfidenceHalfWidth();
+
+        // Reached after the first round
+        SimulationResult wide = simulator.runUntil(roundHalfWidth * 2, 10 * roundSpins);
+        assertEquals(roundSpins, wide.getSpins());
+        assertTrue(wide.getPayoutStatistics().getConfidenceHalfWidth() <= roundHalfWidth * 2);
+
+        // Never reached, so every spin runs
+        SimulationResult narrow = simulator.runUntil(roundHalfWidth / 100, roundSpins + 5);
+        assertEquals(roundSpins + 5, narrow.getSpins());
+    }
+
+    @Test
+    void testSameSeedGivesSameResult() {
+        CompiledGame game = CompiledGame.compile(config);
+        SimulationResult first = new Simulator(game, DEFAULT_BONUS_PERCENTAGE, 100, 2024L).run(100_000);
+        SimulationResult second = new Simulator(game, DEFAULT_BONUS_PERCENTAGE, 100, 2024L).run(100_000);
+        assertEquals(first.getTotalWin(), second.getTotalWin());
+        assertEquals(first.getHits(), second.getHits());
+        assertArrayEquals(first.getCombinationHits(), second.getCombinationHits());
+        assertArrayEquals(first.getBonusSymbolHits(), second.getBonusSymbolHits());
+    }
+
+    @Test
+    void testSpinOfSimulationCanBeReplayed() {
+        CompiledGame game = CompiledGame.compile(config);
+        long spin = Simulator.CHUNK_SIZE + 123;
+        SpinRandom random = new SpinRandom(99L);
+        random.startSpin(spin);
+        int[] matrix = new MatrixGenerator(game, DEFAULT_BONUS_PERCENTAGE, random).generateCells();
+        double reward = new RewardCalculator(matrix, game, 100).calculateReward();
+
+        SimulationResult withSpin = new Simulator(game, DEFAULT_BONUS_PERCENTAGE, 100, 99L).run(spin + 1);
+        SimulationResult withoutSpin = new Simulator(game, DEFAULT_BONUS_PERCENTAGE, 100, 99L).run(spin);
+        assertEquals(reward, withSpin.getTotalWin() - withoutSpin.getTotalWin(), 1e-6);
+    }
+
+    @Test
+    void testSimulatesLargeGridSpinBySpin() {
+        CompiledGame game = CompiledGame.compile(config, 50, 50);
+        assertTrue(LargeGridRewardEvaluator.supports(game));
+        SpinRandom random = new SpinRandom(7L);
+        MatrixGenerator matrixGenerator = new MatrixGenerator(game, DEFAULT_BONUS_PERCENTAGE, random);
+        RewardEvaluator evaluator = RewardEvaluator.forGame(game);
+        Evaluation evaluation = evaluator.newEvaluation();
+        SimulationResult expected = new SimulationResult(game);
+        for (long spin = 0; spin < 300; spin++) {
+            random.startSpin(spin);
+            evaluator.evaluate(matrixGenerator.generateCells(), 100, evaluation);
+            expected.record(100, evaluation);
+        }
+
+        SimulationResult result = new Simulator(game, DEFAULT_BONUS_PERCENTAGE, 100, 7L).run(300);
+        assertEquals(300, result.getSpins());
+        assertEquals(expected.getTotalWin(), result.getTotalWin());
+        assertEquals(expected.getHits(), result.getHits());
+        assertArrayEquals(expected.getCombinationHits(), result.getCombinationHits());
+        assertArrayEquals(expected.getBonusSymbolHits(), result.getBonusSymbolHits());
+    }
+}
@@ -0,0 +1,135 @@
+package ru.kropotov;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.model.RequestConfig;
+import ru.kropotov.random.SpinRandom;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+class SlotEngineTest {
+    private RequestConfig config;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        config = objectMapper.readValue(new File("src/test/resources/config.json"), RequestConfig.class);
+    }
+
+    @Test
+    void testSeededContextReplaysSpinsOfSeed() throws IOException {
+        SlotEngine engine = new SlotEngine(config, 0.3);
+        CompiledGame game = engine.getGame();
+        SpinContext context = engine.newContext(25L);
+
+        for (int spin = 0; spin < 1000; spin++) {
+            double reward = context.spin(100);
+
+            SpinRandom random = new SpinRandom(25L);
+            random.startSpin(spin);
+            int[] matrix = new MatrixGenerator(game, 0.3, random).generateCells();
+            RewardCalculator calculator = new RewardCalculator(matrix, game, 100);
+            assertEquals(calculator.calculateReward(), reward, 0);
+            assertArrayEquals(game.decode(matrix), context.getMatrix());
+            assertEquals(calculator.getAppliedWinningCombinations(), context.getAppliedWinningCombinations());
+            assertEquals(calculator.getAppliedBonusSymbols(), context.getAppliedBonusSymbols());
+            assertEquals(Main.formatResult(game, matrix, reward, calculator.getAppliedWinningCombinations(),
+                    calculator.getAppliedBonusSymbols()), context.toJson());
+        }
+        assertEquals(1000, context.getSpins());
+    }
+
+    @Test
+    void testConcurrentContextsMatchSequentialSpins() throws Exception {
+        SlotEngine engine = new SlotEngine(config);
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Double>> totals = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                long seed = thread;
+                totals.add(executor.submit(() -> spinTotal(engine.newContext(seed))));
+            }
+            for (int thread = 0; thread < threads; thread++) {
+                assertEquals(spinTotal(engine.newContext(thread)), totals.get(thread).get(), 0);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static double spinTotal(SpinContext context) {
+        double total = 0;
+        for (int spin = 0; spin < 5000; spin++) {
+            total += context.spin(10);
+        }
+        return total;
+    }
+
+    @Test
+    void testEachThreadGetsItsOwnContext() throws Exception {
+        SlotEngine engine = new SlotEngine(config);
+        SpinContext context = engine.context();
+        assertSame(context, engine.context());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            SpinContext other = executor.submit(engine::context).get();
+            assertNotSame(context, other);
+            assertSame(engine.getGame(), other.getGame());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testDiscardedEngineIsCollectable() throws InterruptedException {
+        WeakReference<SlotEngine> engine = discardedEngine();
+        for (int i = 0; i < 100 && engine.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(engine.get());
+    }
+
+    // An engine whose context this thread still holds in the engine's thread-local
+    private WeakReference<SlotEngine> discardedEngine() {
+        SlotEngine engine = new SlotEngine(config);
+        engine.context().spin(100);
+        return new WeakReference<>(engine);
+    }
+
+    @Test
+    void testEvaluatesGivenMatrix() {
+        SpinContext context = new SlotEngine(CompiledGame.compile(config, 3, 3), 0.5).newContext();
+
+        double reward = context.evaluate(new String[][]{
+                {"A", "A", "B"},
+                {"A", "+1000", "B"},
+                {"A", "A", "B"}
+        }, 100);
+
+        assertEquals(3600, reward);
+        assertEquals(List.of("+1000"), context.getAppliedBonusSymbols());
+        assertEquals(reward, context.getReward());
+        assertEquals(1026, context.getOutcome().price(1));
+        assertEquals(0, context.getSpins());
+    }
+
+    @Test
+    void testRejectsInvalidBonusPercentage() {
+        assertThrows(IllegalArgumentException.class, () -> new SlotEngine(config, 1.5));
+        assertThrows(IllegalArgumentException.class, () -> new SlotEngine(config, Double.NaN));
+    }
+}
@@ -0,0 +1,115 @@
+package ru.kropotov;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.model.RequestConfig;
+import ru.kropotov.random.SpinRandom;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+class SpinOutcomeTest {
+    private static final int[] BETS = {0, 1, 3, 7, 10, 100, 12345};
+
+    private RequestConfig config;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        config = objectMapper.readValue(new File("src/test/resources/config.json"), RequestConfig.class);
+    }
+
+    @Test
+    void testPricesEveryBetLikeEvaluatingIt() {
+        // Multipliers without an exact binary form, so that a reordered product would round differently
+        config.getSymbols().get("A").setRewardMultiplier(1.1);
+        config.getSymbols().get("C").setRewardMultiplier(3.3);
+        config.getSymbols().get("10x").setRewardMultiplier(1.15);
+        config.getWinCombinations().get("same_symbols_horizontally").setRewardMultiplier(2.1);
+        CompiledGame game = CompiledGame.compile(config);
+        RewardEvaluator evaluator = RewardEvaluator.forGame(game);
+        Evaluation evaluation = evaluator.newEvaluation();
+        MatrixGenerator generator = new MatrixGenerator(game, 0.3, new SpinRandom(24L));
+        SpinOutcome outcome = new SpinOutcome(game);
+        double[] rewards = new double[BETS.length];
+
+        for (int spin = 0; spin < 20_000; spin++) {
+            int[] matrix = generator.generateCells();
+            evaluator.evaluate(matrix, BETS[spin % BETS.length], evaluation);
+            outcome.capture(matrix, evaluation);
+            outcome.price(BETS, rewards);
+            for (int i = 0; i < BETS.length; i++) {
+                double expected = evaluator.evaluate(matrix, BETS[i], evaluation);
+                assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(rewards[i]),
+                        "Bet " + BETS[i] + " of spin " + spin);
+                assertEquals(evaluation.getAppliedWinningCombinations(), outcome.getAppliedWinningCombinations());
+                if (evaluation.totalReward != 0) {
+                    assertEquals(evaluation.getAppliedBonusSymbols(), outcome.getAppliedBonusSymbols());
+                }
+            }
+        }
+    }
+
+    @Test
+    void testOutcomeOfZeroBetKeepsBonusSymbols() {
+        CompiledGame game = CompiledGame.compile(config, 3, 3);
+        RewardCalculator calculator = new RewardCalculator(game.encode(new String[][]{
+                {"A", "A", "B"},
+                {"A", "+1000", "B"},
+                {"A", "A", "B"}
+        }), game, 0);
+
+        SpinOutcome outcome = calculator.calculateOutcome();
+
+        assertEquals(0, calculator.calculateReward());
+        assertTrue(calculator.getAppliedBonusSymbols().isEmpty());
+        assertEquals(List.of("+1000"), outcome.getAppliedBonusSymbols());
+        assertEquals(1000, outcome.getExtraBonus());
+        assertEquals(new RewardCalculator(calculator.getMatrix(), game, 100).calculateReward(), outcome.price(100));
+    }
+
+    @Test
+    void testCalculatesRewardsOfBetLadder() {
+        String[][] matrix = {
+                {"A", "A", "B"},
+                {"A", "10x", "B"},
+                {"A", "A", "B"}
+        };
+
+        double[] rewards = new RewardCalculator(matrix, config, 100).calculateRewards(1, 100, 250);
+
+        assertArrayEquals(new double[]{
+                new RewardCalculator(matrix, config, 1).calculateReward(),
+                new RewardCalculator(matrix, config, 100).calculateReward(),
+                new RewardCalculator(matrix, config, 250).calculateReward()
+        }, rewards, 0);
+        assertEquals(26000, rewards[1]);
+    }
+
+    @Test
+    void testLosingOutcomePricesNothing() {
+        CompiledGame game = CompiledGame.compile(config, 3, 3);
+        SpinOutcome outcome = new RewardCalculator(game.encode(new String[][]{
+                {"A", "B", "C"},
+                {"D", "+1000", "E"},
+                {"F", "A", "B"}
+        }), game, 100).calculateOutcome();
+
+        assertFalse(outcome.isWinning());
+        assertEquals(0, outcome.getBaseMultiplier());
+        assertEquals(0, outcome.price(100));
+        assertTrue(outcome.getAppliedBonusSymbols().isEmpty());
+    }
+
+    @Test
+    void testRejectsEvaluationOfAnotherGame() {
+        SpinOutcome outcome = new SpinOutcome(CompiledGame.compile(config));
+        Evaluation evaluation = new RewardEvaluator(CompiledGame.compile(config)).newEvaluation();
+        assertThrows(IllegalArgumentException.class, () -> outcome.capture(new int[9], evaluation));
+    }
+}
@@ -0,0 +1,179 @@
+package ru.kropotov;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.metrics.SpinMetrics;
+import ru.kropotov.model.RequestConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Slf4j
+class SpinServerTest {
+    private static final int LOAD_REQUESTS = 5_000;
+    private static final int CONCURRENT_REQUESTS = 500;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private CompiledGame game;
+    private SpinServer server;
+    private HttpClient client;
+
+    @BeforeAll
+    static void keepIdleConnections() {
+        // As Main does before serving, so that the load test can reuse its connections
+        SpinServer.keepIdleConnections();
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        RequestConfig config = objectMapper.readValue(new File("src/test/resources/config.json"), RequestConfig.class);
+        game = CompiledGame.compile(config);
+        server = new SpinServer(game, 0);
+        server.start();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void testSpinReturnsResultJson() throws Exception {
+        HttpResponse<String> response = client.send(post("{\"bet\": 100, \"bonus_percentage\": 10}"),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+
+        Map<String, Object> result = objectMapper.readValue(response.body(), new TypeReference<>() {
+        });
+        assertEquals(List.of("matrix", "reward", "applied_winning_combinations", "applied_bonus_symbol"),
+                new ArrayList<>(result.keySet()));
+        String[][] matrix = objectMapper.convertValue(result.get("matrix"), String[][].class);
+        assertEquals(game.getRows(), matrix.length);
+        double reward = new RewardCalculator(game.encode(matrix), game, 100).calculateReward();
+        assertEquals(reward, ((Number) result.get("reward")).doubleValue());
+    }
+
+    @Test
+    void testRejectsInvalidRequests() throws Exception {
+        URI uri = URI.create("http://localhost:" + server.getPort() + SpinServer.SPIN_PATH);
+        assertEquals(405, client.send(HttpRequest.newBuilder(uri).GET().build(),
+                HttpResponse.BodyHandlers.ofString()).statusCode());
+        assertEquals(400, client.send(post("{"), HttpResponse.BodyHandlers.ofString()).statusCode());
+        HttpResponse<String> nullBody = client.send(post("null"), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, nullBody.statusCode());
+        assertTrue(nullBody.body().contains("Invalid request body"), nullBody.body());
+        assertEquals(400, client.send(post("{\"bet\": -1}"), HttpResponse.BodyHandlers.ofString()).statusCode());
+        assertEquals(400, client.send(post("{\"bet\": 1, \"bonus_percentage\": 150}"),
+                HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    @Test
+    void testServesMetricsOfSpins() throws Exception {
+        SpinMetrics metrics = new SpinMetrics();
+        try (SpinServer metricsServer = new SpinServer(() -> game, 0, metrics)) {
+            metricsServer.start();
+            URI base = URI.create("http://localhost:" + metricsServer.getPort());
+            for (int i = 0; i < 3; i++) {
+                client.send(HttpRequest.newBuilder(base.resolve(SpinServer.SPIN_PATH))
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"bet\": 100}")).build(),
+                        HttpResponse.BodyHandlers.ofString());
+            }
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(base.resolve(SpinServer.METRICS_PATH))
+                    .GET().build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            assertTrue(response.body().contains("spins_total 3\n"), response.body());
+            assertTrue(response.body().contains("spin_phase_seconds_count{phase=\"serialize\"} 3\n"), response.body());
+        }
+        // Without metrics the endpoint does not exist
+        URI metricsUri = URI.create("http://localhost:" + server.getPort() + SpinServer.METRICS_PATH);
+        assertEquals(404, client.send(HttpRequest.newBuilder(metricsUri).GET().build(),
+                HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    @Test
+    @Timeout(120)
+    void testServesConcurrentLoad() throws Exception {
+        Semaphore inFlight = new Semaphore(CONCURRENT_REQUESTS);
+        AtomicInteger succeeded = new AtomicInteger();
+        long[] latencies = new long[LOAD_REQUESTS];
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < LOAD_REQUESTS; i++) {
+            inFlight.acquire();
+            int request = i;
+            long sent = System.nanoTime();
+            futures.add(client.sendAsync(post("{\"bet\": 100}"), HttpResponse.BodyHandlers.ofString())
+                    .whenComplete((response, error) -> {
+                        latencies[request] = System.nanoTime() - sent;
+                        if (error == null && response.statusCode() == 200) {
+                            succeeded.incrementAndGet();
+                        }
+                        inFlight.release();
+                    }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).exceptionally(e -> null).join();
+        long elapsed = System.nanoTime() - start;
+
+        assertEquals(LOAD_REQUESTS, succeeded.get());
+        Arrays.sort(latencies);
+        log.info("{} requests with {} in flight: {} requests/s, p50 {} ms, p99 {} ms, max {} ms",
+                LOAD_REQUESTS, CONCURRENT_REQUESTS, LOAD_REQUESTS * 1_000_000_000L / elapsed,
+                latencies[LOAD_REQUESTS / 2] / 1_000_000, latencies[LOAD_REQUESTS * 99 / 100] / 1_000_000,
+                latencies[LOAD_REQUESTS - 1] / 1_000_000);
+    }
+
+    @Test
+    void testSpinsGameOfSupplierAfterReload() throws Exception {
+        AtomicReference<CompiledGame> games = new AtomicReference<>(game);
+        server.close();
+        server = new SpinServer(games::get, 0);
+        server.start();
+        assertEquals(game.getRows(), spinMatrix().length);
+
+        CompiledGame reloaded = CompiledGame.compile(objectMapper.readValue(
+                new File("src/test/resources/config.json"), RequestConfig.class), 3, 3);
+        games.set(reloaded);
+        for (int i = 0; i < 3; i++) {
+            String[][] matrix = spinMatrix();
+            assertEquals(3, matrix.length);
+            assertEquals(3, matrix[0].length);
+        }
+    }
+
+    private String[][] spinMatrix() throws Exception {
+        HttpResponse<String> response = client.send(post("{\"bet\": 100}"), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        Map<String, Object> result = objectMapper.readValue(response.body(), new TypeReference<>() {
+        });
+        return objectMapper.convertValue(result.get("matrix"), String[][].class);
+    }
+
+    private HttpRequest post(String body) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + SpinServer.SPIN_PATH))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+}
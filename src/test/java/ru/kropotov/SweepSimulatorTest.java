@@ -0,0 +1,69 @@
+package ru.kropotov;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.model.RequestConfig;
+import ru.kropotov.model.SweepVariant;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+class SweepSimulatorTest {
+    private CompiledGame game;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        game = CompiledGame.compile(objectMapper.readValue(new File("src/test/resources/config.json"),
+                RequestConfig.class));
+    }
+
+    @Test
+    void testVariantsAreEvaluatedOnTheSameSpins() {
+        // Doubling every standard symbol doubles every reward exactly, but only on the same matrices
+        SweepVariant doubled = SweepVariant.builder().name("doubled").symbolMultipliers(Map.of("A", 10.0,
+                "B", 6.0, "C", 5.0, "D", 4.0, "E", 2.4, "F", 2.0)).build();
+        List<SimulationResult> results = new SweepSimulator(game,
+                List.of(SweepVariant.builder().name("base").build(), doubled), 0, 10, 5L).run(100_000);
+
+        assertEquals(100_000, results.get(1).getSpins());
+        assertTrue(results.get(0).getHits() > 0);
+        assertEquals(results.get(0).getHits(), results.get(1).getHits());
+        assertEquals(2 * results.get(0).getTotalWin(), results.get(1).getTotalWin(), 0);
+        assertArrayEquals(results.get(0).getCombinationHits(), results.get(1).getCombinationHits());
+    }
+
+    @Test
+    void testVariantWithoutBonusSymbolsMatchesSimulator() {
+        // Without bonus symbols a sweep spin draws the same standard symbols as a simulated one
+        SweepVariant base = SweepVariant.builder().bonusPercentage(0.0).build();
+        SweepVariant bonus = SweepVariant.builder().bonusPercentage(30.0).build();
+        SweepSimulator sweep = new SweepSimulator(game, List.of(bonus, base), 0.5, 10, 9L);
+        List<SimulationResult> results = sweep.run(Simulator.CHUNK_SIZE + 5);
+        SimulationResult simulated = new Simulator(game, 0, 10, 9L).run(Simulator.CHUNK_SIZE + 5);
+
+        assertEquals("variant_1", sweep.name(1));
+        assertEquals(simulated.getTotalWin(), results.get(1).getTotalWin(), 0);
+        assertEquals(simulated.getHits(), results.get(1).getHits());
+        assertArrayEquals(simulated.getCombinationHits(), results.get(1).getCombinationHits());
+        assertTrue(results.get(0).getBonusSymbolHits()[game.symbolId("10x")] > 0);
+    }
+
+    @Test
+    void testInvalidVariantsAreRejected() {
+        SweepVariant unknownSymbol = SweepVariant.builder().symbolMultipliers(Map.of("Z", 2.0)).build();
+        SweepVariant unknownCombination = SweepVariant.builder().combinationMultipliers(Map.of("none", 2.0)).build();
+        SweepVariant invalidBonus = SweepVariant.builder().bonusPercentage(120.0).build();
+        for (SweepVariant variant : List.of(unknownSymbol, unknownCombination, invalidBonus)) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> new SweepSimulator(game, List.of(variant), 0.5, 10, 1L));
+        }
+        assertThrows(IllegalArgumentException.class, () -> new SweepSimulator(game, List.of(), 0.5, 10, 1L));
+    }
+}
@@ -0,0 +1,78 @@
+package ru.kropotov.game;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+class AliasTableTest {
+    private static final int SAMPLES = 1_000_000;
+
+    @Test
+    void testSampledFrequenciesMatchWeights() {
+        int[] weights = {1, 2, 3, 4, 5, 6};
+        AliasTable table = AliasTable.of(weights);
+        long[] counts = sample(table, new Random(42));
+        assertChiSquareFits(weights, counts);
+    }
+
+    @Test
+    void testSkewedAndZeroWeights() {
+        int[] weights = {1000, 0, 1, 7, 0, 250};
+        AliasTable table = AliasTable.of(weights);
+        long[] counts = sample(table, new Random(7));
+        assertEquals(0, counts[1]);
+        assertEquals(0, counts[4]);
+        assertChiSquareFits(weights, counts);
+    }
+
+    @Test
+    void testSingleSymbol() {
+        AliasTable table = AliasTable.of(new int[] {3});
+        Random random = new Random(1);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(0, table.sample(random));
+        }
+    }
+
+    @Test
+    void testInvalidWeights() {
+        assertAll(
+                () -> assertThrows(IllegalArgumentException.class, () -> AliasTable.of(new int[0])),
+                () -> assertThrows(IllegalArgumentException.class, () -> AliasTable.of(new int[] {0, 0})),
+                () -> assertThrows(IllegalArgumentException.class, () -> AliasTable.of(new int[] {1, -1}))
+        );
+    }
+
+    private static long[] sample(AliasTable table, Random random) {
+        long[] counts = new long[table.size()];
+        for (int i = 0; i < SAMPLES; i++) {
+            counts[table.sample(random)]++;
+        }
+        return counts;
+    }
+
+    static void assertChiSquareFits(int[] weights, long[] counts) {
+        long totalWeight = 0;
+        long total = 0;
+        int degreesOfFreedom = -1;
+        for (int i = 0; i < weights.length; i++) {
+            totalWeight += weights[i];
+            total += counts[i];
+            if (weights[i] > 0) {
+                degreesOfFreedom++;
+            }
+        }
+        double chiSquare = 0;
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] > 0) {
+                double expected = (double) total * weights[i] / totalWeight;
+                chiSquare += (counts[i] - expected) * (counts[i] - expected) / expected;
+            }
+        }
+        // Generous bound: mean + 6 standard deviations of the chi-square distribution
+        double bound = degreesOfFreedom + 6 * Math.sqrt(2.0 * degreesOfFreedom);
+        assertTrue(chiSquare < bound, "chi-square " + chiSquare + " exceeds " + bound);
+    }
+}
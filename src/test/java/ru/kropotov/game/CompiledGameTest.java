@@ -0,0 +1,172 @@
+package ru.kropotov.game;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.kropotov.model.RequestConfig;
+import ru.kropotov.model.Symbol;
+import ru.kropotov.model.WinCombination;
+import ru.kropotov.model.enums.Type;
+import ru.kropotov.model.enums.When;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class CompiledGameTest {
+    private RequestConfig config;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        config = objectMapper.readValue(new File("src/test/resources/config.json"), RequestConfig.class);
+    }
+
+    @Test
+    void testSymbolsAreInterned() {
+        CompiledGame game = CompiledGame.compile(config);
+        assertEquals(config.getSymbols().size(), game.symbolCount());
+        for (String name : config.getSymbols().keySet()) {
+            int id = game.symbolId(name);
+            assertEquals(name, game.symbolName(id));
+        }
+        assertTrue(game.isStandard(game.symbolId("A")));
+        assertTrue(game.isBonus(game.symbolId("10x")));
+        assertEquals(5.0, game.rewardMultiplier(game.symbolId("A")));
+        assertTrue(Double.isNaN(game.rewardMultiplier(game.symbolId("MISS"))));
+    }
+
+    @Test
+    void testRewardMultipliersCanBeReplaced() {
+        CompiledGame game = CompiledGame.compile(config);
+        CompiledGame variant = game.withRewardMultipliers(Map.of("A", 7.0),
+                Map.of("same_symbol_3_times", 1.5));
+        assertEquals(7.0, variant.rewardMultiplier(variant.symbolId("A")));
+        assertEquals(3.0, variant.rewardMultiplier(variant.symbolId("B")));
+        assertEquals(5.0, game.rewardMultiplier(game.symbolId("A")));
+        assertEquals(1.5, variant.getSameSymbolCombinations()[3][0].getRewardMultiplier());
+        assertSame(game.getCellTables(), variant.getCellTables());
+        assertThrows(IllegalArgumentException.class, () -> game.withRewardMultipliers(Map.of("A", Double.NaN),
+                Map.of()));
+    }
+
+    @Test
+    void testRewardSumOrderFollowsHashMapIteration() {
+        for (int i = 0; i < 10; i++) {
+            config.getSymbols().put("S" + i, Symbol.builder().rewardMultiplier(1.0 + i).type(Type.STANDARD).build());
+        }
+        CompiledGame game = CompiledGame.compile(config);
+        List<String> paying = IntStream.range(0, game.symbolCount())
+                .filter(id -> !Double.isNaN(game.rewardMultiplier(id)))
+                .mapToObj(game::symbolName)
+                .collect(Collectors.toList());
+        assertTrue(paying.size() > 12);
+
+        // A HashMap of 13 or more names has grown past 16 buckets and iterates in another order
+        for (int count : new int[]{1, 12, 13, paying.size()}) {
+            Map<String, Double> rewards = new HashMap<>();
+            paying.subList(0, count).forEach(name -> rewards.put(name, 1.0));
+            List<String> order = new ArrayList<>();
+            for (int id : game.rewardSumOrder(count)) {
+                if (rewards.containsKey(game.symbolName(id))) {
+                    order.add(game.symbolName(id));
+                }
+            }
+            assertEquals(new ArrayList<>(rewards.keySet()), order);
+        }
+    }
+
+    @Test
+    void testEncodeDecodeRoundTrip() {
+        CompiledGame game = CompiledGame.compile(config, 3, 3);
+        String[][] matrix = new String[][] {
+                {"A", "B", "C"},
+                {"E", "+1000", "5x"},
+                {"F", "D", "MISS"}
+        };
+        int[] cells = game.encode(matrix);
+        assertEquals(9, cells.length);
+        assertEquals(game.symbolId("+1000"), cells[4]);
+        assertArrayEquals(matrix, game.decode(cells));
+    }
+
+    @Test
+    void testUnknownSymbolIsRejected() {
+        CompiledGame game = CompiledGame.compile(config, 3, 3);
+        String[][] matrix = new String[][] {
+                {"A", "B", "C"},
+                {"A", "Z", "C"},
+                {"A", "B", "C"}
+        };
+        assertThrows(IllegalArgumentException.class, () -> game.encode(matrix));
+    }
+
+    @Test
+    void testBonusSymbolWithoutImpactIsRejected() {
+        config.getSymbols().put("2x", Symbol.builder().rewardMultiplier(2.0).build());
+        config.getSymbols().get("2x").setType("bonus");
+        assertThrows(IllegalArgumentException.class, () -> CompiledGame.compile(config));
+    }
+
+    @Test
+    void testCoveredAreasAreCompiledToCellOffsets() {
+        CompiledGame game = CompiledGame.compile(config);
+        CompiledCombination diagonal = findCombination(game, "same_symbols_diagonally_right_to_left");
+        assertArrayEquals(new int[] {2, 5, 8}, diagonal.getCoveredAreas()[0]);
+    }
+
+    @Test
+    void testOutOfBoundsCoveredAreaIsRejected() {
+        config.getWinCombinations().get("same_symbols_vertically")
+                .setCoveredAreas(List.of(List.of("0:0", "1:0", "4:0")));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> CompiledGame.compile(config));
+        assertTrue(e.getMessage().contains("4:0"));
+    }
+
+    @Test
+    void testMalformedCoveredAreaIsRejected() {
+        WinCombination combination = config.getWinCombinations().get("same_symbols_horizontally");
+        combination.setCoveredAreas(List.of(List.of("0:0", "0-1", "0:2")));
+        assertThrows(IllegalArgumentException.class, () -> CompiledGame.compile(config));
+    }
+
+    @Test
+    void testSameSymbolCombinationsAreIndexedByCount() {
+        config.getWinCombinations().put("five_of_a_kind", WinCombination.builder()
+                .rewardMultiplier(3.0).when(When.SAME_SYMBOLS).count(5).group("of_a_kind").build());
+        CompiledGame game = CompiledGame.compile(config, 3, 3);
+
+        CompiledCombination[][] byCount = game.getSameSymbolCombinations();
+        assertEquals(10, byCount.length);
+        assertEquals(0, byCount[0].length);
+        assertEquals(0, byCount[2].length);
+        assertEquals("same_symbol_3_times", byCount[3][0].getName());
+        assertEquals(List.of("same_symbol_5_times", "five_of_a_kind"),
+                List.of(byCount[5][0].getName(), byCount[5][1].getName()));
+    }
+
+    @Test
+    void testConflictingCountsWithinGroupAreRejected() {
+        config.getWinCombinations().put("three_again", WinCombination.builder()
+                .rewardMultiplier(3.0).when(When.SAME_SYMBOLS).count(3).group("same_symbols").build());
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> CompiledGame.compile(config));
+        assertTrue(e.getMessage().contains("same_symbol_3_times"));
+        assertTrue(e.getMessage().contains("three_again"));
+    }
+
+    private static CompiledCombination findCombination(CompiledGame game, String name) {
+        for (CompiledCombination combination : game.getCombinations()) {
+            if (combination.getName().equals(name)) {
+                return combination;
+            }
+        }
+        throw new AssertionError("No combination " + name);
+    }
+}
@@ -0,0 +1,104 @@
+package ru.kropotov.game;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.kropotov.Evaluation;
+import ru.kropotov.MatrixGenerator;
+import ru.kropotov.RewardEvaluator;
+import ru.kropotov.model.RequestConfig;
+import ru.kropotov.random.SpinRandom;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+class GameSnapshotTest {
+    private CompiledGame game;
+    private byte[] configHash;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        RequestConfig config = objectMapper.readValue(new File("src/test/resources/config.json"), RequestConfig.class);
+        game = CompiledGame.compile(config);
+        configHash = new byte[32];
+        Arrays.fill(configHash, (byte) 7);
+    }
+
+    @Test
+    void testRestoredGameSpinsTheSame() throws IOException {
+        Path path = directory.resolve("game.snapshot");
+        new GameSnapshot(game, configHash).write(path);
+        GameSnapshot snapshot = GameSnapshot.read(path);
+        CompiledGame restored = snapshot.getGame();
+
+        assertArrayEquals(configHash, snapshot.getConfigHash());
+        assertArrayEquals(game.getSymbolNames(), restored.getSymbolNames());
+        assertEquals(game.symbolId("A"), restored.symbolId("A"));
+        assertArrayEquals(game.getImpacts(), restored.getImpacts());
+        assertEquals(game.getCombinations().length, restored.getCombinations().length);
+        for (int count = 0; count <= game.getCellCount(); count++) {
+            assertEquals(game.getSameSymbolCombinations()[count].length,
+                    restored.getSameSymbolCombinations()[count].length);
+        }
+        for (int cell = 0; cell < game.getCellCount(); cell++) {
+            assertArrayEquals(game.getCellSymbols()[cell], restored.getCellSymbols()[cell]);
+            for (int i = 0; i < game.getCellTables()[cell].size(); i++) {
+                assertEquals(game.getCellTables()[cell].probability(i), restored.getCellTables()[cell].probability(i));
+            }
+        }
+
+        MatrixGenerator generator = new MatrixGenerator(game, 0.3, new SpinRandom(5L));
+        MatrixGenerator restoredGenerator = new MatrixGenerator(restored, 0.3, new SpinRandom(5L));
+        RewardEvaluator evaluator = RewardEvaluator.forGame(game);
+        RewardEvaluator restoredEvaluator = RewardEvaluator.forGame(restored);
+        Evaluation evaluation = evaluator.newEvaluation();
+        Evaluation restoredEvaluation = restoredEvaluator.newEvaluation();
+        for (int spin = 0; spin < 1_000; spin++) {
+            int[] matrix = generator.generateCells();
+            assertArrayEquals(matrix, restoredGenerator.generateCells());
+            assertEquals(evaluator.evaluate(matrix, 10, evaluation),
+                    restoredEvaluator.evaluate(matrix, 10, restoredEvaluation));
+            assertEquals(evaluation.getAppliedWinningCombinations(), restoredEvaluation.getAppliedWinningCombinations());
+            assertEquals(evaluation.getAppliedBonusSymbols(), restoredEvaluation.getAppliedBonusSymbols());
+        }
+    }
+
+    @Test
+    void testSharedTablesAreWrittenOnce() throws IOException {
+        Path small = directory.resolve("small.snapshot");
+        Path large = directory.resolve("large.snapshot");
+        RequestConfig config = new ObjectMapper().readValue(new File("src/test/resources/config.json"),
+                RequestConfig.class);
+        new GameSnapshot(game, configHash).write(small);
+        new GameSnapshot(CompiledGame.compile(config, 100, 100), configHash).write(large);
+
+        CompiledGame restored = GameSnapshot.read(large).getGame();
+        assertSame(restored.getCellTables()[0], restored.getCellTables()[9_999]);
+        // Every further cell adds one table id
+        assertTrue(Files.size(large) < Files.size(small) + 100 * 100 * 4 + 4096);
+    }
+
+    @Test
+    void testRejectsOtherFiles() throws IOException {
+        Path path = directory.resolve("game.snapshot");
+        new GameSnapshot(game, configHash).write(path);
+        byte[] bytes = Files.readAllBytes(path);
+
+        Path truncated = directory.resolve("truncated.snapshot");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length / 2));
+        assertThrows(IOException.class, () -> GameSnapshot.read(truncated));
+
+        Path config = Path.of("src/test/resources/config.json");
+        assertThrows(IOException.class, () -> GameSnapshot.read(config));
+    }
+}
@@ -0,0 +1,219 @@
+package ru.kropotov.journal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.kropotov.Evaluation;
+import ru.kropotov.MatrixGenerator;
+import ru.kropotov.RewardEvaluator;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.model.RequestConfig;
+import ru.kropotov.random.SpinRandom;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+class JournalTest {
+    private static final Path CONFIG = Path.of("src/test/resources/config.json");
+    private static final int SPINS = 2_000;
+    private static final long SEED = 11L;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private CompiledGame game;
+    private JournalHeader header;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        RequestConfig config = objectMapper.readValue(new File(CONFIG.toString()), RequestConfig.class);
+        game = CompiledGame.compile(config);
+        header = JournalHeader.of(game, JournalHeader.hash(CONFIG));
+    }
+
+    @Test
+    void testRecordsRenderAsTheirSpins() throws IOException {
+        Path journal = directory.resolve("journal");
+        List<String> expected = new ArrayList<>();
+        // Small segments so that the journal rolls over many times
+        long segmentBytes = header.encode().length + 100L * header.getRecordSize();
+        try (JournalWriter writer = new JournalWriter(journal, header, segmentBytes)) {
+            SpinRandom random = new SpinRandom(SEED);
+            MatrixGenerator matrixGenerator = new MatrixGenerator(game, 0.2, random);
+            RewardEvaluator evaluator = RewardEvaluator.forGame(game);
+            Evaluation evaluation = evaluator.newEvaluation();
+            int[] matrix = new int[game.getCellCount()];
+            for (int spin = 0; spin < SPINS; spin++) {
+                random.startSpin(spin);
+                matrixGenerator.generateCells(matrix);
+                evaluator.evaluate(matrix, 100, evaluation);
+                writer.append(SEED, spin, 100, matrix, evaluation);
+                expected.add(objectMapper.writeValueAsString(result(matrix, evaluation)));
+            }
+        }
+        assertEquals(SPINS / 100, Files.list(journal).count());
+
+        JournalReader reader = JournalReader.open(journal);
+        assertEquals(SPINS, reader.getRecordCount());
+        assertArrayEquals(header.getConfigHash(), reader.getHeader().getConfigHash());
+        List<String> rendered = new ArrayList<>();
+        reader.forEach(record -> {
+            assertEquals(SEED, record.getSeed());
+            assertEquals(record.getIndex(), record.getSpinIndex());
+            assertEquals(100, record.getBet());
+            try {
+                rendered.add(reader.render(record));
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        });
+        assertEquals(expected, rendered);
+        assertEquals(expected.get(1234), reader.render(reader.record(1234)));
+    }
+
+    @Test
+    void testSummaryTotalsRecords() throws IOException {
+        Path journal = directory.resolve("journal");
+        double totalWin = 0;
+        long hits = 0;
+        try (JournalWriter writer = new JournalWriter(journal, header, JournalWriter.DEFAULT_SEGMENT_BYTES)) {
+            SpinRandom random = new SpinRandom(SEED);
+            MatrixGenerator matrixGenerator = new MatrixGenerator(game, 0.2, random);
+            RewardEvaluator evaluator = RewardEvaluator.forGame(game);
+            Evaluation evaluation = evaluator.newEvaluation();
+            int[] matrix = new int[game.getCellCount()];
+            for (int spin = 0; spin < SPINS; spin++) {
+                random.startSpin(spin);
+                matrixGenerator.generateCells(matrix);
+                double reward = evaluator.evaluate(matrix, 10, evaluation);
+                writer.append(SEED, spin, 10, matrix, evaluation);
+                totalWin += reward;
+                hits += reward > 0 ? 1 : 0;
+            }
+        }
+
+        JournalSummary summary = JournalReader.open(journal).summarize();
+        assertEquals(SPINS, summary.getSpins());
+        assertEquals(hits, summary.getHits());
+        assertEquals(10.0 * SPINS, summary.getTotalBet());
+        assertEquals(totalWin, summary.getTotalWin(), 1e-9);
+        assertTrue(summary.getHits() > 0);
+    }
+
+    @Test
+    void testReaderStopsAtLastCompleteRecord() throws IOException {
+        Path journal = directory.resolve("journal");
+        try (JournalWriter writer = new JournalWriter(journal, header, JournalWriter.DEFAULT_SEGMENT_BYTES)) {
+            Evaluation evaluation = RewardEvaluator.forGame(game).newEvaluation();
+            for (int spin = 0; spin < 3; spin++) {
+                writer.append(SEED, spin, 1, new int[game.getCellCount()], evaluation);
+            }
+        }
+        Path segment = JournalWriter.segmentPath(journal, 0);
+        // As left by a writer that died while writing the third record
+        try (var channel = Files.newByteChannel(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(segment) - 1);
+        }
+
+        assertEquals(2, JournalReader.open(journal).getRecordCount());
+    }
+
+    @Test
+    void testRejectsSegmentsOfAnotherConfig() throws IOException {
+        Path journal = directory.resolve("journal");
+        Path other = directory.resolve("other");
+        byte[] otherHash = new byte[JournalHeader.HASH_BYTES];
+        Evaluation evaluation = RewardEvaluator.forGame(game).newEvaluation();
+        try (JournalWriter writer = new JournalWriter(journal, header, JournalWriter.DEFAULT_SEGMENT_BYTES);
+             JournalWriter otherWriter = new JournalWriter(other, JournalHeader.of(game, otherHash),
+                     JournalWriter.DEFAULT_SEGMENT_BYTES)) {
+            writer.append(SEED, 0, 1, new int[game.getCellCount()], evaluation);
+            otherWriter.append(SEED, 0, 1, new int[game.getCellCount()], evaluation);
+        }
+        Files.copy(JournalWriter.segmentPath(other, 0), JournalWriter.segmentPath(journal, 1));
+
+        assertThrows(IOException.class, () -> JournalReader.open(journal));
+    }
+
+    @Test
+    void testSecondWriterContinuesJournal() throws IOException {
+        Path journal = directory.resolve("journal");
+        Evaluation evaluation = RewardEvaluator.forGame(game).newEvaluation();
+        try (JournalWriter writer = new JournalWriter(journal, header, JournalWriter.DEFAULT_SEGMENT_BYTES)) {
+            for (int spin = 0; spin < 3; spin++) {
+                writer.append(SEED, spin, 1, new int[game.getCellCount()], evaluation);
+            }
+        }
+        try (JournalWriter writer = new JournalWriter(journal, header, JournalWriter.DEFAULT_SEGMENT_BYTES)) {
+            for (int spin = 3; spin < 5; spin++) {
+                writer.append(SEED, spin, 1, new int[game.getCellCount()], evaluation);
+            }
+            assertEquals(2, writer.getRecordCount());
+        }
+
+        JournalReader reader = JournalReader.open(journal);
+        assertEquals(5, reader.getRecordCount());
+        reader.forEach(record -> assertEquals(record.getIndex(), record.getSpinIndex()));
+    }
+
+    @Test
+    void testContinuesAfterLastCompleteRecordOfDeadWriter() throws IOException {
+        Path journal = directory.resolve("journal");
+        Evaluation evaluation = RewardEvaluator.forGame(game).newEvaluation();
+        // Never closed, so the segment keeps its full mapped size as after a crash
+        JournalWriter dead = new JournalWriter(journal, header, JournalWriter.DEFAULT_SEGMENT_BYTES);
+        for (int spin = 0; spin < 3; spin++) {
+            dead.append(SEED, spin, 1, new int[game.getCellCount()], evaluation);
+        }
+
+        try (JournalWriter writer = new JournalWriter(journal, header, JournalWriter.DEFAULT_SEGMENT_BYTES)) {
+            writer.append(SEED, 3, 1, new int[game.getCellCount()], evaluation);
+        }
+
+        assertEquals(header.encode().length + 3L * header.getRecordSize(),
+                Files.size(JournalWriter.segmentPath(journal, 0)));
+        JournalReader reader = JournalReader.open(journal);
+        assertEquals(4, reader.getRecordCount());
+        assertEquals(3, reader.record(3).getSpinIndex());
+    }
+
+    @Test
+    void testRejectsContinuingJournalOfAnotherConfig() throws IOException {
+        Path journal = directory.resolve("journal");
+        Evaluation evaluation = RewardEvaluator.forGame(game).newEvaluation();
+        try (JournalWriter writer = new JournalWriter(journal, header, JournalWriter.DEFAULT_SEGMENT_BYTES)) {
+            writer.append(SEED, 0, 1, new int[game.getCellCount()], evaluation);
+        }
+        JournalHeader otherHeader = JournalHeader.of(game, new byte[JournalHeader.HASH_BYTES]);
+
+        assertThrows(IOException.class,
+                () -> new JournalWriter(journal, otherHeader, JournalWriter.DEFAULT_SEGMENT_BYTES));
+        assertEquals(1, JournalReader.open(journal).getRecordCount());
+    }
+
+    // The printed result, with combinations in the order they were applied
+    private Map<String, Object> result(int[] matrix, Evaluation evaluation) {
+        Map<String, List<String>> appliedCombinations = new LinkedHashMap<>();
+        for (int i = 0; i < evaluation.getAppliedCombinationCount(); i++) {
+            appliedCombinations.computeIfAbsent(game.symbolName(evaluation.getAppliedSymbolId(i)),
+                    k -> new ArrayList<>()).add(game.getCombinations()[evaluation.getAppliedCombinationId(i)].getName());
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("matrix", game.decode(matrix));
+        result.put("reward", evaluation.getReward());
+        result.put("applied_winning_combinations", appliedCombinations);
+        result.put("applied_bonus_symbol", evaluation.getAppliedBonusSymbols());
+        return result;
+    }
+}
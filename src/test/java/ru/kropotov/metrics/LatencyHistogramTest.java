@@ -0,0 +1,61 @@
+package ru.kropotov.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+class LatencyHistogramTest {
+    @Test
+    void testBucketsCoverValuesWithSmallRelativeError() {
+        long previousUpper = -1;
+        for (int bucket = 0; bucket < LatencyHistogram.BUCKETS; bucket++) {
+            long lower = LatencyHistogram.lowerBound(bucket);
+            long upper = LatencyHistogram.upperBound(bucket);
+            assertEquals(previousUpper + 1, lower);
+            assertEquals(bucket, LatencyHistogram.bucket(lower));
+            assertEquals(bucket, LatencyHistogram.bucket(upper));
+            assertTrue(upper - lower <= lower / 16, "bucket " + bucket + " is too wide");
+            previousUpper = upper;
+        }
+        assertEquals(Long.MAX_VALUE, previousUpper);
+    }
+
+    @Test
+    void testQuantilesOfUniformValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value);
+        }
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(50_000.5, histogram.getMean(), 1e-9);
+        assertEquals(100_000, histogram.getMax());
+        assertEquals(50_000, histogram.valueAtQuantile(0.5), 50_000 / 16.0);
+        assertEquals(99_000, histogram.valueAtQuantile(0.99), 99_000 / 16.0);
+        assertEquals(100_000, histogram.valueAtQuantile(1));
+    }
+
+    @Test
+    void testMergeAddsUpRecordings() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        first.record(10);
+        first.record(1_000);
+        second.record(1_000_000);
+
+        first.merge(second);
+        assertEquals(3, first.getCount());
+        assertEquals(1_001_010, first.getSum());
+        assertEquals(1_000_000, first.getMax());
+        assertEquals(10, first.valueAtQuantile(0));
+    }
+
+    @Test
+    void testConcurrentRecordingLosesNothing() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        IntStream.range(0, 400_000).parallel().forEach(i -> histogram.record(i % 1000));
+        assertEquals(400_000, histogram.getCount());
+        assertEquals(400L * (999 * 1000 / 2), histogram.getSum());
+    }
+}
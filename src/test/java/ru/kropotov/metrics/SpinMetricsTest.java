@@ -0,0 +1,52 @@
+package ru.kropotov.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+class SpinMetricsTest {
+    @Test
+    void testTimesEveryNthSpin() {
+        SpinMetrics metrics = new SpinMetrics(64);
+        assertTrue(metrics.isTimed(0));
+        assertFalse(metrics.isTimed(63));
+        assertTrue(metrics.isTimed(128));
+        assertThrows(IllegalArgumentException.class, () -> new SpinMetrics(10));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testJsonReport() {
+        SpinMetrics metrics = new SpinMetrics();
+        metrics.recordSpin(0);
+        metrics.recordSpin(250);
+        metrics.recordSpins(8, 3);
+        metrics.record(SpinMetrics.Phase.EVALUATE, 1_000);
+
+        Map<String, Object> report = metrics.toReport();
+        assertEquals(10L, report.get("spins"));
+        assertEquals(4L, report.get("wins"));
+        Map<String, Object> evaluate = (Map<String, Object>) ((Map<String, Object>) report.get("phases")).get("evaluate");
+        assertEquals(1L, evaluate.get("count"));
+        assertEquals(1_000L, evaluate.get("p99_ns"));
+        assertEquals(1_000L, evaluate.get("max_ns"));
+    }
+
+    @Test
+    void testPrometheusText() {
+        SpinMetrics metrics = new SpinMetrics();
+        metrics.recordSpin(100);
+        metrics.record(SpinMetrics.Phase.GENERATE, 2_000);
+
+        String text = metrics.toPrometheus();
+        assertTrue(text.contains("spins_total 1\n"), text);
+        assertTrue(text.contains("wins_total 1\n"), text);
+        assertTrue(text.contains("spin_phase_seconds{phase=\"generate\",quantile=\"0.5\"} 0.000002000\n"), text);
+        assertTrue(text.contains("spin_phase_seconds_count{phase=\"serialize\"} 0\n"), text);
+        for (String line : text.split("\n")) {
+            assertTrue(line.startsWith("#") || line.matches("[a-z_]+(\\{[^}]*})? [0-9.]+"), line);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package ru.kropotov.random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+class SpinRandomTest {
+
+    @Test
+    void testSpinSeedsFollowSplittableRandom() {
+        SplittableRandom splittableRandom = new SplittableRandom(12345L);
+        for (long spin = 0; spin < 100; spin++) {
+            assertEquals(splittableRandom.nextLong(), SpinRandom.spinSeed(12345L, spin));
+        }
+    }
+
+    @Test
+    void testSpinCanBeReplayedIndependently() {
+        SpinRandom sequential = new SpinRandom(42L);
+        long[] expected = null;
+        for (long spin = 0; spin < 50; spin++) {
+            sequential.startSpin(spin);
+            long[] draws = draws(sequential);
+            if (spin == 37) {
+                expected = draws;
+            }
+        }
+
+        SpinRandom replay = new SpinRandom(42L);
+        replay.startSpin(37);
+        assertArrayEquals(expected, draws(replay));
+    }
+
+    @Test
+    void testDifferentSpinsAndSeedsDiffer() {
+        SpinRandom first = new SpinRandom(1L);
+        SpinRandom second = new SpinRandom(2L);
+        long[] firstDraws = draws(first);
+        assertFalse(Arrays.equals(firstDraws, draws(second)));
+        first.startSpin(1);
+        assertFalse(Arrays.equals(firstDraws, draws(first)));
+    }
+
+    private static long[] draws(SpinRandom random) {
+        long[] draws = new long[16];
+        for (int i = 0; i < draws.length; i++) {
+            draws[i] = random.nextLong();
+        }
+        return draws;
+    }
+}
@@ -0,0 +1,136 @@
+package ru.kropotov.shard;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.kropotov.SimulationResult;
+import ru.kropotov.Simulator;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.journal.JournalHeader;
+import ru.kropotov.model.RequestConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class ShardCoordinatorTest {
+    private static final String CONFIG = "src/test/resources/config.json";
+    private static final byte[] CONFIG_HASH = new byte[32];
+
+    @TempDir
+    Path directory;
+
+    private CompiledGame game;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        game = CompiledGame.compile(objectMapper.readValue(new File(CONFIG), RequestConfig.class));
+    }
+
+    @Test
+    void testMergedShardsMatchSingleProcess() throws Exception {
+        ShardJob job = new ShardJob(6L, 10, 0.3, 300_001);
+        SimulationResult result = new ShardCoordinator(game, CONFIG_HASH, job, directory, new InProcessWorker(job))
+                .run(3);
+        SimulationResult expected = new Simulator(game, 0.3, 10, 6L).run(job.getSpins());
+        assertEquals(expected.toReport(), result.toReport());
+    }
+
+    @Test
+    void testFailedShardIsRestarted() throws Exception {
+        ShardJob job = new ShardJob(6L, 10, 0.3, 200_000);
+        AtomicInteger launches = new AtomicInteger();
+        ShardCoordinator.WorkerLauncher failingOnce = (firstChunk, lastChunk, output, log) -> {
+            // The first worker of the second shard dies before writing its result
+            if (launches.incrementAndGet() == 2) {
+                return new ExitedProcess(1);
+            }
+            return new InProcessWorker(job).launch(firstChunk, lastChunk, output, log);
+        };
+        SimulationResult result = new ShardCoordinator(game, CONFIG_HASH, job, directory, failingOnce).run(2);
+        assertEquals(3, launches.get());
+        assertEquals(new Simulator(game, 0.3, 10, 6L).run(job.getSpins()).toReport(), result.toReport());
+    }
+
+    @Test
+    void testShardOfAnotherJobIsNotMerged() {
+        ShardJob job = new ShardJob(6L, 10, 0.3, 100_000);
+        ShardJob otherJob = new ShardJob(7L, 10, 0.3, 100_000);
+        ShardCoordinator coordinator = new ShardCoordinator(game, CONFIG_HASH, job, directory, new InProcessWorker(otherJob));
+        assertThrows(IOException.class, () -> coordinator.run(1));
+    }
+
+    @Test
+    void testLocalWorkersMatchSingleProcess() throws Exception {
+        long spins = 100_000;
+        ShardJob job = new ShardJob(8L, 10, 0.5, spins);
+        List<String> arguments = List.of("--config", CONFIG, "--betting-amount", "10", "--bonus-percentage", "50",
+                "--seed", "8", "--simulate", Long.toString(spins));
+        SimulationResult result = new ShardCoordinator(game, JournalHeader.hash(Paths.get(CONFIG)), job, directory,
+                ShardCoordinator.localWorkers(arguments, 1)).run(2);
+        assertEquals(new Simulator(game, 0.5, 10, 8L).run(spins).toReport(), result.toReport());
+    }
+
+    // Runs the shard in this process before returning a worker that has already exited
+    private class InProcessWorker implements ShardCoordinator.WorkerLauncher {
+        private final ShardJob job;
+
+        InProcessWorker(ShardJob job) {
+            this.job = job;
+        }
+
+        @Override
+        public Process launch(int firstChunk, int lastChunk, Path output, Path log) throws IOException {
+            Simulator simulator = new Simulator(game, job.getBonusPercentage(), job.getBettingAmount(), job.getSeed());
+            new ShardResult(job, CONFIG_HASH, firstChunk, simulator.runChunks(firstChunk, lastChunk, job.getSpins()))
+                    .write(output);
+            return new ExitedProcess(0);
+        }
+    }
+
+    private static final class ExitedProcess extends Process {
+        private final int exitCode;
+
+        ExitedProcess(int exitCode) {
+            this.exitCode = exitCode;
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return OutputStream.nullOutputStream();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return InputStream.nullInputStream();
+        }
+
+        @Override
+        public InputStream getErrorStream() {
+            return InputStream.nullInputStream();
+        }
+
+        @Override
+        public int waitFor() {
+            return exitCode;
+        }
+
+        @Override
+        public int exitValue() {
+            return exitCode;
+        }
+
+        @Override
+        public void destroy() {
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package ru.kropotov.shard;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.kropotov.SimulationResult;
+import ru.kropotov.Simulator;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.model.RequestConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+class ShardResultTest {
+    private static final byte[] CONFIG_HASH = new byte[32];
+
+    @TempDir
+    Path directory;
+
+    private CompiledGame game;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        game = CompiledGame.compile(objectMapper.readValue(new File("src/test/resources/config.json"),
+                RequestConfig.class));
+    }
+
+    @Test
+    void testRoundTripMergesLikeTheOriginal() throws IOException {
+        ShardJob job = new ShardJob(4L, 10, 0.2, 150_000);
+        SimulationResult[] chunkResults = new Simulator(game, 0.2, 10, 4L).runChunks(1, 3, job.getSpins());
+        Path path = directory.resolve("shard.bin");
+        new ShardResult(job, CONFIG_HASH, 1, chunkResults).write(path);
+
+        ShardResult read = ShardResult.read(path, game);
+        assertTrue(read.isShardOf(job, CONFIG_HASH, 1, 3));
+        assertFalse(read.isShardOf(new ShardJob(5L, 10, 0.2, 150_000), CONFIG_HASH, 1, 3));
+        assertFalse(read.isShardOf(job, CONFIG_HASH, 0, 2));
+        SimulationResult expected = new SimulationResult(game);
+        SimulationResult actual = new SimulationResult(game);
+        for (int chunk = 0; chunk < chunkResults.length; chunk++) {
+            expected.merge(chunkResults[chunk]);
+            actual.merge(read.getChunkResults()[chunk]);
+        }
+        assertEquals(expected.toReport(), actual.toReport());
+        assertEquals(expected.getPayoutStatistics().getMean(), actual.getPayoutStatistics().getMean(), 0);
+        assertFalse(Files.exists(directory.resolve("shard.bin.part")));
+    }
+
+    @Test
+    void testTruncatedResultIsRejected() throws IOException {
+        ShardJob job = new ShardJob(4L, 10, 0.2, 1000);
+        Path path = directory.resolve("shard.bin");
+        new ShardResult(job, CONFIG_HASH, 0, new Simulator(game, 0.2, 10, 4L).runChunks(0, 1, 1000)).write(path);
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> ShardResult.read(path, game));
+    }
+}
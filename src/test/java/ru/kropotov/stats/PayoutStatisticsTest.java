@@ -0,0 +1,79 @@
+package ru.kropotov.stats;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+class PayoutStatisticsTest {
+    @Test
+    void testMomentsMatchTwoPassCalculation() {
+        SplittableRandom random = new SplittableRandom(7L);
+        double[] payouts = new double[100_000];
+        PayoutStatistics statistics = new PayoutStatistics();
+        for (int i = 0; i < payouts.length; i++) {
+            payouts[i] = random.nextInt(4) == 0 ? random.nextDouble() * 50 : 0;
+            statistics.record(payouts[i]);
+        }
+
+        double mean = 0;
+        for (double payout : payouts) {
+            mean += payout;
+        }
+        mean /= payouts.length;
+        double squares = 0;
+        for (double payout : payouts) {
+            squares += (payout - mean) * (payout - mean);
+        }
+        double variance = squares / (payouts.length - 1);
+
+        assertEquals(payouts.length, statistics.getCount());
+        assertEquals(mean, statistics.getMean(), 1e-9);
+        assertEquals(variance, statistics.getVariance(), variance * 1e-9);
+        assertEquals(PayoutStatistics.Z_95 * Math.sqrt(variance / payouts.length),
+                statistics.getConfidenceHalfWidth(), 1e-9);
+    }
+
+    @Test
+    void testMergeIsAssociative() {
+        SplittableRandom random = new SplittableRandom(9L);
+        PayoutStatistics whole = new PayoutStatistics();
+        PayoutStatistics[] parts = {new PayoutStatistics(), new PayoutStatistics(), new PayoutStatistics()};
+        for (int i = 0; i < 30_000; i++) {
+            double payout = random.nextInt(3) == 0 ? random.nextDouble() * 1_000 : 0;
+            whole.record(payout);
+            parts[i % 3].record(payout);
+        }
+
+        PayoutStatistics left = new PayoutStatistics().merge(parts[0]).merge(parts[1]).merge(parts[2]);
+        PayoutStatistics right = new PayoutStatistics().merge(parts[2].merge(parts[1])).merge(parts[0]);
+        for (PayoutStatistics merged : List.of(left, right)) {
+            assertEquals(whole.getCount(), merged.getCount());
+            assertEquals(whole.getMean(), merged.getMean(), 1e-9);
+            assertEquals(whole.getVariance(), merged.getVariance(), whole.getVariance() * 1e-9);
+            assertEquals(whole.quantile(0.99), merged.quantile(0.99));
+            assertArrayEquals(whole.getMultiplierCounts(), merged.getMultiplierCounts());
+        }
+    }
+
+    @Test
+    void testReportsWinMultiplierDistribution() {
+        PayoutStatistics statistics = new PayoutStatistics();
+        for (double payout : new double[]{0, 0, 0.5, 1, 3, 20_000}) {
+            statistics.record(payout);
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, Double> distribution = (Map<String, Double>) statistics.toReport()
+                .get("win_multiplier_distribution");
+        assertEquals(2 / 6.0, distribution.get("0"), 0);
+        assertEquals(2 / 6.0, distribution.get("0-1"), 0);
+        assertEquals(0.0, distribution.get("1-2"), 0);
+        assertEquals(1 / 6.0, distribution.get("2-5"), 0);
+        assertEquals(1 / 6.0, distribution.get(">10000"), 0);
+        assertEquals(1.0, distribution.values().stream().mapToDouble(Double::doubleValue).sum(), 1e-12);
+    }
+}
@@ -0,0 +1,60 @@
+package ru.kropotov.stats;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+class QuantileSketchTest {
+    private static final double[] QUANTILES = {0, 0.1, 0.5, 0.9, 0.99, 0.999, 0.9999, 1};
+
+    @Test
+    void testQuantilesAreWithinRelativeAccuracy() {
+        SplittableRandom random = new SplittableRandom(3L);
+        double[] values = new double[200_000];
+        QuantileSketch sketch = new QuantileSketch(0.01);
+        for (int i = 0; i < values.length; i++) {
+            // Mostly losses and a heavy tail of wins, like payouts
+            values[i] = random.nextInt(3) == 0 ? Math.exp(random.nextDouble() * 12) : 0;
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double quantile : QUANTILES) {
+            double exact = values[(int) Math.floor(quantile * (values.length - 1))];
+            assertEquals(exact, sketch.quantile(quantile), exact * 0.01, "Quantile " + quantile);
+        }
+        assertEquals(values.length, sketch.getCount());
+    }
+
+    @Test
+    void testMergeEqualsOneSketch() {
+        SplittableRandom random = new SplittableRandom(5L);
+        QuantileSketch whole = new QuantileSketch();
+        QuantileSketch first = new QuantileSketch();
+        QuantileSketch second = new QuantileSketch();
+        for (int i = 0; i < 50_000; i++) {
+            // Different ranges, so that merging has to grow the buckets on both sides
+            double value = i % 2 == 0 ? random.nextDouble() * 1e-3 : random.nextDouble() * 1e6;
+            whole.add(value);
+            (i < 20_000 ? first : second).add(value);
+        }
+
+        QuantileSketch merged = new QuantileSketch().merge(second).merge(first);
+        for (double quantile : QUANTILES) {
+            assertEquals(whole.quantile(quantile), merged.quantile(quantile));
+        }
+    }
+
+    @Test
+    void testEmptySketchAndInvalidValues() {
+        QuantileSketch sketch = new QuantileSketch();
+        assertEquals(0, sketch.quantile(0.5));
+        assertThrows(IllegalArgumentException.class, () -> sketch.add(-1));
+        assertThrows(IllegalArgumentException.class, () -> sketch.add(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> sketch.quantile(1.5));
+        assertThrows(IllegalArgumentException.class, () -> sketch.merge(new QuantileSketch(0.1)));
+    }
+}
@@ -0,0 +1,281 @@
+package ru.kropotov;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import ru.kropotov.game.CompiledCombination;
+import ru.kropotov.game.CompiledGame;
+import ru.kropotov.model.enums.Impact;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static ru.kropotov.game.CompiledGame.NO_SYMBOL;
+import static ru.kropotov.model.enums.When.LINEAR_SYMBOLS;
+
+/**
+ * Batch kernel on the incubating Vector API with one lane per spin. Each symbol's reward is built lane by
+ * lane in the order the plain evaluator applies combinations, with NaN standing for a symbol not rewarded
+ * yet, rewards are summed with the same compensation and in the same order, and bonus symbols are applied cell by cell in row-major order, so every reward equals the plain
+ * one to the bit. Only loaded when the {@code jdk.incubator.vector} module is present.
+ * <p>
+ * Everything runs in double lanes, symbols included, since converting masks between int and double
+ * species is not compiled to vector code by every JDK. Lanes past the end of the batch hold
+ * {@code NO_SYMBOL}, which matches nothing, so they count no hits.
+ */
+final class VectorBatchKernel implements BatchKernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private final int cellCount;
+    private final int[] standardSymbols;
+    private final double[] symbolMultipliers;
+    // Symbols that can be rewarded, in the order their rewards are added up
+    private final int[] payingSymbols;
+    // Counts with same_symbols combinations, and those combinations in the order they apply
+    private final int[] tierCounts;
+    private final CompiledCombination[][] tierCombinations;
+    // Every same_symbols combination in the order they apply, with the count it asks for
+    private final int[] sameCounts;
+    private final double[] sameMultipliers;
+    // Linear areas of all linear combinations in order, areaStarts[i] being the first area of the i-th
+    private final int[][] areas;
+    private final double[] areaMultipliers;
+    private final CompiledCombination[] linearCombinations;
+    private final int[] areaStarts;
+    // Bonus symbols that apply, then every cell and symbol pair of multipliers and of extras in row-major order
+    private final int[] bonusSymbols;
+    private final int[] multiplyingCells;
+    private final int[] multiplyingSymbols;
+    private final double[] multipliers;
+    private final int[] extraCells;
+    private final int[] extraSymbols;
+    private final double[] extras;
+
+    VectorBatchKernel(CompiledGame game) {
+        this.cellCount = game.getCellCount();
+        this.standardSymbols = IntStream.range(0, game.symbolCount()).filter(game::isStandard).toArray();
+        this.symbolMultipliers = new double[game.symbolCount()];
+        for (int symbol = 0; symbol < game.symbolCount(); symbol++) {
+            symbolMultipliers[symbol] = game.rewardMultiplier(symbol);
+        }
+
+        CompiledCombination[][] sameSymbolCombinations = game.getSameSymbolCombinations();
+        this.tierCounts = IntStream.range(0, sameSymbolCombinations.length)
+                .filter(count -> sameSymbolCombinations[count].length > 0)
+                .toArray();
+        this.tierCombinations = new CompiledCombination[tierCounts.length][];
+        for (int tier = 0; tier < tierCounts.length; tier++) {
+            tierCombinations[tier] = sameSymbolCombinations[tierCounts[tier]];
+        }
+
+        this.sameCounts = IntStream.range(0, tierCounts.length)
+                .flatMap(tier -> IntStream.generate(() -> tierCounts[tier]).limit(tierCombinations[tier].length))
+                .toArray();
+        this.sameMultipliers = Arrays.stream(tierCombinations)
+                .flatMap(Arrays::stream)
+                .mapToDouble(CompiledCombination::getRewardMultiplier)
+                .toArray();
+
+        List<int[]> linearAreas = new ArrayList<>();
+        List<CompiledCombination> linear = new ArrayList<>();
+        for (CompiledCombination combination : game.getCombinations()) {
+            if (LINEAR_SYMBOLS.equals(combination.getWhen())) {
+                linear.add(combination);
+                linearAreas.addAll(List.of(combination.getCoveredAreas()));
+            }
+        }
+        this.areas = linearAreas.toArray(int[][]::new);
+        this.linearCombinations = linear.toArray(CompiledCombination[]::new);
+        this.areaStarts = new int[linearCombinations.length + 1];
+        this.areaMultipliers = new double[areas.length];
+        for (int i = 0; i < linearCombinations.length; i++) {
+            areaStarts[i + 1] = areaStarts[i] + linearCombinations[i].getCoveredAreas().length;
+            Arrays.fill(areaMultipliers, areaStarts[i], areaStarts[i + 1], linearCombinations[i].getRewardMultiplier());
+        }
+
+        // Without linear areas only standard symbols can pay. The batch evaluator only picks this kernel when
+        // no spin rewards enough symbols for RewardCalculator's HashMap to grow, so one order serves every lane
+        this.payingSymbols = IntStream.of(game.rewardSumOrder(0))
+                .filter(symbol -> game.isStandard(symbol) || areas.length > 0)
+                .toArray();
+
+        this.bonusSymbols = IntStream.range(0, game.symbolCount())
+                .filter(symbol -> game.isBonus(symbol) && (game.getImpacts()[symbol] == Impact.EXTRA_BONUS
+                        || game.getImpacts()[symbol] == Impact.MULTIPLY_REWARD && !Double.isNaN(symbolMultipliers[symbol])))
+                .toArray();
+        List<int[]> multiplying = new ArrayList<>();
+        List<int[]> extra = new ArrayList<>();
+        for (int cell = 0; cell < cellCount; cell++) {
+            for (int symbol : bonusSymbols) {
+                (game.getImpacts()[symbol] == Impact.MULTIPLY_REWARD ? multiplying : extra).add(new int[]{cell, symbol});
+            }
+        }
+        this.multiplyingCells = multiplying.stream().mapToInt(pair -> pair[0]).toArray();
+        this.multiplyingSymbols = multiplying.stream().mapToInt(pair -> pair[1]).toArray();
+        this.multipliers = IntStream.of(multiplyingSymbols).mapToDouble(symbol -> symbolMultipliers[symbol]).toArray();
+        this.extraCells = extra.stream().mapToInt(pair -> pair[0]).toArray();
+        this.extraSymbols = extra.stream().mapToInt(pair -> pair[1]).toArray();
+        this.extras = IntStream.of(extraSymbols).mapToDouble(symbol -> game.getExtras()[symbol]).toArray();
+    }
+
+    @Override
+    public void evaluate(SpinBatch batch, int bettingAmount) {
+        batch.clearHits();
+        int end = SPECIES.loopBound(batch.size() + SPECIES.length() - 1);
+        widenCells(batch, end);
+        for (int spin = 0; spin < end; spin += SPECIES.length()) {
+            countSymbols(batch, spin);
+            matchAreas(batch, spin);
+            countCombinationHits(batch, spin);
+            sumSymbolRewards(batch, spin, bettingAmount);
+            if (bonusSymbols.length > 0) {
+                applyBonusSymbols(batch, spin);
+            }
+        }
+    }
+
+    private void widenCells(SpinBatch batch, int end) {
+        for (int cell = 0; cell < cellCount; cell++) {
+            int row = cell * batch.stride;
+            for (int spin = 0; spin < batch.size(); spin++) {
+                batch.cellSymbols[row + spin] = batch.cells[row + spin];
+            }
+            for (int spin = batch.size(); spin < end; spin++) {
+                batch.cellSymbols[row + spin] = NO_SYMBOL;
+            }
+        }
+    }
+
+    private void countSymbols(SpinBatch batch, int spin) {
+        for (int symbol : standardSymbols) {
+            DoubleVector counts = DoubleVector.zero(SPECIES);
+            for (int cell = 0; cell < cellCount; cell++) {
+                DoubleVector symbols = DoubleVector.fromArray(SPECIES, batch.cellSymbols, cell * batch.stride + spin);
+                counts = counts.blend(counts.add(1.0), symbols.eq(symbol));
+            }
+            counts.intoArray(batch.symbolCounts, symbol * batch.stride + spin);
+        }
+    }
+
+    private void matchAreas(SpinBatch batch, int spin) {
+        for (int area = 0; area < areas.length; area++) {
+            int[] areaCells = areas[area];
+            if (areaCells.length == 0) {
+                DoubleVector.broadcast(SPECIES, NO_SYMBOL).intoArray(batch.areaSymbols, area * batch.stride + spin);
+                continue;
+            }
+            DoubleVector first = DoubleVector.fromArray(SPECIES, batch.cellSymbols, areaCells[0] * batch.stride + spin);
+            VectorMask<Double> matched = SPECIES.maskAll(true);
+            for (int i = 1; i < areaCells.length; i++) {
+                matched = matched.and(DoubleVector.fromArray(SPECIES, batch.cellSymbols,
+                        areaCells[i] * batch.stride + spin).eq(first));
+            }
+            DoubleVector.broadcast(SPECIES, NO_SYMBOL).blend(first, matched)
+                    .intoArray(batch.areaSymbols, area * batch.stride + spin);
+        }
+    }
+
+    // A combination counts once per spin, however many symbols or areas it applied to
+    private void countCombinationHits(SpinBatch batch, int spin) {
+        for (int tier = 0; tier < tierCounts.length; tier++) {
+            VectorMask<Double> applied = SPECIES.maskAll(false);
+            for (int symbol : standardSymbols) {
+                applied = applied.or(DoubleVector.fromArray(SPECIES, batch.symbolCounts, symbol * batch.stride + spin)
+                        .eq(tierCounts[tier]));
+            }
+            int hits = applied.trueCount();
+            for (CompiledCombination combination : tierCombinations[tier]) {
+                batch.combinationHits[combination.getId()] += hits;
+            }
+        }
+        for (int i = 0; i < linearCombinations.length; i++) {
+            VectorMask<Double> applied = SPECIES.maskAll(false);
+            for (int area = areaStarts[i]; area < areaStarts[i + 1]; area++) {
+                applied = applied.or(DoubleVector.fromArray(SPECIES, batch.areaSymbols, area * batch.stride + spin)
+                        .compare(VectorOperators.NE, NO_SYMBOL));
+            }
+            batch.combinationHits[linearCombinations[i].getId()] += applied.trueCount();
+        }
+    }
+
+    // The JIT of JDK 17 boxes vectors carried through nested loops or merged after branches, so every loop
+    // carrying a vector is a single loop over a flat list, and masked updates run whether any lane applies
+    private void sumSymbolRewards(SpinBatch batch, int spin, int bettingAmount) {
+        DoubleVector.zero(SPECIES).intoArray(batch.rewards, spin);
+        DoubleVector.zero(SPECIES).intoArray(batch.rewardCompensations, spin);
+        DoubleVector.zero(SPECIES).intoArray(batch.simpleRewards, spin);
+        for (int symbol : payingSymbols) {
+            double symbolReward = bettingAmount * symbolMultipliers[symbol];
+            DoubleVector reward = DoubleVector.broadcast(SPECIES, Double.NaN);
+            // Counts of symbols other than standard ones stay 0, which no combination asks for
+            DoubleVector counts = DoubleVector.fromArray(SPECIES, batch.symbolCounts, symbol * batch.stride + spin);
+            for (int i = 0; i < sameCounts.length; i++) {
+                // The first combination of a symbol sets its reward and each further one multiplies it
+                DoubleVector next = reward.mul(sameMultipliers[i])
+                        .blend(symbolReward * sameMultipliers[i], reward.compare(VectorOperators.NE, reward));
+                reward = reward.blend(next, counts.eq(sameCounts[i]));
+            }
+            for (int area = 0; area < areas.length; area++) {
+                VectorMask<Double> applied = DoubleVector.fromArray(SPECIES, batch.areaSymbols,
+                        area * batch.stride + spin).eq(symbol);
+                DoubleVector next = reward.mul(areaMultipliers[area])
+                        .blend(symbolReward * areaMultipliers[area], reward.compare(VectorOperators.NE, reward));
+                reward = reward.blend(next, applied);
+            }
+            // Compensated summation of CompensatedSum, in the lanes where the symbol has a reward
+            VectorMask<Double> rewarded = reward.compare(VectorOperators.EQ, reward);
+            DoubleVector sum = DoubleVector.fromArray(SPECIES, batch.rewards, spin);
+            DoubleVector compensation = DoubleVector.fromArray(SPECIES, batch.rewardCompensations, spin);
+            DoubleVector tmp = reward.sub(compensation);
+            DoubleVector velvel = sum.add(tmp);
+            compensation.blend(velvel.sub(sum).sub(tmp), rewarded).intoArray(batch.rewardCompensations, spin);
+            sum.blend(velvel, rewarded).intoArray(batch.rewards, spin);
+            DoubleVector simpleSum = DoubleVector.fromArray(SPECIES, batch.simpleRewards, spin);
+            simpleSum.blend(simpleSum.add(reward), rewarded).intoArray(batch.simpleRewards, spin);
+        }
+        DoubleVector total = DoubleVector.fromArray(SPECIES, batch.rewards, spin)
+                .sub(DoubleVector.fromArray(SPECIES, batch.rewardCompensations, spin));
+        DoubleVector simpleSum = DoubleVector.fromArray(SPECIES, batch.simpleRewards, spin);
+        total.blend(simpleSum, total.test(VectorOperators.IS_NAN).and(simpleSum.test(VectorOperators.IS_INFINITE)))
+                .intoArray(batch.rewards, spin);
+    }
+
+    private void applyBonusSymbols(SpinBatch batch, int spin) {
+        DoubleVector reward = DoubleVector.fromArray(SPECIES, batch.rewards, spin);
+        VectorMask<Double> won = reward.compare(VectorOperators.NE, 0.0);
+        if (!won.anyTrue()) {
+            return;
+        }
+        // Multipliers and extras add up apart from each other, each in row-major order
+        DoubleVector multiplier = DoubleVector.broadcast(SPECIES, 1.0);
+        for (int i = 0; i < multiplyingCells.length; i++) {
+            VectorMask<Double> applied = DoubleVector.fromArray(SPECIES, batch.cellSymbols,
+                    multiplyingCells[i] * batch.stride + spin).eq(multiplyingSymbols[i]).and(won);
+            multiplier = multiplier.blend(multiplier.mul(multipliers[i]), applied);
+        }
+        DoubleVector extra = DoubleVector.zero(SPECIES);
+        for (int i = 0; i < extraCells.length; i++) {
+            VectorMask<Double> applied = DoubleVector.fromArray(SPECIES, batch.cellSymbols,
+                    extraCells[i] * batch.stride + spin).eq(extraSymbols[i]).and(won);
+            extra = extra.blend(extra.add(extras[i]), applied);
+        }
+        reward.blend(reward.mul(multiplier).add(extra), won).intoArray(batch.rewards, spin);
+
+        for (int symbol : bonusSymbols) {
+            VectorMask<Double> present = SPECIES.maskAll(false);
+            for (int cell = 0; cell < cellCount; cell++) {
+                present = present.or(DoubleVector.fromArray(SPECIES, batch.cellSymbols, cell * batch.stride + spin)
+                        .eq(symbol));
+            }
+            batch.bonusSymbolHits[symbol] += present.and(won).trueCount();
+        }
+    }
+
+    @Override
+    public String name() {
+        return "vector-" + SPECIES.length() + "x";
+    }
+}